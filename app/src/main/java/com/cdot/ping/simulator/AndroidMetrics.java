@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+import android.os.Debug;
+
+import com.cdot.ping.simulator.core.CpuTimer;
+import com.cdot.ping.simulator.core.Gauge;
+import com.cdot.ping.simulator.core.MetricsRegistry;
+
+/**
+ * Metrics of the Android runtime, the equivalent of JvmMetrics in core
+ */
+class AndroidMetrics {
+    static final CpuTimer CPU_TIMER = new CpuTimer() {
+        @Override
+        public long currentThreadCpuTime() {
+            return Debug.threadCpuTimeNanos();
+        }
+    };
+
+    private static double runtimeStat(String name) {
+        String value = Debug.getRuntimeStat(name);
+        try {
+            return value != null ? Double.parseDouble(value) : Double.NaN;
+        } catch (NumberFormatException nfe) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Add gauges for garbage collections and heap use
+     */
+    static void register(MetricsRegistry registry) {
+        registry.gauge("fishfinder_gc_count", "Garbage collections since the app started", new Gauge() {
+            @Override
+            public double get() {
+                return runtimeStat("art.gc.gc-count");
+            }
+        });
+        registry.gauge("fishfinder_heap_used_bytes", "Heap in use", new Gauge() {
+            @Override
+            public double get() {
+                Runtime rt = Runtime.getRuntime();
+                return rt.totalMemory() - rt.freeMemory();
+            }
+        });
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattServer;
+import android.bluetooth.BluetoothGattService;
+
+import com.cdot.ping.simulator.core.FishFinder;
+import com.cdot.ping.simulator.core.Gauge;
+import com.cdot.ping.simulator.core.MetricsRegistry;
+import com.cdot.ping.simulator.core.SampleTransport;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sends payloads as notifications (or indications) of the characteristics in the
+ * GATT server's FishFinder service, to the connected devices that have subscribed to them.
+ * <p>
+ * Each connected device has a session, kept up to date from the GATT server callbacks,
+ * recording which characteristics it has subscribed to, whether it wants notifications
+ * or indications, and its MTU. The sessions are held in a copy-on-write array, so
+ * sending a packet doesn't need to ask the stack which devices are connected.
+ * <p>
+ * The stack can only have one notification outstanding per device, and silently drops
+ * any sent before onNotificationSent() has reported the last one. So each session has an
+ * outbound queue holding at most one packet per characteristic: a new packet replaces
+ * one still waiting (it's out of date anyway), and the next packet is only sent when
+ * onNotificationSent() arrives. We get as many packets through as the link will carry,
+ * and count the ones that were dropped.
+ * <p>
+ * In adaptive mode, sonar packets are also paced per device, at a rate found by an
+ * AimdRateController from the deliveries and congestion seen by the device's queue.
+ * Other packets are never paced.
+ */
+public class BleTransport implements SampleTransport {
+
+    // Give up waiting for onNotificationSent after this long, ns
+    private static final long NOTIFY_TIMEOUT = 1000000000L;
+    // Bytes of each ATT packet not available for the value
+    private static final int ATT_HEADER_SIZE = 3;
+
+    private final BluetoothGattServer mGattServer;
+    private final MetricsRegistry mMetrics;
+    // Characteristics that can be notified
+    private final BluetoothGattCharacteristic[] mCharacteristics;
+    // Sessions of the connected devices; replaced, never modified
+    private volatile DeviceSession[] mSessions = new DeviceSession[0];
+    // Pace sonar packets to each device's adaptive rate
+    private volatile boolean mAdaptive = false;
+    // Rate new sessions start at, and the most any can reach, Hz
+    private volatile double mMaxRate;
+
+    /**
+     * @param server the GATT server
+     * @param service the FishFinder service
+     * @param metrics where to count notifications
+     * @param maxRate the rate the sonar stream is running at, Hz
+     */
+    public BleTransport(BluetoothGattServer server, BluetoothGattService service, MetricsRegistry metrics,
+                        double maxRate) {
+        mGattServer = server;
+        mMetrics = metrics;
+        mMaxRate = maxRate;
+        List<BluetoothGattCharacteristic> all = service.getCharacteristics();
+        int n = 0;
+        BluetoothGattCharacteristic[] chars = new BluetoothGattCharacteristic[all.size()];
+        for (BluetoothGattCharacteristic c : all)
+            if ((c.getProperties() & (BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_INDICATE)) != 0)
+                chars[n++] = c;
+        mCharacteristics = new BluetoothGattCharacteristic[n];
+        System.arraycopy(chars, 0, mCharacteristics, 0, n);
+
+        mMetrics.gauge("fishfinder_notification_queue_depth", "Packets waiting to be sent, over all devices", new Gauge() {
+            @Override
+            public double get() {
+                int depth = 0;
+                for (DeviceSession session : mSessions) {
+                    synchronized (session) {
+                        depth += session.depth();
+                    }
+                }
+                return depth;
+            }
+        });
+        mMetrics.gauge("fishfinder_subscribed_devices", "Devices subscribed to at least one characteristic", new Gauge() {
+            @Override
+            public double get() {
+                int n = 0;
+                for (DeviceSession session : mSessions)
+                    if (session.isSubscribed())
+                        n++;
+                return n;
+            }
+        });
+    }
+
+    private int indexOf(UUID uuid) {
+        for (int c = 0; c < mCharacteristics.length; c++)
+            if (mCharacteristics[c].getUuid().equals(uuid))
+                return c;
+        return -1;
+    }
+
+    private DeviceSession find(BluetoothDevice device) {
+        String address = device.getAddress();
+        for (DeviceSession session : mSessions)
+            if (session.getAddress().equals(address))
+                return session;
+        return null;
+    }
+
+    /**
+     * Called from BluetoothGattServerCallback.onConnectionStateChange when a device connects
+     * @return the device's session
+     */
+    synchronized DeviceSession onConnected(BluetoothDevice device) {
+        DeviceSession session = find(device);
+        if (session != null)
+            return session;
+        session = new DeviceSession(device, mCharacteristics, mMetrics, mMaxRate, mMaxRate);
+        DeviceSession[] sessions = new DeviceSession[mSessions.length + 1];
+        System.arraycopy(mSessions, 0, sessions, 0, mSessions.length);
+        sessions[mSessions.length] = session;
+        mSessions = sessions;
+        return session;
+    }
+
+    /**
+     * Called from BluetoothGattServerCallback.onConnectionStateChange when a device disconnects
+     */
+    synchronized void onDisconnected(BluetoothDevice device) {
+        DeviceSession session = find(device);
+        if (session != null)
+            remove(session);
+    }
+
+    /**
+     * Drop the sessions of any devices that are no longer connected, in case their
+     * disconnection was never reported
+     * @param connected the devices the GATT server says are connected
+     */
+    synchronized void retainConnected(List<BluetoothDevice> connected) {
+        for (DeviceSession session : mSessions) {
+            boolean found = false;
+            for (BluetoothDevice device : connected)
+                if (device.getAddress().equals(session.getAddress())) {
+                    found = true;
+                    break;
+                }
+            if (!found)
+                remove(session);
+        }
+    }
+
+    private void remove(DeviceSession session) {
+        DeviceSession[] sessions = new DeviceSession[mSessions.length - 1];
+        int j = 0;
+        for (DeviceSession s : mSessions)
+            if (s != session)
+                sessions[j++] = s;
+        mSessions = sessions;
+        // Don't keep exporting the device's metrics, or the session alive through its gauges
+        mMetrics.remove("device", session.getAddress());
+    }
+
+    /**
+     * Called from BluetoothGattServerCallback.onDescriptorWriteRequest when a device writes
+     * the client characteristic configuration of a characteristic
+     * @param subscription one of DeviceSession.UNSUBSCRIBED, NOTIFY or INDICATE
+     */
+    void onSubscriptionChanged(BluetoothDevice device, UUID characteristic, int subscription) {
+        int c = indexOf(characteristic);
+        if (c >= 0)
+            onConnected(device).setSubscription(c, subscription);
+    }
+
+    /**
+     * Called from BluetoothGattServerCallback.onMtuChanged
+     */
+    void onMtuChanged(BluetoothDevice device, int mtu) {
+        onConnected(device).setMtu(mtu);
+    }
+
+    /**
+     * @return true if any connected device has subscribed to the characteristic
+     */
+    boolean hasSubscribers(UUID characteristic) {
+        int c = indexOf(characteristic);
+        for (DeviceSession session : mSessions)
+            if (c >= 0 && session.getSubscription(c) != DeviceSession.UNSUBSCRIBED)
+                return true;
+        return false;
+    }
+
+    /**
+     * Turn pacing of sonar packets to each device's adaptive rate on or off
+     */
+    void setAdaptive(boolean adaptive) {
+        mAdaptive = adaptive;
+    }
+
+    /**
+     * Set the most any device's adaptive rate can reach, normally the rate the sonar
+     * stream is running at
+     */
+    void setMaxRate(double maxRate) {
+        mMaxRate = maxRate;
+        for (DeviceSession session : mSessions)
+            session.mRate.setMaxRate(maxRate);
+    }
+
+    /**
+     * @return the sessions of the connected devices, which mustn't be modified
+     */
+    DeviceSession[] getSessions() {
+        return mSessions;
+    }
+
+    @Override // SampleTransport
+    public void send(UUID uuid, byte[] payload, int off, int len) {
+        int c = indexOf(uuid);
+        if (c < 0)
+            throw new IllegalArgumentException("Can't notify " + uuid);
+        boolean paced = mAdaptive && uuid.equals(FishFinder.BTC_SAMPLE);
+        long now = System.nanoTime();
+
+        for (DeviceSession session : mSessions) {
+            if (session.getSubscription(c) == DeviceSession.UNSUBSCRIBED)
+                continue;
+            if (len > session.getMtu() - ATT_HEADER_SIZE) {
+                session.mTooLarge.increment();
+                continue;
+            }
+            synchronized (session) {
+                // The device may have unsubscribed since it was checked above
+                if (session.getSubscription(c) == DeviceSession.UNSUBSCRIBED)
+                    continue;
+                if (paced && !session.isDue(now))
+                    continue;
+                session.offer(c, payload, off, len, now);
+                pump(session);
+            }
+        }
+    }
+
+    /**
+     * Called from BluetoothGattServerCallback.onNotificationSent, to release the next packet
+     * for the device
+     */
+    void onNotificationSent(BluetoothDevice device, int status) {
+        DeviceSession session = find(device);
+        if (session == null)
+            return;
+        synchronized (session) {
+            session.mInFlight = false;
+            long now = System.nanoTime();
+            if (status == BluetoothGatt.GATT_SUCCESS)
+                session.mRate.onSuccess(now);
+            else {
+                session.mFailed.increment();
+                session.mRate.onCongestion(now);
+            }
+            pump(session);
+        }
+    }
+
+    // Send the oldest waiting packet, if nothing is in flight. Caller must hold the session's lock.
+    private void pump(DeviceSession session) {
+        long now = System.nanoTime();
+        if (session.mInFlight) {
+            if (now - session.mSentAt < NOTIFY_TIMEOUT)
+                return;
+            // The callback has been lost; don't stall the device forever
+            session.mTimeouts.increment();
+            session.mRate.onCongestion(now);
+            session.mInFlight = false;
+        }
+        // Skips, and drops, packets for characteristics the device has unsubscribed from
+        int c = session.next();
+        if (c < 0)
+            return;
+        int subscription = session.getSubscription(c);
+
+        BluetoothGattCharacteristic characteristic = mCharacteristics[c];
+        boolean sent;
+        // The characteristic's value is shared by all devices, so set it and notify together
+        synchronized (characteristic) {
+            byte[] value = characteristic.getValue();
+            int len = session.getLength(c);
+            if (value == null || value.length != len) {
+                value = new byte[len];
+                characteristic.setValue(value);
+            }
+            session.take(c, value);
+            // true for indication (acknowledge) and false for notification (unacknowledge).
+            sent = mGattServer.notifyCharacteristicChanged(session.getDevice(), characteristic,
+                    subscription == DeviceSession.INDICATE);
+        }
+        if (sent) {
+            session.mInFlight = true;
+            session.mSentAt = now;
+            session.mSent.increment();
+        } else {
+            session.mRefused.increment();
+            session.mRate.onCongestion(now);
+        }
+    }
+
+    @Override // SampleTransport
+    public synchronized void close() {
+        // The GATT server belongs to the activity
+        mSessions = new DeviceSession[0];
+    }
+}
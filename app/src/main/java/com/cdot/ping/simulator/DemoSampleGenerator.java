@@ -1,750 +0,0 @@
-package com.cdot.ping.simulator;
-
-public class DemoSampleGenerator implements SampleGenerator {
-
-    private static class MySample extends Sample {
-        static float bat = 100;
-
-        MySample(double lat, double lon, double tim, double dep, int stren, double fd, int fs) {
-            super(lat, lon, (long)(tim * 1000), (float)-dep, 100f * stren / 255f, (float)-fd, fs, bat, (float)(10f + dep * 0.1f));
-            bat -= 0.001;
-            if (bat <= 0) bat = 100;
-        }
-    }
-
-    //lat,lon,dist,depth,strength,fishdepth,fishstrength
-    private static final Sample[] samples = {
-     new MySample(53.6290802, -2.7302642, 0, -7.50, 250, 0, 0),
-     new MySample(53.6290802, -2.7302652, 0.11, -7.48, 250, 0, 0),
-     new MySample(53.6290802, -2.7302642, 0.22, -7.47, 250, 0, 0),
-     new MySample(53.6290653, -2.7302564, 2.09, -7.47, 250, 0, 0),
-     new MySample(53.6290613, -2.7302564, 2.54, -7.46, 250, 0, 0),
-     new MySample(53.6290653, -2.7302564, 2.98, -7.44, 250, 0, 0),
-     new MySample(53.62906715, -2.730253533, 3.36, -7.43, 250, -3.66, 4),
-     new MySample(53.62907661, -2.730250681, 4.46, -7.43, 249, -3.29, 10),
-     new MySample(53.629065, -2.730256, 5.87, -7.41, 249, -2.91, 4),
-     new MySample(53.629065, -2.7302556, 5.92, -7.41, 249, 0, 0),
-     new MySample(53.62906785, -2.730247342, 6.89, -7.39, 249, 0, 0),
-     new MySample(53.62907751, -2.730241631, 8.14, -7.39, 249, 0, 0),
-     new MySample(53.6290648, -2.7302556, 10.23, -7.38, 249, 0, 0),
-     new MySample(53.62907341, -2.730249807, 11.39, -7.36, 249, 0, 0),
-     new MySample(53.6290825, -2.730239892, 12.88, -7.35, 249, 0, 0),
-     new MySample(53.6290643, -2.7302548, 15.50, -7.34, 249, 0, 0),
-     new MySample(53.62906857, -2.730248267, 16.36, -7.34, 249, 0, 0),
-     new MySample(53.62907109, -2.730240624, 17.26, -7.32, 249, -0.64, 12),
-     new MySample(53.6290633, -2.7302545, 19.03, -7.25, 248, -0.57, 12),
-     new MySample(53.62907281, -2.730248796, 20.26, -7.23, 248, 0, 0),
-     new MySample(53.62907337, -2.730245686, 20.61, -7.21, 248, 0, 0),
-     new MySample(53.6290635, -2.7302542, 22.06, -7.21, 248, 0, 0),
-     new MySample(53.629066, -2.730253955, 22.34, -7.21, 248, -5.13, 15),
-     new MySample(53.62906966, -2.73025324, 22.75, -7.19, 248, -5.05, 15),
-     new MySample(53.6290629, -2.7302536, 23.50, -7.18, 248, 0, 0),
-     new MySample(53.62906333, -2.730251871, 23.70, -7.16, 248, 0, 0),
-     new MySample(53.62906969, -2.730247155, 24.58, -7.15, 248, 0, 0),
-     new MySample(53.6290628, -2.7302533, 25.60, -7.15, 248, 0, 0),
-     new MySample(53.6290663, -2.73025015, 26.13, -7.13, 247, 0, 0),
-     new MySample(53.62907107, -2.730243695, 27.02, -7.07, 247, 0, 0),
-     new MySample(53.6290629, -2.7302531, 28.40, -6.94, 246, 0, 0),
-     new MySample(53.62906645, -2.730246529, 29.23, -7.02, 247, 0, 0),
-     new MySample(53.62907229, -2.730239673, 30.24, -7, 247, 0, 0),
-     new MySample(53.6290628, -2.7302529, 32.04, -7, 247, 0, 0),
-     new MySample(53.62907188, -2.730246743, 33.26, -6.90, 246, 0, 0),
-     new MySample(53.62907664, -2.730238943, 34.28, -6.90, 246, -1.84, 9),
-     new MySample(53.6290629, -2.7302526, 36.43, -6.90, 246, -1.67, 13),
-     new MySample(53.62906845, -2.730244847, 37.49, -6.90, 246, -2.07, 7),
-     new MySample(53.62907455, -2.730239006, 38.43, -6.81, 245, 0, 0),
-     new MySample(53.6290629, -2.7302529, 40.44, -6.80, 245, 0, 0),
-     new MySample(53.62906635, -2.730251082, 40.88, -6.80, 245, 0, 0),
-     new MySample(53.62907135, -2.730245389, 41.72, -6.80, 245, -1.78, 6),
-     new MySample(53.6290629, -2.730253, 42.98, -6.71, 245, 0, 0),
-     new MySample(53.62907008, -2.73025173, 43.79, -6.69, 244, 0, 0),
-     new MySample(53.62907704, -2.730242781, 45.05, -6.70, 245, 0, 0),
-     new MySample(53.6290632, -2.7302534, 46.99, -6.66, 244, -1.28, 5),
-     new MySample(53.62906751, -2.730243796, 48.16, -6.58, 244, -2.04, 7),
-     new MySample(53.62907625, -2.730238246, 49.31, -6.60, 244, -1.70, 12),
-     new MySample(53.6290632, -2.730254, 51.58, -6.60, 244, -3.10, 14),
-     new MySample(53.62907172, -2.730246496, 52.85, -6.60, 244, 0, 0),
-     new MySample(53.62908, -2.730244829, 53.78, -6.60, 244, 0, 0),
-     new MySample(53.6290632, -2.7302541, 55.91, -6.48, 243, 0, 0),
-     new MySample(53.62907238, -2.730246027, 57.27, -6.50, 243, 0, 0),
-     new MySample(53.62908098, -2.730238132, 58.57, -6.50, 243, 0, 0),
-     new MySample(53.629063, -2.730254, 61.23, -6.50, 243, 0, 0),
-     new MySample(53.62907028, -2.730252179, 62.07, -6.50, 243, 0, 0),
-     new MySample(53.6290795, -2.730246297, 63.28, -6.50, 243, -4, 8),
-     new MySample(53.6290624, -2.7302536, 65.35, -6.50, 243, -5.31, 9),
-     new MySample(53.62906284, -2.730251011, 65.64, -6.50, 243, -4, 12),
-     new MySample(53.62907139, -2.730241135, 67.09, -6.50, 243, -4.92, 6),
-     new MySample(53.6290502, -2.7302204, 70.39, -6.50, 243, 0, 0),
-     new MySample(53.62905963, -2.730215712, 71.56, -6.50, 243, 0, 0),
-     new MySample(53.62906236, -2.73021366, 71.94, -6.48, 243, 0, 0),
-     new MySample(53.6290495, -2.7302196, 73.51, -6.35, 242, 0, 0),
-     new MySample(53.62905421, -2.730209889, 74.71, -6.44, 243, 0, 0),
-     new MySample(53.62906365, -2.730202939, 76.01, -6.38, 242, 0, 0),
-     new MySample(53.6290489, -2.730219, 78.43, -6.40, 242, 0, 0),
-     new MySample(53.62905339, -2.730210263, 79.53, -6.40, 242, 0, 0),
-     new MySample(53.62906336, -2.73020942, 80.64, -6.40, 242, 0, 0),
-     new MySample(53.6290486, -2.7302189, 82.59, -6.40, 242, 0, 0),
-     new MySample(53.62905365, -2.730217014, 83.18, -6.40, 242, 0, 0),
-     new MySample(53.62906305, -2.73021053, 84.45, -6.40, 242, 0, 0),
-     new MySample(53.6290473, -2.7302189, 86.44, -6.44, 243, 0, 0),
-     new MySample(53.62905715, -2.730216272, 87.57, -6.55, 243, 0, 0),
-     new MySample(53.62905976, -2.730214017, 87.95, -6.50, 243, 0, 0),
-     new MySample(53.6290361, -2.7302144, 90.58, -6.50, 243, 0, 0),
-     new MySample(53.62904284, -2.730205818, 91.79, -6.50, 243, 0, 0),
-     new MySample(53.62904596, -2.73019829, 92.70, -6.50, 243, 0, 0),
-     new MySample(53.6289878, -2.7301907, 99.21, -6.50, 243, 0, 0),
-     new MySample(53.62898909, -2.730186591, 99.69, -6.50, 243, 0, 0),
-     new MySample(53.62899233, -2.730183857, 100.16, -6.50, 243, 0, 0),
-     new MySample(53.6289788, -2.7301488, 104.34, -6.50, 243, 0, 0),
-     new MySample(53.62898878, -2.730146307, 105.48, -6.50, 243, 0, 0),
-     new MySample(53.62899516, -2.730142781, 106.29, -6.50, 243, 0, 0),
-     new MySample(53.6290097, -2.7301299, 108.45, -6.50, 243, 0, 0),
-     new MySample(53.62901899, -2.730122753, 109.75, -6.50, 243, 0, 0),
-     new MySample(53.62902537, -2.730119462, 110.55, -6.48, 243, 0, 0),
-     new MySample(53.628998, -2.7301355, 114.08, -6.36, 242, 0, 0),
-     new MySample(53.62900321, -2.730133554, 114.69, -6.36, 242, 0, 0),
-     new MySample(53.62900821, -2.730126342, 115.67, -6.27, 242, 0, 0),
-     new MySample(53.6290026, -2.7301389, 117.20, -6.32, 242, 0, 0),
-     new MySample(53.62900568, -2.730138379, 117.54, -6.30, 242, 0, 0),
-     new MySample(53.62901117, -2.730134257, 118.31, -6.30, 242, 0, 0),
-     new MySample(53.6289811, -2.7301245, 121.82, -6.30, 242, 0, 0),
-     new MySample(53.62899073, -2.730121349, 122.95, -6.23, 241, 0, 0),
-     new MySample(53.62900004, -2.730111894, 124.42, -6.23, 241, -1.95, 2),
-     new MySample(53.628984, -2.7300729, 129.11, -6.59, 244, -1.95, 9),
-     new MySample(53.62899119, -2.730065144, 130.28, -6.48, 243, -1.86, 8),
-     new MySample(53.62899472, -2.730061402, 130.85, -6.58, 244, 0, 0),
-     new MySample(53.6290018, -2.7299858, 139.29, -6.60, 244, 0, 0),
-     new MySample(53.62900727, -2.729977391, 140.40, -6.60, 244, 0, 0),
-     new MySample(53.62901558, -2.729971073, 141.56, -6.60, 244, 0, 0),
-     new MySample(53.6289925, -2.7298818, 151.81, -6.60, 244, 0, 0),
-     new MySample(53.62899983, -2.729881023, 152.63, -6.60, 244, 0, 0),
-     new MySample(53.62900724, -2.729877874, 153.52, -6.60, 244, 0, 0),
-     new MySample(53.628968, -2.7298561, 158.51, -6.60, 244, 0, 0),
-     new MySample(53.62897147, -2.729847161, 159.57, -6.60, 244, 0, 0),
-     new MySample(53.62897152, -2.729846095, 159.69, -6.60, 244, 0, 0),
-     new MySample(53.6289534, -2.7298368, 161.95, -6.60, 244, 0, 0),
-     new MySample(53.62895881, -2.729834627, 162.60, -6.60, 244, 0, 0),
-     new MySample(53.62896765, -2.72982662, 163.93, -6.60, 244, 0, 0),
-     new MySample(53.6289515, -2.7298362, 166.01, -6.60, 244, 0, 0),
-     new MySample(53.62895888, -2.729832777, 166.92, -6.60, 244, 0, 0),
-     new MySample(53.62896575, -2.729832363, 167.68, -6.60, 244, -0.85, 2),
-     new MySample(53.6289339, -2.7298099, 172.01, -6.60, 244, -0.85, 8),
-     new MySample(53.62893953, -2.729806449, 172.75, -6.60, 244, -0.85, 2),
-     new MySample(53.62894648, -2.729802071, 173.66, -6.60, 244, 0, 0),
-     new MySample(53.6289286, -2.7298134, 176.01, -6.60, 244, 0, 0),
-     new MySample(53.62893639, -2.729807465, 177.10, -6.60, 244, 0, 0),
-     new MySample(53.62894361, -2.729800726, 178.20, -6.60, 244, 0, 0),
-     new MySample(53.6289102, -2.7297723, 183.07, -6.60, 244, 0, 0),
-     new MySample(53.62891639, -2.729763141, 184.30, -6.60, 244, 0, 0),
-     new MySample(53.62891671, -2.729757147, 184.97, -6.60, 244, 0, 0),
-     new MySample(53.6289094, -2.7297478, 186.28, -6.60, 244, 0, 0),
-     new MySample(53.62891544, -2.729738442, 187.52, -6.60, 244, 0, 0),
-     new MySample(53.62892337, -2.729737903, 188.40, -6.60, 244, 0, 0),
-     new MySample(53.6289043, -2.7297246, 190.99, -6.60, 244, 0, 0),
-     new MySample(53.62890815, -2.729715336, 192.10, -6.60, 244, 0, 0),
-     new MySample(53.62891661, -2.72971175, 193.12, -6.60, 244, 0, 0),
-     new MySample(53.6289031, -2.7297242, 195.17, -6.60, 244, 0, 0),
-     new MySample(53.62890482, -2.729721253, 195.55, -6.60, 244, 0, 0),
-     new MySample(53.62890807, -2.729711373, 196.70, -6.56, 244, -3.42, 6),
-     new MySample(53.628902, -2.7297245, 198.31, -6.45, 243, -3.32, 12),
-     new MySample(53.62890267, -2.729719828, 198.83, -6.53, 243, -3.36, 6),
-     new MySample(53.62890848, -2.729710559, 200.05, -6.49, 243, 0, 0),
-     new MySample(53.6288729, -2.7296774, 205.45, -6.51, 243, 0, 0),
-     new MySample(53.62888222, -2.729672254, 206.63, -6.49, 243, 0, 0),
-     new MySample(53.62889202, -2.729666149, 207.92, -6.50, 243, 0, 0),
-     new MySample(53.6288218, -2.7296152, 217.56, -6.50, 243, 0, 0),
-     new MySample(53.62882706, -2.729611932, 218.25, -6.50, 243, -3.76, 14),
-     new MySample(53.62883, -2.729610428, 218.61, -6.50, 243, -3.28, 15),
-     new MySample(53.6287902, -2.7295025, 231.39, -6.46, 243, -3.19, 15),
-     new MySample(53.62879276, -2.729497182, 232.05, -6.38, 242, -3.21, 15),
-     new MySample(53.62880155, -2.729489638, 233.34, -6.41, 243, 0, 0),
-     new MySample(53.6287647, -2.7294382, 240.37, -6.39, 242, 0, 0),
-     new MySample(53.62876759, -2.729431851, 241.14, -6.36, 242, 0, 0),
-     new MySample(53.62877076, -2.729423216, 242.17, -6.26, 241, 0, 0),
-     new MySample(53.6287649, -2.7294358, 243.71, -6.32, 242, 0, 0),
-     new MySample(53.62877206, -2.729435306, 244.50, -6.21, 241, 0, 0),
-     new MySample(53.6287814, -2.729429803, 245.71, -6.19, 241, 0, 0),
-     new MySample(53.6287645, -2.7294342, 247.65, -6.21, 241, 0, 0),
-     new MySample(53.62876616, -2.729426337, 248.54, -6.20, 241, 0, 0),
-     new MySample(53.62877056, -2.729424833, 249.06, -6.20, 241, 0, 0),
-     new MySample(53.6287639, -2.7294328, 250.21, -6.20, 241, 0, 0),
-     new MySample(53.62876917, -2.729427002, 251.08, -6.20, 241, 0, 0),
-     new MySample(53.62877878, -2.729417732, 252.57, -6.20, 241, 0, 0),
-     new MySample(53.6287636, -2.7294323, 254.91, -6.11, 241, 0, 0),
-     new MySample(53.62876789, -2.729431003, 255.41, -6.09, 240, 0, 0),
-     new MySample(53.62877698, -2.729422834, 256.76, -6.10, 240, 0, 0),
-     new MySample(53.628763, -2.7294315, 258.59, -6.10, 240, 0, 0),
-     new MySample(53.6287706, -2.729421835, 259.96, -6.10, 240, 0, 0),
-     new MySample(53.62877498, -2.729412426, 261.11, -6.10, 240, 0, 0),
-     new MySample(53.6287625, -2.7294306, 263.56, -6.10, 240, 0, 0),
-     new MySample(53.62877002, -2.729428971, 264.41, -6.10, 240, 0, 0),
-     new MySample(53.62877746, -2.729422749, 265.49, -6.10, 240, 0, 0),
-     new MySample(53.6287625, -2.7294293, 267.31, -6.10, 240, 0, 0),
-     new MySample(53.62876379, -2.729421812, 268.15, -6.10, 240, 0, 0),
-     new MySample(53.62876457, -2.729420712, 268.30, -6.10, 240, 0, 0),
-     new MySample(53.6287621, -2.7294286, 269.22, -6.10, 240, 0, 0),
-     new MySample(53.62876587, -2.729426389, 269.71, -6.18, 241, 0, 0),
-     new MySample(53.62876745, -2.729425686, 269.90, -6.19, 241, 0, 0),
-     new MySample(53.6287617, -2.7294276, 270.57, -6.16, 241, 0, 0),
-     new MySample(53.62876632, -2.729417766, 271.78, -6.17, 241, 0, 0),
-     new MySample(53.62877229, -2.729415994, 272.47, -6.15, 241, 0, 0),
-     new MySample(53.6287618, -2.7294268, 274.14, -6.15, 241, 0, 0),
-     new MySample(53.62876393, -2.729417827, 275.17, -6.13, 241, 0, 0),
-     new MySample(53.6287648, -2.729409682, 276.08, -6.13, 241, 0, 0),
-     new MySample(53.6287616, -2.7294254, 277.86, -6.12, 241, 0, 0),
-     new MySample(53.62876322, -2.729421548, 278.32, -6.11, 240, 0, 0),
-     new MySample(53.62876647, -2.72941175, 279.47, -6.09, 240, 0, 0),
-     new MySample(53.6287621, -2.7294248, 281, -6.08, 240, 0, 0),
-     new MySample(53.62877027, -2.729417983, 282.18, -6.08, 240, 0, 0),
-     new MySample(53.62877134, -2.729408246, 283.27, -6.06, 240, 0, 0),
-     new MySample(53.6287628, -2.7294235, 285.21, -6.06, 240, 0, 0),
-     new MySample(53.62876545, -2.729414489, 286.26, -6.04, 240, 0, 0),
-     new MySample(53.62877104, -2.729410982, 286.99, -6.04, 240, 0, 0),
-     new MySample(53.6287636, -2.7294223, 288.49, -6.01, 240, 0, 0),
-     new MySample(53.62876836, -2.729416692, 289.31, -6.02, 240, 0, 0),
-     new MySample(53.62877088, -2.729407572, 290.36, -6, 240, 0, 0),
-     new MySample(53.6287642, -2.7294218, 292.11, -6.09, 240, 0, 0),
-     new MySample(53.62877329, -2.729420996, 293.12, -6.10, 240, 0, 0),
-     new MySample(53.62878116, -2.729418734, 294.03, -6.27, 242, 0, 0),
-     new MySample(53.6287653, -2.7294211, 295.82, -6.19, 241, 0, 0),
-     new MySample(53.62877364, -2.729415477, 296.93, -6.20, 241, 0, 0),
-     new MySample(53.62877876, -2.72941266, 297.58, -6.20, 241, 0, 0),
-     new MySample(53.6287656, -2.7294206, 299.29, -6.29, 242, 0, 0),
-     new MySample(53.62876856, -2.729412063, 300.29, -6.31, 242, 0, 0),
-     new MySample(53.62877069, -2.729408181, 300.79, -6.29, 242, 0, 0),
-     new MySample(53.6287662, -2.7294205, 302.24, -6.30, 242, 0, 0),
-     new MySample(53.62877403, -2.729415655, 303.27, -6.30, 242, 0, 0),
-     new MySample(53.62877419, -2.729411831, 303.69, -6.30, 242, 0, 0),
-     new MySample(53.6287669, -2.7294206, 304.96, -6.32, 242, 0, 0),
-     new MySample(53.62877188, -2.729414741, 305.81, -6.46, 243, 0, 0),
-     new MySample(53.62877362, -2.729409606, 306.42, -6.34, 242, 0, 0),
-     new MySample(53.6287674, -2.729421, 307.86, -6.41, 242, 0, 0),
-     new MySample(53.62877307, -2.729417999, 308.57, -6.39, 242, 0, 0),
-     new MySample(53.62877489, -2.729416657, 308.82, -6.42, 243, 0, 0),
-     new MySample(53.628768, -2.7294213, 309.75, -6.54, 243, 0, 0),
-     new MySample(53.62877465, -2.729416157, 310.68, -6.47, 243, 0, 0),
-     new MySample(53.62877859, -2.72941156, 311.35, -6.52, 243, 0, 0),
-     new MySample(53.6288211, -2.7294396, 317.01, -6.50, 243, 0, 0),
-     new MySample(53.62882417, -2.729429898, 318.14, -6.50, 243, 0, 0),
-     new MySample(53.62882772, -2.729427719, 318.60, -6.50, 243, 0, 0),
-     new MySample(53.6288786, -2.7294314, 324.27, -6.50, 243, 0, 0),
-     new MySample(53.62888343, -2.729422039, 325.44, -6.55, 243, 0, 0),
-     new MySample(53.62888536, -2.729412435, 326.53, -6.65, 244, 0, 0),
-     new MySample(53.6289125, -2.7294015, 329.78, -6.59, 244, 0, 0),
-     new MySample(53.62891663, -2.729394913, 330.65, -6.67, 244, 0, 0),
-     new MySample(53.62892343, -2.729393088, 331.43, -6.71, 244, 0, 0),
-     new MySample(53.6289451, -2.729378, 334.36, -6.70, 244, 0, 0),
-     new MySample(53.62895466, -2.729370409, 335.72, -6.70, 244, 0, 0),
-     new MySample(53.62895516, -2.729368844, 335.90, -6.78, 245, 0, 0),
-     new MySample(53.6289645, -2.729389, 338.37, -6.81, 245, 0, 0),
-     new MySample(53.62897023, -2.729383158, 339.28, -6.79, 245, -4.53, 3),
-     new MySample(53.62897287, -2.729377455, 339.98, -6.80, 245, -4.53, 9),
-     new MySample(53.628965, -2.7293904, 341.66, -6.80, 245, -4.34, 7),
-     new MySample(53.62897352, -2.729387624, 342.66, -6.80, 245, 0, 0),
-     new MySample(53.62897517, -2.72938122, 343.39, -6.92, 246, 0, 0),
-     new MySample(53.6289816, -2.729431, 348.97, -6.89, 246, 0, 0),
-     new MySample(53.62898449, -2.729421007, 350.12, -6.90, 246, -3.30, 6),
-     new MySample(53.62899325, -2.729417406, 351.18, -6.91, 246, -3.27, 7),
-     new MySample(53.6289814, -2.7294321, 353.27, -7.03, 247, -4.04, 8),
-     new MySample(53.62898523, -2.729429222, 353.81, -6.93, 246, -3.67, 12),
-     new MySample(53.62899443, -2.729419848, 355.27, -6.74, 245, 0, 0),
-     new MySample(53.6289797, -2.729424, 356.97, -6.44, 243, 0, 0),
-     new MySample(53.62898141, -2.729423674, 357.16, -6.19, 241, 0, 0),
-     new MySample(53.62898832, -2.72942086, 357.99, -6.02, 240, 0, 0),
-     new MySample(53.6290066, -2.7294445, 361.31, -6.04, 240, 0, 0),
-     new MySample(53.62901625, -2.729435443, 362.78, -5.69, 238, -0.71, 10),
-     new MySample(53.62901997, -2.729429433, 363.56, -5.19, 234, -0.58, 10),
-     new MySample(53.629029, -2.7294773, 368.98, -4.97, 233, 0, 0),
-     new MySample(53.62903329, -2.729473445, 369.62, -5.19, 234, 0, 0),
-     new MySample(53.62904217, -2.729465475, 370.94, -5.23, 235, 0, 0),
-     new MySample(53.6290503, -2.7295233, 377.43, -5.27, 235, 0, 0),
-     new MySample(53.62905156, -2.729516293, 378.22, -5.13, 234, 0, 0),
-     new MySample(53.62905346, -2.729512826, 378.66, -5.08, 234, 0, 0),
-     new MySample(53.6290916, -2.7295989, 389.12, -4.91, 233, 0, 0),
-     new MySample(53.62909445, -2.729597714, 389.46, -4.55, 230, -0.02, 5),
-     new MySample(53.62909521, -2.729589635, 390.37, -4.40, 229, -0.02, 14),
-     new MySample(53.6291314, -2.7297074, 404.06, -4.39, 229, -0.02, 5),
-     new MySample(53.62914049, -2.72970732, 405.07, -3.95, 226, 0, 0),
-     new MySample(53.62914704, -2.729698293, 406.30, -3.97, 226, 0, 0),
-     new MySample(53.6291582, -2.7297423, 411.35, -3.83, 226, 0, 0),
-     new MySample(53.62916072, -2.729742115, 411.63, -3.68, 225, 0, 0),
-     new MySample(53.62916931, -2.729738319, 412.67, -3.37, 223, 0, 0),
-     new MySample(53.6291588, -2.7297636, 415.71, -2.85, 220, 0, 0),
-     new MySample(53.62916219, -2.729758262, 416.42, -2.96, 220, 0, 0),
-     new MySample(53.62916862, -2.729753268, 417.32, -2.77, 219, 0, 0),
-     new MySample(53.6291457, -2.7297751, 420.84, -2.51, 217, 0, 0),
-     new MySample(53.62915072, -2.72977228, 421.48, -2.23, 216, 0, 0),
-     new MySample(53.62915091, -2.729771876, 421.53, -1.80, 250, 0, 0),
-     new MySample(53.6291614, -2.7298013, 425, -1.32, 247, 0, 0),
-     new MySample(53.62916931, -2.729795148, 426.11, -2.20, 253, 0, 0),
-     new MySample(53.62917659, -2.729793373, 426.94, -3, 258, 0, 0),
-     new MySample(53.6291554, -2.729822, 430.90, -1.45, 247, 0, 0),
-     new MySample(53.62916301, -2.729816943, 431.92, 0, 237, 0, 0),
-     new MySample(53.62916421, -2.729812399, 432.44, -0.49, 240, 0, 0),
-     new MySample(53.6291538, -2.7298224, 434.04, -0.60, 241, 0, 0),
-     new MySample(53.62915724, -2.729814899, 434.96, -0.79, 242, -0.20, 2),
-     new MySample(53.62916507, -2.729811525, 435.91, -1.63, 248, -0.21, 5),
-     new MySample(53.6291532, -2.729823, 437.74, -1.08, 244, -0.48, 14),
-     new MySample(53.62915765, -2.729820792, 438.29, -1.09, 244, -0.21, 4),
-     new MySample(53.62916308, -2.729815621, 439.13, -0.86, 243, 0, 0),
-     new MySample(53.629143, -2.7298335, 442.11, -0.88, 243, 0, 0),
-     new MySample(53.62914745, -2.729830917, 442.69, -0.57, 241, 0, 0),
-     new MySample(53.629155, -2.729828846, 443.56, 0, 237, 0, 0),
-     new MySample(53.6291099, -2.7299329, 456.16, 0, 237, 0, 0),
-     new MySample(53.62910999, -2.7299283, 456.67, 0, 237, 0, 0),
-     new MySample(53.62911199, -2.72992653, 456.97, 0, 237, 0, 0),
-     new MySample(53.629088, -2.7299398, 460.01, -0.33, 239, 0, 0),
-     new MySample(53.62909283, -2.729937915, 460.59, 0, 237, 0, 0),
-     new MySample(53.62909753, -2.729936368, 461.14, -0.03, 237, 0, 0),
-     new MySample(53.6290671, -2.7299915, 468.13, 0, 237, 0, 0),
-     new MySample(53.62907396, -2.729990552, 468.90, -0.01, 237, 0, 0),
-     new MySample(53.62907883, -2.729985228, 469.71, 0, 0, 0, 0),
-     new MySample(53.6290752, -2.7300109, 472.59, 0, 0, 0, 0),
-     new MySample(53.62907592, -2.730002563, 473.52, 0, 0, 0, 0),
-     new MySample(53.62908246, -2.730002362, 474.24, 0, 0, 0, 0),
-     new MySample(53.6290684, -2.7300887, 483.96, 0, 0, 0, 0),
-     new MySample(53.62906946, -2.730079374, 485.01, 0, 0, 0, 0),
-     new MySample(53.62907152, -2.730079327, 485.23, 0, 0, 0, 0),
-     new MySample(53.6290542, -2.7301694, 495.43, 0, 0, 0, 0),
-     new MySample(53.62905586, -2.730164709, 495.98, 0, 0, 0, 0),
-     new MySample(53.6290611, -2.730155785, 497.13, 0, 0, 0, 0),
-     new MySample(53.6290532, -2.730173, 499.23, 0, 0, 0, 0),
-     new MySample(53.62905793, -2.730164892, 500.28, -0.07, 255, 0, 0),
-     new MySample(53.62906294, -2.730158498, 501.18, -0.17, 254, 0, 0),
-     new MySample(53.6290779, -2.7302034, 506.44, -0.57, 251, 0, 0),
-     new MySample(53.62908093, -2.730201654, 506.83, -0.96, 249, 0, 0),
-     new MySample(53.62908724, -2.73020156, 507.53, -0.97, 249, 0, 0),
-     new MySample(53.6290974, -2.7303208, 520.82, -1.42, 246, 0, 0),
-     new MySample(53.62910019, -2.730319035, 521.19, -1.28, 246, 0, 0),
-     new MySample(53.62910088, -2.730310691, 522.12, -1.01, 248, 0, 0),
-     new MySample(53.6290963, -2.7303226, 523.54, -0.74, 250, 0, 0),
-     new MySample(53.6291021, -2.730314036, 524.69, -0.39, 253, 0, 0),
-     new MySample(53.62911033, -2.730307008, 525.89, -0.54, 252, 0, 0),
-     new MySample(53.6290954, -2.7303239, 528.40, -0.50, 252, 0, 0),
-     new MySample(53.62910291, -2.730314996, 529.69, -0.55, 251, 0, 0),
-     new MySample(53.62910451, -2.730314519, 529.87, -0.99, 248, 0, 0),
-     new MySample(53.6290949, -2.7303247, 531.43, -0.90, 249, -0.34, 6),
-     new MySample(53.62909678, -2.730316401, 532.38, -1.21, 247, -0.11, 8),
-     new MySample(53.62910151, -2.730310715, 533.20, -1.47, 245, -0.36, 10),
-     new MySample(53.6290944, -2.7303253, 535, -2.14, 241, 0, 0),
-     new MySample(53.62909927, -2.730322872, 535.60, -2.14, 241, 0, 0),
-     new MySample(53.62910074, -2.730320026, 535.96, -2.62, 237, 0, 0),
-     new MySample(53.629094, -2.7303255, 536.92, -2.54, 238, 0, 0),
-     new MySample(53.62909979, -2.730319716, 537.83, -3.12, 234, 0, 0),
-     new MySample(53.62910375, -2.73031688, 538.38, -2.91, 235, 0, 0),
-     new MySample(53.6290933, -2.730325, 539.85, -3.17, 234, 0, 0),
-     new MySample(53.62910322, -2.730320802, 541.04, -3.21, 233, 0, 0),
-     new MySample(53.62911004, -2.730316653, 541.93, -3.20, 234, 0, 0),
-     new MySample(53.6290887, -2.7303069, 544.54, -3.02, 235, 0, 0),
-     new MySample(53.62909483, -2.730301405, 545.45, -2.98, 235, 0, 0),
-     new MySample(53.62909539, -2.730293918, 546.29, -3.34, 233, 0, 0),
-     new MySample(53.6290594, -2.7302995, 550.33, -3.45, 232, 0, 0),
-     new MySample(53.62906018, -2.730290411, 551.35, -3.63, 231, 0, 0),
-     new MySample(53.62906713, -2.730284191, 552.38, -3.58, 231, -0.55, 2),
-     new MySample(53.6290457, -2.7302696, 555.26, -3.61, 231, -0.65, 5),
-     new MySample(53.62904821, -2.730268562, 555.57, -3.60, 231, -0.55, 13),
-     new MySample(53.62905817, -2.730263751, 556.79, -3.60, 231, 0, 0),
-     new MySample(53.6290454, -2.7302679, 558.29, -3.62, 231, 0, 0),
-     new MySample(53.62904853, -2.73026209, 559.02, -3.88, 229, 0, 0),
-     new MySample(53.62905632, -2.730256757, 560.07, -3.81, 230, 0, 0),
-     new MySample(53.6290444, -2.7302686, 561.93, -3.97, 229, 0, 0),
-     new MySample(53.62905079, -2.730258821, 563.23, -4.09, 228, 0, 0),
-     new MySample(53.62905688, -2.730254491, 564.06, -4.15, 227, 0, 0),
-     new MySample(53.629044, -2.7302681, 566.14, -4.35, 226, 0, 0),
-     new MySample(53.62904406, -2.730263715, 566.63, -4.51, 225, 0, 0),
-     new MySample(53.62905108, -2.730255383, 567.84, -4.71, 224, 0, 0),
-     new MySample(53.6290436, -2.7302682, 569.49, -4.77, 224, 0, 0),
-     new MySample(53.62905018, -2.73025944, 570.71, -4.91, 223, 0, 0),
-     new MySample(53.6290568, -2.730252811, 571.75, -4.79, 223, 0, 0),
-     new MySample(53.629043, -2.7302681, 574.04, -4.57, 225, 0, 0),
-     new MySample(53.62904707, -2.73026544, 574.58, -4.62, 224, 0, 0),
-     new MySample(53.62904805, -2.730261335, 575.05, -4.59, 225, 0, 0),
-     new MySample(53.6290417, -2.7302688, 576.14, -4.64, 224, 0, 0),
-     new MySample(53.6290444, -2.730268267, 576.44, -4.72, 224, -2.04, 13),
-     new MySample(53.62904648, -2.730262939, 577.08, -4.93, 223, -2.15, 2),
-     new MySample(53.6290407, -2.7302694, 578.04, -4.89, 223, -2.11, 5),
-     new MySample(53.62904165, -2.730262661, 578.80, -4.90, 223, 0, 0),
-     new MySample(53.62904743, -2.730259266, 579.54, -4.90, 223, 0, 0),
-     new MySample(53.6290397, -2.7302706, 581.07, -4.98, 222, 0, 0),
-     new MySample(53.62904224, -2.730270566, 581.35, -5.09, 222, 0, 0),
-     new MySample(53.62905001, -2.730266957, 582.30, -5.20, 221, 0, 0),
-     new MySample(53.6290386, -2.7302724, 583.70, -5.26, 220, 0, 0),
-     new MySample(53.62904625, -2.730269681, 584.61, -5.35, 220, 0, 0),
-     new MySample(53.62905418, -2.730267225, 585.53, -5.51, 219, 0, 0),
-     new MySample(53.6290374, -2.7302739, 587.54, -5.50, 219, 0, 0),
-     new MySample(53.62903884, -2.730267754, 588.24, -5.50, 219, 0, 0),
-     new MySample(53.62903895, -2.730260733, 589.02, -5.59, 218, 0, 0),
-     new MySample(53.6290365, -2.730275, 590.63, -5.78, 217, 0, 0),
-     new MySample(53.62904501, -2.730265396, 592.05, -5.82, 217, 0, 0),
-     new MySample(53.62904723, -2.730256816, 593.04, -5.79, 217, 0, 0),
-     new MySample(53.6290224, -2.7303122, 599.78, -5.81, 217, 0, 0),
-     new MySample(53.62902717, -2.730308127, 600.48, -5.84, 217, 0, 0),
-     new MySample(53.6290282, -2.730301293, 601.25, -5.95, 216, 0, 0),
-     new MySample(53.6290133, -2.7302944, 603.07, -5.94, 216, 0, 0),
-     new MySample(53.62902041, -2.730288606, 604.09, -6.01, 216, 0, 0),
-     new MySample(53.62902739, -2.730280624, 605.27, -6, 216, 0, 0),
-     new MySample(53.6290078, -2.7303058, 608.81, -6, 216, 0, 0),
-     new MySample(53.62901434, -2.730298644, 609.89, -6, 216, 0, 0),
-     new MySample(53.62902162, -2.730297927, 610.70, -6, 216, 0, 0),
-     new MySample(53.6290077, -2.7303066, 612.52, -6, 216, -2.74, 6),
-     new MySample(53.62901097, -2.730302579, 613.10, -6, 216, -2.73, 4),
-     new MySample(53.62902038, -2.730293518, 614.55, -6, 216, 0, 0),
-     new MySample(53.6290075, -2.7303065, 616.58, -6.08, 216, 0, 0),
-     new MySample(53.62900771, -2.730297227, 617.61, -6.11, 215, 0, 0),
-     new MySample(53.62901084, -2.730287267, 618.77, -6.10, 215, 0, 0),
-     new MySample(53.6290074, -2.7303067, 620.96, -6.10, 215, 0, 0),
-     new MySample(53.62901461, -2.730304582, 621.80, -6.10, 215, 0, 0),
-     new MySample(53.62902084, -2.730298041, 622.80, -6.10, 215, 0, 0),
-     new MySample(53.629008, -2.7303144, 625.11, -6.17, 215, 0, 0),
-     new MySample(53.62901789, -2.730312947, 626.22, -6.22, 215, -2.22, 9),
-     new MySample(53.62902623, -2.730307912, 627.31, -6.19, 215, -1.78, 12),
-     new MySample(53.6290123, -2.7302716, 631.63, -6.21, 215, -1.88, 9),
-     new MySample(53.62901775, -2.730262095, 632.84, -6.31, 214, 0, 0),
-     new MySample(53.62902507, -2.730257588, 633.80, -6.40, 214, 0, 0),
-     new MySample(53.6290119, -2.7302726, 636.02, -6.62, 212, 0, 0),
-     new MySample(53.62901466, -2.730263772, 637.05, -7.26, 209, 0, 0),
-     new MySample(53.6290197, -2.730260041, 637.74, -7.10, 209, 0, 0),
-     new MySample(53.6290108, -2.7302717, 639.37, -7.10, 209, 0, 0),
-     new MySample(53.62901641, -2.730269927, 640.03, -7.15, 209, 0, 0),
-     new MySample(53.62901896, -2.730261094, 641.05, -7.24, 209, 0, 0),
-     new MySample(53.6290101, -2.7302712, 642.54, -7.18, 209, 0, 0),
-     new MySample(53.62901616, -2.730264634, 643.53, -7.20, 209, 0, 0),
-     new MySample(53.62901632, -2.730256002, 644.49, -7.20, 209, 0, 0),
-     new MySample(53.6290096, -2.730271, 646.32, -7.29, 208, 0, 0),
-     new MySample(53.62901915, -2.73026275, 647.72, -7.30, 208, 0, 0),
-     new MySample(53.62902356, -2.73026073, 648.26, -7.30, 208, 0, 0),
-     new MySample(53.6290101, -2.7302683, 649.98, -7.30, 208, 0, 0),
-     new MySample(53.62901459, -2.73026238, 650.80, -7.30, 208, 0, 0),
-     new MySample(53.62901673, -2.730259196, 651.23, -7.30, 208, 0, 0),
-     new MySample(53.6290093, -2.7302545, 652.21, -7.38, 208, 0, 0),
-     new MySample(53.62901638, -2.730244572, 653.56, -7.42, 208, 0, 0),
-     new MySample(53.6290182, -2.730238627, 654.25, -7.38, 208, 0, 0),
-     new MySample(53.6289913, -2.7302111, 658.53, -7.41, 208, 0, 0),
-     new MySample(53.62899755, -2.730207093, 659.35, -7.39, 208, 0, 0),
-     new MySample(53.62900119, -2.73019896, 660.34, -7.40, 208, 0, 0),
-     new MySample(53.6289904, -2.7302095, 662.02, -7.40, 208, 0, 0),
-     new MySample(53.62899499, -2.730201853, 663.01, -7.40, 208, 0, 0),
-     new MySample(53.62899763, -2.730201328, 663.31, -7.42, 208, -6.36, 7),
-     new MySample(53.6289892, -2.730207, 664.44, -7.51, 207, -5.97, 8),
-     new MySample(53.62899784, -2.730203521, 665.47, -7.50, 207, 0, 0),
-     new MySample(53.62900183, -2.730200967, 666, -7.50, 207, 0, 0),
-     new MySample(53.6289883, -2.7302058, 667.59, -7.50, 207, 0, 0),
-     new MySample(53.6289942, -2.730202905, 668.32, -7.50, 207, 0, 0),
-     new MySample(53.62899937, -2.730194079, 669.46, -7.50, 207, 0, 0),
-     new MySample(53.6289874, -2.7302046, 671.23, -7.70, 206, 0, 0),
-     new MySample(53.6289939, -2.730203909, 671.96, -8, 204, 0, 0),
-     new MySample(53.62900179, -2.730197646, 673.08, -8.50, 201, -5.76, 3),
-     new MySample(53.6289683, -2.7301812, 677.22, -9.50, 196, -5.37, 5),
-     new MySample(53.62897305, -2.730175067, 678.09, -10, 193, -4.19, 7),
-     new MySample(53.62897436, -2.730173476, 678.31, -10.94, 188, -5.71, 9),
-     new MySample(53.6289773, -2.730141, 681.94, -11, 188, -4.76, 14),
-     new MySample(53.62898659, -2.730137485, 683.04, -12, 183, -4.06, 15),
-     new MySample(53.62899589, -2.730134623, 684.12, -13, 177, 0, 0),
-     new MySample(53.6289782, -2.7301398, 686.17, -14, 173, 0, 0),
-     new MySample(53.62897929, -2.730139791, 686.29, -18.56, 151, 0, 0),
-     new MySample(53.62898579, -2.73013307, 687.33, -22.05, 141, 0, 0),
-     new MySample(53.6289786, -2.730138, 688.30, -22.34, 140, 0, 0),
-     new MySample(53.62898377, -2.730135571, 688.93, -22.29, 140, 0, 0),
-     new MySample(53.62898573, -2.730130415, 689.55, -22.30, 139, 0, 0),
-     new MySample(53.6289769, -2.7299687, 707.54, -23.30, 139, 0, 0),
-     new MySample(53.6289825, -2.729961347, 708.57, -23.28, 138, 0, 0),
-     new MySample(53.62898689, -2.729959638, 709.09, -23.89, 138, 0, 0),
-     new MySample(53.6289774, -2.7299806, 711.65, -24.09, 138, 0, 0),
-     new MySample(53.62898027, -2.729979585, 711.99, -24, 137, 0, 0),
-     new MySample(53.6289808, -2.729972365, 712.79, -24, 137, 0, 0),
-     new MySample(53.6290195, -2.7299102, 720.93, -24, 136, -9.46, 8),
-     new MySample(53.62902928, -2.72990387, 722.22, -24, 136, -9.31, 9),
-     new MySample(53.62903528, -2.729894336, 723.47, -24, 135, 0, 0),
-     new MySample(53.6290602, -2.7298835, 726.49, -23.87, 134, 0, 0),
-     new MySample(53.62906488, -2.729879011, 727.21, -23.54, 134, 0, 0),
-     new MySample(53.62907364, -2.729869137, 728.68, -23.81, 133, 0, 0),
-     new MySample(53.6290614, -2.729882, 730.65, -23.65, 132, 0, 0),
-     new MySample(53.62906219, -2.729874356, 731.50, -23.71, 132, 0, 0),
-     new MySample(53.62906878, -2.729873342, 732.25, -23.53, 132, 0, 0),
-     new MySample(53.6290613, -2.729881, 733.43, -23.33, 131, 0, 0),
-     new MySample(53.62906768, -2.729873583, 734.52, -23.41, 131, 0, 0),
-     new MySample(53.62907123, -2.729864779, 735.58, -23.40, 131, 0, 0),
-     new MySample(53.6290615, -2.7298803, 737.61, -23.40, 130, 0, 0),
-     new MySample(53.62906503, -2.72987914, 738.02, -23.40, 130, 0, 0),
-     new MySample(53.62906994, -2.729869989, 739.18, -23.12, 129, 0, 0),
-     new MySample(53.6290614, -2.7298796, 740.61, -23.09, 129, 0, 0),
-     new MySample(53.62906385, -2.729875376, 741.15, -23.10, 129, 0, 0),
-     new MySample(53.62907042, -2.72986826, 742.23, -23.10, 128, 0, 0),
-     new MySample(53.6290617, -2.7298791, 743.77, -22.88, 127, -8.49, 10),
-     new MySample(53.62906592, -2.729877259, 744.28, -22.77, 127, -8.15, 15),
-     new MySample(53.62906892, -2.729873813, 744.79, -22.81, 126, -4.14, 15),
-     new MySample(53.6290615, -2.7298781, 745.74, -22.80, 125, -6.30, 10),
-     new MySample(53.62906886, -2.729869451, 747.01, -22.80, 125, 0, 0),
-     new MySample(53.62907594, -2.729862901, 748.08, -22.55, 124, 0, 0),
-     new MySample(53.6290613, -2.7298773, 750.36, -22.48, 124, 0, 0),
-     new MySample(53.62906396, -2.72986992, 751.23, -22.51, 123, 0, 0),
-     new MySample(53.62907031, -2.729865213, 752.11, -22.49, 123, 0, 0),
-     new MySample(53.6290603, -2.7298764, 753.78, -22.34, 123, 0, 0),
-     new MySample(53.62906652, -2.729875627, 754.47, -22.12, 122, 0, 0),
-     new MySample(53.62906926, -2.729871497, 755.02, -22.25, 122, 0, 0),
-     new MySample(53.629059, -2.7298749, 756.22, -22.04, 121, -12.94, 12),
-     new MySample(53.62906182, -2.7298725, 756.64, -21.80, 121, -12.62, 15),
-     new MySample(53.62906918, -2.729869135, 757.54, -21.96, 121, -16.54, 12),
-     new MySample(53.6290579, -2.7298733, 758.87, -21.86, 120, 0, 0),
-     new MySample(53.62905859, -2.729870557, 759.19, -21.93, 120, 0, 0),
-     new MySample(53.62906561, -2.729867038, 760.06, -21.83, 119, 0, 0),
-     new MySample(53.6290566, -2.7298717, 761.19, -21.48, 119, 0, 0),
-     new MySample(53.62906022, -2.729865082, 762.02, -21.61, 118, 0, 0),
-     new MySample(53.62906747, -2.729858298, 763.13, -21.60, 118, 0, 0),
-     new MySample(53.6290551, -2.7298704, 765.05, -21.60, 117, -20.40, 6),
-     new MySample(53.62906358, -2.729863561, 766.26, -21.30, 117, -20.14, 15),
-     new MySample(53.62906848, -2.72986076, 766.89, -21.30, 117, 0, 0),
-     new MySample(53.6290537, -2.7298693, 768.78, -21.30, 117, 0, 0),
-     new MySample(53.62905843, -2.729862453, 769.71, -21.30, 116, 0, 0),
-     new MySample(53.62906242, -2.729858854, 770.31, -21.30, 116, 0, 0),
-     new MySample(53.6290521, -2.7298669, 771.76, -21.30, 115, 0, 0),
-     new MySample(53.62905917, -2.729864889, 772.58, -21.30, 115, 0, 0),
-     new MySample(53.62905987, -2.729861905, 772.92, -21.29, 114, 0, 0),
-     new MySample(53.6290508, -2.7298662, 774.03, -20.84, 114, 0, 0),
-     new MySample(53.62905508, -2.729860977, 774.78, -21.14, 113, 0, 0),
-     new MySample(53.62906166, -2.729855408, 775.74, -20.98, 113, 0, 0),
-     new MySample(53.6289957, -2.7297904, 786.03, -21.01, 113, 0, 0),
-     new MySample(53.62900099, -2.72978288, 787.05, -20.99, 112, 0, 0),
-     new MySample(53.62900548, -2.729778922, 787.72, -21, 112, 0, 0),
-     new MySample(53.6289938, -2.7297892, 789.45, -21, 111, 0, 0),
-     new MySample(53.62900186, -2.72978066, 790.75, -21, 111, 0, 0),
-     new MySample(53.62901022, -2.729770704, 792.20, -21, 111, 0, 0),
-     new MySample(53.6289916, -2.7297883, 795.04, -21.12, 110, 0, 0),
-     new MySample(53.62899986, -2.729783495, 796.10, -21.37, 110, 0, 0),
-     new MySample(53.6290059, -2.729776309, 797.15, -21.28, 109, 0, 0),
-     new MySample(53.6289893, -2.7297867, 799.32, -21.32, 109, 0, 0),
-     new MySample(53.62899168, -2.729780632, 800.05, -21.30, 108, 0, 0),
-     new MySample(53.62899615, -2.729772675, 801.06, -21.30, 108, 0, 0),
-     new MySample(53.6289873, -2.7297849, 802.74, -21.30, 107, 0, 0),
-     new MySample(53.62899156, -2.729783668, 803.23, -21.31, 107, 0, 0),
-     new MySample(53.62899929, -2.729776808, 804.38, -21.62, 106, 0, 0),
-     new MySample(53.6289167, -2.7297238, 815.28, -21.59, 106, 0, 0),
-     new MySample(53.62892179, -2.729718045, 816.14, -21.60, 105, 0, 0),
-     new MySample(53.62892304, -2.729710883, 816.94, -21.44, 105, 0, 0),
-     new MySample(53.6288793, -2.7296731, 823.37, -21.25, 104, 0, 0),
-     new MySample(53.62888346, -2.729671267, 823.87, -21.32, 103, 0, 0),
-     new MySample(53.62888392, -2.72966746, 824.30, -21.14, 103, 0, 0),
-     new MySample(53.6288789, -2.7296735, 825.17, -20.99, 102, 0, 0),
-     new MySample(53.62888073, -2.729672329, 825.41, -20.72, 101, 0, 0),
-     new MySample(53.62888839, -2.729663741, 826.69, -20.69, 101, 0, 0),
-     new MySample(53.6288782, -2.7296727, 828.20, -20.70, 100, 0, 0),
-     new MySample(53.62888505, -2.729665015, 829.34, -20.70, 100, -7.89, 8),
-     new MySample(53.62889392, -2.729656131, 830.74, -20.70, 99, -7.58, 4),
-     new MySample(53.6288777, -2.7296716, 833.23, -20.70, 99, -6.72, 10),
-     new MySample(53.62888477, -2.729667503, 834.13, -20.49, 98, 0, 0),
-     new MySample(53.62888635, -2.729666248, 834.36, -20.86, 98, 0, 0),
-     new MySample(53.6288459, -2.729653, 839.09, -22.05, 97, 0, 0),
-     new MySample(53.62885242, -2.729650946, 839.85, -21.39, 97, 0, 0),
-     new MySample(53.62885729, -2.729645821, 840.63, -22.09, 96, 0, 0),
-     new MySample(53.6288437, -2.72965, 842.21, -21.78, 96, 0, 0),
-     new MySample(53.6288458, -2.729649864, 842.45, -22, 96, 0, 0),
-     new MySample(53.62885179, -2.729640022, 843.73, -21.84, 95, 0, 0),
-     new MySample(53.6288432, -2.7296496, 845.15, -21.91, 95, 0, 0),
-     new MySample(53.62885309, -2.729641663, 846.56, -21.89, 94, 0, 0),
-     new MySample(53.62885407, -2.729641256, 846.68, -21.90, 93, 0, 0),
-     new MySample(53.6288432, -2.7296488, 848.15, -21.90, 92, -18.49, 15),
-     new MySample(53.62884762, -2.729641578, 849.09, -21.90, 92, -18.29, 15),
-     new MySample(53.6288505, -2.729638158, 849.59, -21.90, 91, -18.50, 15),
-     new MySample(53.6288432, -2.7296489, 851.03, -21.90, 91, -18.53, 15),
-     new MySample(53.62884775, -2.72964576, 851.65, -21.90, 90, 0, 0),
-     new MySample(53.6288551, -2.72964089, 852.63, -21.90, 90, 0, 0),
-     new MySample(53.6288435, -2.729649, 854.20, -21.90, 90, 0, 0),
-     new MySample(53.62884915, -2.729639583, 855.42, -21.90, 89, 0, 0),
-     new MySample(53.62885417, -2.729633815, 856.27, -21.90, 89, 0, 0),
-     new MySample(53.6288586, -2.7296528, 858.44, -21.90, 89, 0, 0),
-     new MySample(53.62885998, -2.729651282, 858.66, -21.90, 88, 0, 0),
-     new MySample(53.62886894, -2.7296414, 860.15, -21.90, 87, 0, 0),
-     new MySample(53.6288564, -2.7296453, 861.61, -21.90, 87, 0, 0),
-     new MySample(53.62886395, -2.729644416, 862.45, -21.90, 86, 0, 0),
-     new MySample(53.62887228, -2.729644139, 863.38, -21.90, 85, 0, 0),
-     new MySample(53.6288521, -2.7296345, 865.86, -21.90, 84, 0, 0),
-     new MySample(53.62885927, -2.729632987, 866.68, -21.90, 84, 0, 0),
-     new MySample(53.62886113, -2.729625216, 867.56, -21.90, 84, 0, 0),
-     new MySample(53.6288514, -2.7296344, 869.05, -21.90, 83, 0, 0),
-     new MySample(53.62885964, -2.729627002, 870.28, -21.90, 83, 0, 0),
-     new MySample(53.62886953, -2.729622033, 871.51, -21.90, 82, 0, 0),
-     new MySample(53.6288506, -2.7296331, 873.95, -21.90, 82, 0, 0),
-     new MySample(53.62885613, -2.729627476, 874.82, -21.90, 82, 0, 0),
-     new MySample(53.62885616, -2.729623364, 875.28, -21.90, 81, 0, 0),
-     new MySample(53.6288377, -2.7295466, 884.05, -21.90, 81, 0, 0),
-     new MySample(53.62884078, -2.729541295, 884.73, -21.90, 80, 0, 0),
-     new MySample(53.62885032, -2.72953569, 885.96, -21.75, 80, 0, 0),
-     new MySample(53.628822, -2.7294945, 891.52, -21.48, 79, 0, 0),
-     new MySample(53.62882908, -2.729487558, 892.62, -21.68, 78, 0, 0),
-     new MySample(53.62883578, -2.729480752, 893.68, -21.59, 78, -2.24, 8),
-     new MySample(53.6288091, -2.7294244, 900.61, -21.61, 78, 0, 0),
-     new MySample(53.62881651, -2.729424107, 901.43, -21.30, 77, 0, 0),
-     new MySample(53.6288216, -2.72941668, 902.43, -21.30, 76, -3.26, 13),
-     new MySample(53.6287998, -2.7293591, 909.27, -21.30, 75, 0, 0),
-     new MySample(53.62880189, -2.729357722, 909.55, -21.30, 75, 0, 0),
-     new MySample(53.62880848, -2.729349003, 910.77, -21.30, 74, 0, 0),
-     new MySample(53.6287769, -2.7293121, 916.16, -21.03, 73, -16.55, 12),
-     new MySample(53.62877755, -2.729311239, 916.28, -20.97, 73, -16.18, 13),
-     new MySample(53.62878139, -2.729302727, 917.32, -21.01, 72, -16.56, 14),
-     new MySample(53.6287773, -2.7293126, 918.51, -21, 71, 0, 0),
-     new MySample(53.62877887, -2.729305878, 919.27, -20.71, 71, 0, 0),
-     new MySample(53.62878689, -2.729302739, 920.23, -20.69, 70, 0, 0),
-     new MySample(53.6287778, -2.7293132, 921.77, -20.71, 70, 0, 0),
-     new MySample(53.62878164, -2.729309325, 922.38, -20.57, 69, 0, 0),
-     new MySample(53.62878728, -2.729309057, 923, -20.35, 69, 0, 0),
-     new MySample(53.6287852, -2.7293194, 924.18, -20.44, 68, 0, 0),
-     new MySample(53.6287901, -2.729317233, 924.77, -20.38, 68, 0, 0),
-     new MySample(53.62879652, -2.729313432, 925.60, -20.40, 67, -9.78, 15),
-     new MySample(53.6288274, -2.7293371, 929.92, -20.40, 67, -9.53, 12),
-     new MySample(53.62883261, -2.729335011, 930.55, -20.40, 66, -9.46, 10),
-     new MySample(53.62883788, -2.729331952, 931.23, -20.40, 66, 0, 0),
-     new MySample(53.6288217, -2.7293332, 933.03, -20.20, 65, 0, 0),
-     new MySample(53.62882679, -2.729328782, 933.78, -20.07, 64, -12.45, 8),
-     new MySample(53.62882981, -2.729325027, 934.31, -20.12, 64, -12.21, 4),
-     new MySample(53.6288215, -2.7293365, 935.89, -20.09, 63, 0, 0),
-     new MySample(53.62882229, -2.729330486, 936.56, -20.10, 63, 0, 0),
-     new MySample(53.62882646, -2.729323001, 937.51, -20.10, 62, 0, 0),
-     new MySample(53.6288215, -2.7293398, 939.46, -20.10, 62, 0, 0),
-     new MySample(53.62882622, -2.729330755, 940.59, -20.10, 61, 0, 0),
-     new MySample(53.62883155, -2.729320955, 941.83, -20.10, 61, 0, 0),
-     new MySample(53.6288222, -2.7293422, 944.41, -20.10, 61, 0, 0),
-     new MySample(53.62883197, -2.729337182, 945.63, -20.10, 60, 0, 0),
-     new MySample(53.62883625, -2.729332864, 946.31, -20.10, 60, 0, 0),
-     new MySample(53.6288233, -2.7293448, 948.27, -20.10, 60, 0, 0),
-     new MySample(53.62883188, -2.729336623, 949.58, -20.10, 60, 0, 0),
-     new MySample(53.6288401, -2.729334828, 950.52, -20.10, 59, 0, 0),
-     new MySample(53.6288785, -2.7293874, 957.75, -20.10, 58, 0, 0),
-     new MySample(53.62888499, -2.729382357, 958.66, -20.10, 58, 0, 0),
-     new MySample(53.62889428, -2.729373763, 960.07, -20.10, 57, 0, 0),
-     new MySample(53.62888, -2.7293878, 962.29, -20.10, 56, 0, 0),
-     new MySample(53.62888128, -2.729379592, 963.22, -20.10, 56, 0, 0),
-     new MySample(53.62888842, -2.729371045, 964.45, -20.10, 55, 0, 0),
-     new MySample(53.6288816, -2.7293881, 966.50, -20.10, 55, 0, 0),
-     new MySample(53.62888537, -2.729385285, 967.02, -20.10, 55, 0, 0),
-     new MySample(53.62888621, -2.7293794, 967.68, -20.10, 54, 0, 0),
-     new MySample(53.628883, -2.7293887, 968.77, -20.10, 54, 0, 0),
-     new MySample(53.62888355, -2.729385087, 969.18, -20.10, 53, 0, 0),
-     new MySample(53.62889098, -2.729380506, 970.15, -20.10, 53, 0, 0),
-     new MySample(53.6288845, -2.7293891, 971.34, -20.10, 52, 0, 0),
-     new MySample(53.62888911, -2.729380161, 972.46, -20.18, 52, 0, 0),
-     new MySample(53.62889908, -2.729378918, 973.58, -20.55, 51, 0, 0),
-     new MySample(53.6288858, -2.7293891, 975.44, -20.31, 50, 0, 0),
-     new MySample(53.6288955, -2.729383562, 976.68, -20.43, 50, 0, 0),
-     new MySample(53.62890154, -2.729379046, 977.52, -20.38, 50, 0, 0),
-     new MySample(53.6288874, -2.7293898, 979.49, -20.55, 49, 0, 0),
-     new MySample(53.62888924, -2.729385048, 980.06, -20.81, 49, 0, 0),
-     new MySample(53.62889567, -2.729381213, 980.89, -20.60, 48, -18.56, 2),
-     new MySample(53.628889, -2.7293909, 982.19, -20.73, 47, -18.11, 4),
-     new MySample(53.62889393, -2.729384635, 983.08, -20.70, 46, -18.46, 6),
-     new MySample(53.62889872, -2.7293803, 983.80, -20.70, 46, 0, 0),
-     new MySample(53.6290599, -2.7294886, 1005.37, -20.96, 45, 0, 0),
-     new MySample(53.6290676, -2.729488272, 1006.23, -21.01, 45, 0, 0),
-     new MySample(53.62906876, -2.729485507, 1006.56, -20.99, 45, 0, 0),
-     new MySample(53.6290715, -2.7295292, 1011.43, -21.01, 44, 0, 0),
-     new MySample(53.62907748, -2.729525981, 1012.18, -20.99, 44, 0, 0),
-     new MySample(53.62908388, -2.729524712, 1012.91, -21.05, 43, -15.90, 8),
-     new MySample(53.6290847, -2.7295698, 1017.92, -21.45, 42, -15.25, 9),
-     new MySample(53.62909282, -2.729566298, 1018.90, -21.20, 41, -14.59, 10),
-     new MySample(53.62910233, -2.729564185, 1019.98, -21.37, 41, 0, 0),
-     new MySample(53.6290999, -2.7296197, 1026.16, -21.33, 41, 0, 0),
-     new MySample(53.62910057, -2.72961108, 1027.12, -21.68, 40, 0, 0),
-     new MySample(53.62910809, -2.729604482, 1028.23, -21.56, 40, 0, 0),
-     new MySample(53.6291164, -2.7296818, 1036.87, -21.62, 39, 0, 0),
-     new MySample(53.62912497, -2.729679486, 1037.86, -21.87, 38, 0, 0),
-     new MySample(53.62913046, -2.729673817, 1038.73, -21.93, 38, 0, 0),
-     new MySample(53.6291212, -2.7296963, 1041.43, -21.89, 38, 0, 0),
-     new MySample(53.62912815, -2.729692874, 1042.30, -22.08, 38, 0, 0),
-     new MySample(53.62913301, -2.729684786, 1043.34, -22.27, 37, 0, 0),
-     new MySample(53.6291214, -2.7296992, 1045.40, -22.15, 36, 0, 0),
-     new MySample(53.62912253, -2.729693459, 1046.05, -22.24, 36, 0, 0),
-     new MySample(53.62913221, -2.729689067, 1047.23, -22.44, 36, 0, 0),
-     new MySample(53.6291529, -2.7297214, 1051.50, -22.53, 36, 0, 0),
-     new MySample(53.62916097, -2.729714692, 1052.66, -22.48, 35, 0, 0),
-     new MySample(53.62916467, -2.729713348, 1053.10, -22.50, 34, 0, 0),
-     new MySample(53.6291589, -2.7297372, 1055.83, -22.50, 34, 0, 0),
-     new MySample(53.62916375, -2.729737087, 1056.37, -22.63, 34, 0, 0),
-     new MySample(53.62916983, -2.729734994, 1057.08, -22.95, 33, 0, 0),
-     new MySample(53.6292091, -2.7297338, 1061.45, -22.79, 32, 0, 0),
-     new MySample(53.62921841, -2.729729727, 1062.58, -22.81, 32, -21.45, 6),
-     new MySample(53.62922833, -2.729727904, 1063.70, -22.96, 31, -21.36, 9),
-     new MySample(53.6292082, -2.7296795, 1069.52, -23.18, 30, -21.45, 8),
-     new MySample(53.62921224, -2.729678419, 1069.98, -23.09, 30, 0, 0),
-     new MySample(53.62921769, -2.729671067, 1071, -23.39, 29, 0, 0),
-     new MySample(53.6292633, -2.7296716, 1076.07, -23.41, 28, 0, 0),
-     new MySample(53.62927027, -2.729670327, 1076.86, -23.40, 28, 0, 0),
-     new MySample(53.62928007, -2.729668542, 1077.96, -23.68, 27, 0, 0),
-     new MySample(53.6292759, -2.7295856, 1087.19, -23.72, 26, 0, 0),
-     new MySample(53.62927726, -2.729582069, 1087.61, -23.69, 26, 0, 0),
-     new MySample(53.6292828, -2.729579891, 1088.27, -23.71, 25, 0, 0),
-     new MySample(53.6293078, -2.7295369, 1093.80, -23.70, 25, 0, 0),
-     new MySample(53.62931087, -2.729535254, 1094.19, -23.72, 24, 0, 0),
-     new MySample(53.62931464, -2.729526343, 1095.26, -24.04, 24, 0, 0),
-     new MySample(53.6293028, -2.729497, 1098.78, -23.98, 23, 0, 0),
-     new MySample(53.62930836, -2.729492678, 1099.56, -24.02, 23, 0, 0),
-     new MySample(53.62930902, -2.729492259, 1099.65, -23.99, 22, 0, 0),
-     new MySample(53.6293023, -2.7294963, 1100.52, -24, 22, 0, 0),
-     new MySample(53.62930384, -2.729487798, 1101.48, -24.24, 21, 0, 0),
-     new MySample(53.62930703, -2.729481923, 1102.22, -24.34, 21, 0, 0),
-     new MySample(53.6293024, -2.7294969, 1103.96, -24.29, 20, 0, 0),
-     new MySample(53.62930804, -2.729491664, 1104.82, -24.30, 19, -1.68, 14),
-     new MySample(53.6293141, -2.729490246, 1105.51, -24.30, 18, -1.32, 14),
-     new MySample(53.6293212, -2.7294844, 1106.53, -24.30, 18, 0, 0),
-     new MySample(53.62932532, -2.729478302, 1107.35, -24.30, 18, 0, 0),
-     new MySample(53.62932696, -2.729475695, 1107.69, -24.30, 18, 0, 0),
-     new MySample(53.6293216, -2.7294837, 1108.76, -24.53, 17, 0, 0),
-     new MySample(53.62932787, -2.729477683, 1109.73, -24.64, 17, 0, 0),
-     new MySample(53.6293324, -2.729470734, 1110.65, -24.57, 16, 0, 0),
-     new MySample(53.6293212, -2.7294837, 1112.55, -24.61, 15, 0, 0),
-     new MySample(53.62932816, -2.729478363, 1113.53, -24.60, 15, 0, 0),
-     new MySample(53.62933268, -2.729472852, 1114.32, -24.60, 15, 0, 0),
-     new MySample(53.6293239, -2.7294789, 1115.50, -24.60, 14, -9.48, 12),
-     new MySample(53.62932528, -2.729469024, 1116.61, -24.60, 14, -9.39, 13),
-     new MySample(53.62933093, -2.729467104, 1117.28, -24.60, 14, -9.97, 12),
-     new MySample(53.6293333, -2.729471, 1117.78, -24.60, 13, 0, 0),
-     new MySample(53.62933443, -2.729468185, 1118.12, -24.60, 12, 0, 0),
-     new MySample(53.62933794, -2.729467783, 1118.51, -25, 12, 0, 0),
-     new MySample(53.6292552, -2.7296559, 1141.35, -25.42, 11, 0, 0),
-     new MySample(53.62926069, -2.729649532, 1142.28, -26.06, 10, 0, 0),
-     new MySample(53.62926099, -2.729647682, 1142.49, -26.35, 10, 0, 0),
-     new MySample(53.6292277, -2.7296934, 1148.77, -26.59, 9, 0, 0),
-     new MySample(53.62923052, -2.729689048, 1149.35, -27.18, 9, 0, 0),
-     new MySample(53.62923543, -2.729680629, 1150.43, -27.25, 9, -20.57, 9),
-     new MySample(53.6292212, -2.7297023, 1153.31, -27.59, 9, -20.34, 8),
-     new MySample(53.62922615, -2.729693305, 1154.45, -28.37, 9, 0, 0),
-     new MySample(53.62923167, -2.729690662, 1155.13, -28.62, 8, 0, 0),
-     new MySample(53.6292278, -2.7297398, 1160.61, -29.86, 8, 0, 0),
-     new MySample(53.62922952, -2.729733148, 1161.37, -30.87, 8, 0, 0),
-     new MySample(53.62923259, -2.729726502, 1162.19, -31.18, 7, 0, 0),
-     new MySample(53.6292447, -2.7297633, 1166.49, -31.75, 7, 0, 0),
-     new MySample(53.62924831, -2.729755864, 1167.41, -32.93, 6, 0, 0),
-     new MySample(53.62925592, -2.72975521, 1168.26, -32.53, 6, 0, 0),
-     new MySample(53.6292442, -2.7297636, 1169.86, -32.49, 5, 0, 0),
-     new MySample(53.62925241, -2.729760403, 1170.84, -31.55, 5, 0, 0),
-     new MySample(53.62925554, -2.729752651, 1171.77, -31.03, 4, 0, 0),
-     new MySample(53.6292449, -2.7297904, 1176.12, -31.10, 3, 0, 0),
-     new MySample(53.629244, -2.7297907, 1176.23, -33, 3, 0, 0),
-     new MySample(53.62925478, -2.729783616, 1177.66, -34, 2, 0, 0),
-     new MySample(53.62925833, -2.729780058, 1178.22, -35.57, 2, -11.05, 12),
-     new MySample(53.6292771, -2.7299031, 1192.05, -36.03, 2, -10.96, 14),
-     new MySample(53.62927993, -2.729900056, 1192.51, -35.98, 2, 0, 0),
-     new MySample(53.62928918, -2.729894708, 1193.70, -36, 1, 0, 0)
-    };
-
-    int mStep = 1, mCtr = 0;
-
-    public Sample getSample() {
-        Sample s;
-        /*long t = System.currentTimeMillis();
-        int offset = (int)((t / (1000 * samples[samples.length - 1].time)) % samples.length);
-        s = (mStep > 0) ? samples[offset] : samples[samples.length - offset - 1];
-        if (--mCtr == 0) {
-            mCtr = samples.length;
-            mStep = -mStep;
-        }*/
-        mCtr += mStep;
-        if (mCtr == 0)
-            mStep = 1;
-        else if (mCtr == samples.length - 1)
-            mStep = -1;
-        s = samples[mCtr];
-        return s;
-    }
-
-    public void configure(int sensitivity, int noise, int range) {
-    }
-}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGattCharacteristic;
+
+import com.cdot.ping.simulator.core.AimdRateController;
+import com.cdot.ping.simulator.core.Gauge;
+import com.cdot.ping.simulator.core.MetricsRegistry;
+import com.cdot.ping.simulator.core.StripedCounter;
+
+/**
+ * What we know about a connected device: which characteristics it has subscribed to,
+ * and how, its MTU, its queue of packets waiting to be sent (see BleTransport), and
+ * the rate it seems able to take sonar packets at.
+ * The subscriptions and MTU can be read without locking; the queue is guarded by the
+ * session's lock.
+ */
+class DeviceSession {
+    // Subscriptions, from the client characteristic configuration written by the device
+    static final int UNSUBSCRIBED = 0;
+    static final int NOTIFY = 1;
+    static final int INDICATE = 2;
+
+    // Until the device negotiates a bigger one
+    static final int DEFAULT_MTU = 23;
+    // Slowest rate the rate controller will back off to, Hz
+    private static final double MIN_RATE = 0.5;
+
+    private final BluetoothDevice mDevice;
+    private final String mAddress;
+    private final int[] mSubscriptions;
+    private volatile boolean mSubscribed = false;
+    private volatile int mMtu = DEFAULT_MTU;
+
+    // Queue, one packet per characteristic
+    private final byte[][] mValues;
+    private final int[] mLengths;
+    private final boolean[] mWaiting;
+    private final long[] mOrder; // when queued, relative to the other characteristics
+    private long mNextOrder = 0;
+    boolean mInFlight = false;
+    long mSentAt;
+
+    // Adaptive rate, driven by the deliveries and congestion seen by the queue
+    final AimdRateController mRate;
+    long mNextDue = 0; // System.nanoTime() the next paced packet is due
+
+    final StripedCounter mSent, mCoalesced, mRefused, mFailed, mTimeouts, mTooLarge;
+
+    /**
+     * @param device the connected device
+     * @param characteristics the characteristics that can be notified
+     * @param metrics where to count notifications
+     * @param rate starting rate for the rate controller, Hz
+     * @param maxRate highest rate for the rate controller, Hz
+     */
+    DeviceSession(BluetoothDevice device, BluetoothGattCharacteristic[] characteristics, MetricsRegistry metrics,
+                  double rate, double maxRate) {
+        this(device, device.getAddress(), characteristics.length, metrics, rate, maxRate);
+    }
+
+    /**
+     * @param device the connected device
+     * @param address the device's address
+     * @param n number of characteristics that can be notified
+     * @param metrics where to count notifications
+     * @param rate starting rate for the rate controller, Hz
+     * @param maxRate highest rate for the rate controller, Hz
+     */
+    DeviceSession(BluetoothDevice device, String address, int n, MetricsRegistry metrics, double rate, double maxRate) {
+        mDevice = device;
+        mRate = new AimdRateController(rate, MIN_RATE, maxRate);
+        mAddress = address;
+        mSubscriptions = new int[n];
+        mValues = new byte[n][];
+        mLengths = new int[n];
+        mWaiting = new boolean[n];
+        mOrder = new long[n];
+        for (int i = 0; i < n; i++)
+            mValues[i] = new byte[0];
+
+        mSent = metrics.counter("fishfinder_notifications_sent_total", "Notifications sent", "device", mAddress);
+        mCoalesced = metrics.counter("fishfinder_notifications_coalesced_total",
+                "Packets replaced by a newer one before they could be sent", "device", mAddress);
+        mRefused = metrics.counter("fishfinder_notifications_refused_total",
+                "Notifications the stack refused to send", "device", mAddress);
+        mFailed = metrics.counter("fishfinder_notifications_failed_total",
+                "Notifications onNotificationSent reported as failed", "device", mAddress);
+        mTimeouts = metrics.counter("fishfinder_notifications_timeouts_total",
+                "Notifications onNotificationSent never reported", "device", mAddress);
+        mTooLarge = metrics.counter("fishfinder_notifications_too_large_total",
+                "Packets that didn't fit in the device's MTU", "device", mAddress);
+        metrics.gauge("fishfinder_client_rate_hz", "Sonar rate the rate controller has settled on", new Gauge() {
+            @Override
+            public double get() {
+                return mRate.getRate();
+            }
+        }, "device", mAddress);
+        metrics.gauge("fishfinder_client_ceiling_hz", "Sonar rate at which the device becomes congested", new Gauge() {
+            @Override
+            public double get() {
+                return mRate.getCeiling();
+            }
+        }, "device", mAddress);
+    }
+
+    BluetoothDevice getDevice() {
+        return mDevice;
+    }
+
+    String getAddress() {
+        return mAddress;
+    }
+
+    int getMtu() {
+        return mMtu;
+    }
+
+    void setMtu(int mtu) {
+        mMtu = mtu;
+    }
+
+    int getSubscription(int characteristic) {
+        // Reading mSubscribed first makes the latest subscriptions visible
+        return mSubscribed ? mSubscriptions[characteristic] : UNSUBSCRIBED;
+    }
+
+    synchronized void setSubscription(int characteristic, int subscription) {
+        mSubscriptions[characteristic] = subscription;
+        boolean any = false;
+        for (int s : mSubscriptions)
+            any |= s != UNSUBSCRIBED;
+        // Volatile write publishes the subscriptions to the sending thread
+        mSubscribed = any;
+        if (subscription == UNSUBSCRIBED)
+            mWaiting[characteristic] = false;
+    }
+
+    boolean isSubscribed() {
+        return mSubscribed;
+    }
+
+    /**
+     * Decide whether a paced packet should go to this device, keeping to the rate
+     * controller's rate. Must be called holding the session's lock.
+     * @param now System.nanoTime()
+     */
+    boolean isDue(long now) {
+        if (now < mNextDue)
+            return false;
+        long period = (long) (1e9 / mRate.getRate());
+        mNextDue += period;
+        // Don't try to catch up after falling behind
+        if (mNextDue <= now)
+            mNextDue = now + period;
+        return true;
+    }
+
+    // The methods below must be called holding the session's lock
+
+    /**
+     * Queue a packet, replacing any still waiting on the same characteristic
+     */
+    void offer(int characteristic, byte[] payload, int off, int len, long now) {
+        if (mWaiting[characteristic]) {
+            // The link isn't keeping up
+            mCoalesced.increment();
+            mRate.onCongestion(now);
+        }
+        if (mValues[characteristic].length < len)
+            mValues[characteristic] = new byte[len];
+        System.arraycopy(payload, off, mValues[characteristic], 0, len);
+        mLengths[characteristic] = len;
+        mWaiting[characteristic] = true;
+        mOrder[characteristic] = mNextOrder++;
+    }
+
+    /**
+     * Find the oldest waiting packet. A packet for a characteristic the device has since
+     * unsubscribed from is dropped, rather than blocking those behind it.
+     * @return the characteristic with the oldest waiting packet, -1 if none
+     */
+    int next() {
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < mWaiting.length; i++)
+                if (mWaiting[i] && (next < 0 || mOrder[i] < mOrder[next]))
+                    next = i;
+            if (next < 0 || getSubscription(next) != UNSUBSCRIBED)
+                return next;
+            drop(next);
+        }
+    }
+
+    /**
+     * Remove the waiting packet from the queue without sending it
+     */
+    void drop(int characteristic) {
+        mWaiting[characteristic] = false;
+    }
+
+    int getLength(int characteristic) {
+        return mLengths[characteristic];
+    }
+
+    /**
+     * Remove the waiting packet from the queue
+     * @param into where to copy it, at least getLength() bytes
+     */
+    void take(int characteristic, byte[] into) {
+        System.arraycopy(mValues[characteristic], 0, into, 0, mLengths[characteristic]);
+        mWaiting[characteristic] = false;
+    }
+
+    int depth() {
+        int n = 0;
+        for (boolean w : mWaiting)
+            if (w)
+                n++;
+        return n;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Shows the lines in a LogBuffer in a RecyclerView, so only the visible lines are rendered.
+ * The adapter works from a snapshot of the buffer's range, which update() brings up to
+ * date on the UI thread, so lines can be appended to the buffer at any time.
+ */
+class LogAdapter extends RecyclerView.Adapter<LogAdapter.LineHolder> {
+
+    static class LineHolder extends RecyclerView.ViewHolder {
+        final TextView mText;
+
+        LineHolder(TextView view) {
+            super(view);
+            mText = view;
+        }
+    }
+
+    private final LogBuffer mBuffer;
+    // Range of sequence numbers the RecyclerView has been told about
+    private long mFirst;
+    private long mEnd;
+
+    LogAdapter(LogBuffer buffer) {
+        mBuffer = buffer;
+        mFirst = mEnd = buffer.first();
+    }
+
+    /**
+     * Tell the RecyclerView about the lines appended, and dropped, since the last update.
+     * UI thread only.
+     */
+    void update() {
+        long first, end;
+        synchronized (mBuffer) {
+            first = mBuffer.first();
+            end = mBuffer.end();
+        }
+        if (first > mFirst) {
+            int dropped = (int) (Math.min(first, mEnd) - mFirst);
+            if (dropped > 0)
+                notifyItemRangeRemoved(0, dropped);
+        }
+        long from = Math.max(first, mEnd);
+        if (end > from)
+            notifyItemRangeInserted((int) (from - first), (int) (end - from));
+        mFirst = first;
+        mEnd = end;
+    }
+
+    @NonNull
+    @Override // RecyclerView.Adapter
+    public LineHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.log_line, parent, false);
+        return new LineHolder((TextView) view);
+    }
+
+    @Override // RecyclerView.Adapter
+    public void onBindViewHolder(@NonNull LineHolder holder, int position) {
+        // The line may already have been dropped, if an update is on its way
+        String line = mBuffer.get(mFirst + position);
+        holder.mText.setText(line != null ? line : "");
+    }
+
+    @Override // RecyclerView.Adapter
+    public int getItemCount() {
+        return (int) (mEnd - mFirst);
+    }
+}
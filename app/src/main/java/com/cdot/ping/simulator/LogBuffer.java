@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+/**
+ * Fixed-capacity ring of log lines. Lines can be appended from any thread; once the ring
+ * is full the oldest lines are dropped. Each line is identified by a sequence number, so
+ * a reader can tell which lines it has already seen and which have been dropped.
+ */
+class LogBuffer {
+    private final String[] mLines;
+    // Sequence numbers of the oldest line kept, and of the next line to be appended
+    private long mFirst = 0;
+    private long mEnd = 0;
+
+    LogBuffer(int capacity) {
+        mLines = new String[capacity];
+    }
+
+    synchronized void append(String line) {
+        int i = (int) (mEnd % mLines.length);
+        mLines[i] = line;
+        mEnd++;
+        if (mEnd - mFirst > mLines.length)
+            mFirst = mEnd - mLines.length;
+    }
+
+    /**
+     * @return sequence number of the oldest line kept
+     */
+    synchronized long first() {
+        return mFirst;
+    }
+
+    /**
+     * @return sequence number the next line appended will get
+     */
+    synchronized long end() {
+        return mEnd;
+    }
+
+    /**
+     * @return the line, or null if it has been dropped
+     */
+    synchronized String get(long seq) {
+        return seq >= mFirst && seq < mEnd ? mLines[(int) (seq % mLines.length)] : null;
+    }
+}
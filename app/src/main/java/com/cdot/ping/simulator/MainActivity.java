@@ -35,7 +35,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.ParcelUuid;
-import android.text.method.ScrollingMovementMethod;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -48,12 +47,22 @@ import androidx.activity.result.ActivityResultCallback;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
-
+import androidx.recyclerview.widget.LinearLayoutManager;
+
+import com.cdot.ping.simulator.core.FishFinder;
+import com.cdot.ping.simulator.core.Gauge;
+import com.cdot.ping.simulator.core.MetricsDumper;
+import com.cdot.ping.simulator.core.MetricsRegistry;
+import com.cdot.ping.simulator.core.MetricsServer;
+import com.cdot.ping.simulator.core.StripedCounter;
 import com.cdot.ping.simulator.databinding.MainActivityBinding;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -69,13 +78,21 @@ public class MainActivity extends AppCompatActivity {
         @Override // BluetoothGattServerCallback
         public void onConnectionStateChange(BluetoothDevice device, final int status, int newState) {
             super.onConnectionStateChange(device, status, newState);
-            if (status == BluetoothGatt.GATT_SUCCESS) {
+            if (newState == BluetoothGatt.STATE_DISCONNECTED) {
+                // A link loss or timeout arrives with an error status, but the device has gone all the same
+                log("Disconnected from " + device.getName()
+                        + (status == BluetoothGatt.GATT_SUCCESS ? "" : ", status " + status));
+                BleTransport transport = mBleTransport;
+                if (transport != null)
+                    transport.onDisconnected(device);
+                updateConnectedDevicesStatus();
+            } else if (status == BluetoothGatt.GATT_SUCCESS) {
                 if (newState == BluetoothGatt.STATE_CONNECTED) {
+                    BleTransport transport = mBleTransport;
+                    if (transport != null)
+                        transport.onConnected(device);
                     updateConnectedDevicesStatus();
                     log("Connected to " + device.getName());
-                } else if (newState == BluetoothGatt.STATE_DISCONNECTED) {
-                    log("Disconnected from " + device.getName());
-                    updateConnectedDevicesStatus();
                 } else {
                     log("onConnectionStateChange received new state " + newState);
                 }
@@ -107,9 +124,15 @@ public class MainActivity extends AppCompatActivity {
         public void onNotificationSent(BluetoothDevice device, int status) {
             super.onNotificationSent(device, status);
             //Log.v(TAG, "Notification sent. Status: " + status);
+            if (status == BluetoothGatt.GATT_SUCCESS)
+                mNotificationsDelivered.increment();
+            else
+                mNotificationErrors.increment();
             // When multiple notifications are to be sent, an application must wait for this
-            // callback to be received before sending additional notifications. In this application
-            // we don't bother, but could use GattQueue here.
+            // callback to be received before sending additional notifications
+            BleTransport transport = mBleTransport;
+            if (transport != null)
+                transport.onNotificationSent(device, status);
         }
 
         // A remote client has requested to write to a local characteristic
@@ -158,7 +181,7 @@ public class MainActivity extends AppCompatActivity {
             log(mess);
             Log.d(TAG, mess + " Value: " + Arrays.toString(value));
             int status;
-            if (descriptor.getUuid() == MainActivity.CLIENT_CHARACTERISTIC_CONFIGURATION_UUID) {
+            if (descriptor.getUuid().equals(MainActivity.CLIENT_CHARACTERISTIC_CONFIGURATION_UUID)) {
                 BluetoothGattCharacteristic characteristic = descriptor.getCharacteristic();
                 boolean supportsNotifications = (characteristic.getProperties() &
                         BluetoothGattCharacteristic.PROPERTY_NOTIFY) != 0;
@@ -171,21 +194,26 @@ public class MainActivity extends AppCompatActivity {
                     status = BluetoothGatt.GATT_INVALID_ATTRIBUTE_LENGTH;
                 } else if (Arrays.equals(value, BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE)) {
                     status = BluetoothGatt.GATT_SUCCESS;
-                    if (characteristic.getUuid() == ServiceFragment.BTC_SAMPLE) {
+                    setSubscription(device, characteristic, DeviceSession.UNSUBSCRIBED);
+                    BleTransport transport = mBleTransport;
+                    if (characteristic.getUuid().equals(FishFinder.BTC_SAMPLE)
+                            && (transport == null || !transport.hasSubscribers(FishFinder.BTC_SAMPLE))) {
                         log("Notifications disabled");
                         mServiceFragment.stopSampleGenerators();
                     }
                     descriptor.setValue(value);
                 } else if (supportsNotifications && Arrays.equals(value, BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE)) {
                     status = BluetoothGatt.GATT_SUCCESS;
-                    if (characteristic.getUuid() == ServiceFragment.BTC_SAMPLE) {
+                    setSubscription(device, characteristic, DeviceSession.NOTIFY);
+                    if (characteristic.getUuid().equals(FishFinder.BTC_SAMPLE)) {
                         log("Notifications enabled");
                         mServiceFragment.startSampleGenerators();
                     }
                     descriptor.setValue(value);
                 } else if (supportsIndications && Arrays.equals(value, BluetoothGattDescriptor.ENABLE_INDICATION_VALUE)) {
                     status = BluetoothGatt.GATT_SUCCESS;
-                    if (characteristic.getUuid() == ServiceFragment.BTC_SAMPLE) {
+                    setSubscription(device, characteristic, DeviceSession.INDICATE);
+                    if (characteristic.getUuid().equals(FishFinder.BTC_SAMPLE)) {
                         log("Indications enabled");
                         mServiceFragment.startSampleGenerators();
                     }
@@ -205,6 +233,22 @@ public class MainActivity extends AppCompatActivity {
             }
         }
 
+        // Record which characteristics each device wants, and how
+        private void setSubscription(BluetoothDevice device, BluetoothGattCharacteristic characteristic, int subscription) {
+            BleTransport transport = mBleTransport;
+            if (transport != null)
+                transport.onSubscriptionChanged(device, characteristic.getUuid(), subscription);
+        }
+
+        @Override // BluetoothGattServerCallback
+        public void onMtuChanged(BluetoothDevice device, int mtu) {
+            super.onMtuChanged(device, mtu);
+            Log.d(TAG, device.getAddress() + " MTU " + mtu);
+            BleTransport transport = mBleTransport;
+            if (transport != null)
+                transport.onMtuChanged(device, mtu);
+        }
+
         /**
          * Indicates whether a local service has been added successfully.
          *
@@ -271,6 +315,8 @@ public class MainActivity extends AppCompatActivity {
     private BluetoothManager mBluetoothManager;
     private BluetoothAdapter mBluetoothAdapter;
     private BluetoothGattServer mGattServer;
+    // Sends the packets, while the GATT server is open
+    private volatile BleTransport mBleTransport = null;
 
     private final BluetoothGattServerCallback mGattServerCallback = new GattServerCallback();
 
@@ -279,20 +325,40 @@ public class MainActivity extends AppCompatActivity {
     // UI
     MainActivityBinding mBinding;
 
-    private int logLines = 0;
+    // Metrics, for soak tests
+    private static final int METRICS_PORT = 9464;
+    private static final long METRICS_DUMP_PERIOD = 60000; // ms
+    private final MetricsRegistry mMetrics = new MetricsRegistry();
+    private final StripedCounter mNotificationsDelivered = mMetrics.counter(
+            "fishfinder_notifications_delivered_total", "onNotificationSent callbacks reporting success");
+    private final StripedCounter mNotificationErrors = mMetrics.counter(
+            "fishfinder_notifications_errors_total", "onNotificationSent callbacks reporting failure");
+    private MetricsServer mMetricsServer = null;
+    private MetricsDumper mMetricsDumper = null;
+
+    // Number of log lines kept
+    private static final int LOG_CAPACITY = 500;
+    private final LogBuffer mLog = new LogBuffer(LOG_CAPACITY);
+    private LogAdapter mLogAdapter;
+    // Lines logged since the last update are shown by a single post to the UI thread
+    private final AtomicBoolean mLogUpdatePending = new AtomicBoolean(false);
+    private final Runnable mLogUpdate = new Runnable() {
+        @Override
+        public void run() {
+            mLogUpdatePending.set(false);
+            // Follow new lines, unless the user has scrolled back
+            boolean atEnd = !mBinding.log.canScrollVertically(1);
+            mLogAdapter.update();
+            if (atEnd && mLogAdapter.getItemCount() > 0)
+                mBinding.log.scrollToPosition(mLogAdapter.getItemCount() - 1);
+        }
+    };
 
     void log(final String line) {
         Log.d(TAG, line);
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String cur = mBinding.log.getText().toString();
-                if (logLines > 500) {
-                    cur = cur.replaceFirst("^.*?\n", "");
-                }
-                mBinding.log.setText(String.format("%s\n%s", cur, line));
-            }
-        });
+        mLog.append(line);
+        if (mLogAdapter != null && mLogUpdatePending.compareAndSet(false, true))
+            runOnUiThread(mLogUpdate);
     }
 
     @Override // AppCompatActivity
@@ -303,7 +369,9 @@ public class MainActivity extends AppCompatActivity {
         setContentView(mBinding.getRoot());
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
-        mBinding.log.setMovementMethod(new ScrollingMovementMethod());
+        mLogAdapter = new LogAdapter(mLog);
+        mBinding.log.setLayoutManager(new LinearLayoutManager(this));
+        mBinding.log.setAdapter(mLogAdapter);
 
         // Create GATT services
         mBluetoothManager = (BluetoothManager) getSystemService(Context.BLUETOOTH_SERVICE);
@@ -326,6 +394,15 @@ public class MainActivity extends AppCompatActivity {
                     .findFragmentByTag(TAG);
         }
 
+        mServiceFragment.registerMetrics(mMetrics);
+        AndroidMetrics.register(mMetrics);
+        mMetrics.gauge("fishfinder_connected_devices", "Devices connected to the GATT server", new Gauge() {
+            @Override
+            public double get() {
+                return mBluetoothManager.getConnectedDevices(BluetoothGattServer.GATT).size();
+            }
+        });
+
         // GAP
         mAdvertiseSettings = new AdvertiseSettings.Builder()
                 .setAdvertiseMode(AdvertiseSettings.ADVERTISE_MODE_BALANCED)
@@ -334,7 +411,7 @@ public class MainActivity extends AppCompatActivity {
                 .build();
         mAdvertiseData = new AdvertiseData.Builder()
                 .setIncludeTxPowerLevel(true)
-                .addServiceUuid(new ParcelUuid(ServiceFragment.BTS_CUSTOM))
+                .addServiceUuid(new ParcelUuid(FishFinder.BTS_CUSTOM))
                 .build();
         mAdvertiseScanResponse = new AdvertiseData.Builder()
                 .setIncludeDeviceName(true)
@@ -356,6 +433,9 @@ public class MainActivity extends AppCompatActivity {
         // Add a service for a total of three services (Generic Attribute and Generic Access
         // are present by default).
         mGattServer.addService(mServiceFragment.mBluetoothService);
+        mBleTransport = new BleTransport(mGattServer, mServiceFragment.mBluetoothService, mMetrics,
+                mServiceFragment.getTargetSonarRate());
+        mServiceFragment.setTransport(mBleTransport);
 
         if (mBluetoothAdapter.isMultipleAdvertisementSupported()) {
             mAdvertiser = mBluetoothAdapter.getBluetoothLeAdvertiser();
@@ -385,9 +465,57 @@ public class MainActivity extends AppCompatActivity {
             }
             return true /* event_consumed */;
         }
+        if (item.getItemId() == R.id.action_metrics_server) {
+            setMetricsServer(!item.isChecked());
+            item.setChecked(mMetricsServer != null);
+            return true /* event_consumed */;
+        }
+        if (item.getItemId() == R.id.action_metrics_dump) {
+            setMetricsDump(!item.isChecked());
+            item.setChecked(mMetricsDumper != null);
+            return true /* event_consumed */;
+        }
         return false /* event_consumed */;
     }
 
+    // Serve metrics on localhost, reachable with "adb forward tcp:9464 tcp:9464"
+    private void setMetricsServer(boolean on) {
+        try {
+            if (on && mMetricsServer == null) {
+                mMetricsServer = new MetricsServer(mMetrics, METRICS_PORT);
+                log("Metrics on http://localhost:" + METRICS_PORT + "/metrics");
+            } else if (!on && mMetricsServer != null) {
+                mMetricsServer.close();
+                mMetricsServer = null;
+            }
+        } catch (IOException ioe) {
+            log("Metrics server failed: " + ioe);
+        }
+    }
+
+    // Append metrics to a file in the app's external files directory
+    private void setMetricsDump(boolean on) {
+        try {
+            if (on && mMetricsDumper == null) {
+                File file = new File(getExternalFilesDir(null), "metrics.jsonl");
+                mMetricsDumper = new MetricsDumper(mMetrics, file, METRICS_DUMP_PERIOD);
+                log("Dumping metrics to " + file);
+            } else if (!on && mMetricsDumper != null) {
+                mMetricsDumper.close();
+                mMetricsDumper = null;
+            }
+        } catch (IOException ioe) {
+            log("Metrics dump failed: " + ioe);
+        }
+    }
+
+    @Override // AppCompatActivity
+    protected void onDestroy() {
+        setMetricsServer(false);
+        setMetricsDump(false);
+        super.onDestroy();
+    }
+
     @Override // AppCompatActivity
     protected void onStop() {
         Log.d(TAG, "onStop");
@@ -399,6 +527,8 @@ public class MainActivity extends AppCompatActivity {
             mAdvertiser = null;
         }
         if (mGattServer != null) {
+            mServiceFragment.setTransport(null);
+            mBleTransport = null;
             for (BluetoothDevice device : mBluetoothManager.getConnectedDevices(BluetoothGattServer.GATT)) {
                 mGattServer.cancelConnection(device);
             }
@@ -407,18 +537,6 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    public void sendNotificationToDevices(BluetoothGattCharacteristic characteristic) {
-        boolean indicate = (characteristic.getProperties()
-                & BluetoothGattCharacteristic.PROPERTY_INDICATE)
-                == BluetoothGattCharacteristic.PROPERTY_INDICATE;
-        List<BluetoothDevice> connected = mBluetoothManager.getConnectedDevices(BluetoothGattServer.GATT);
-        for (BluetoothDevice device : connected) {
-            // Log.d(TAG, "send notification to " + device.getAddress());
-            // true for indication (acknowledge) and false for notification (unacknowledge).
-            mGattServer.notifyCharacteristicChanged(device, characteristic, indicate);
-        }
-    }
-
     private void resetStatusViews() {
         mBinding.textViewAdvertisingStatus.setText(R.string.advertising_off);
         updateConnectedDevicesStatus();
@@ -442,7 +560,11 @@ public class MainActivity extends AppCompatActivity {
                 mBinding.textViewConnectionStatus.setText(getResources().getString(R.string.devices_connected, nConnected, message));
             }
         });
-        if (nConnected == 0 && mServiceFragment != null)
+        BleTransport transport = mBleTransport;
+        if (transport != null)
+            transport.retainConnected(connected);
+        if (mServiceFragment != null
+                && (nConnected == 0 || transport != null && !transport.hasSubscribers(FishFinder.BTC_SAMPLE)))
             mServiceFragment.stopSampleGenerators();
     }
 
@@ -25,7 +25,10 @@ import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
 import android.content.res.Resources;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -40,86 +43,122 @@ import android.widget.Toast;
 
 import androidx.fragment.app.Fragment;
 
+import com.cdot.ping.simulator.core.BathymetryGrid;
+import com.cdot.ping.simulator.core.BathymetrySampleGenerator;
+import com.cdot.ping.simulator.core.DemoSampleGenerator;
+import com.cdot.ping.simulator.core.FishFinder;
+import com.cdot.ping.simulator.core.FishSchoolStage;
+import com.cdot.ping.simulator.core.FlatlineSampleGenerator;
+import com.cdot.ping.simulator.core.LatencyHistogram;
+import com.cdot.ping.simulator.core.LoopbackTransport;
+import com.cdot.ping.simulator.core.MetricsRegistry;
+import com.cdot.ping.simulator.core.NoiseStage;
+import com.cdot.ping.simulator.core.RangeStage;
+import com.cdot.ping.simulator.core.Sample;
+import com.cdot.ping.simulator.core.SampleGenerator;
+import com.cdot.ping.simulator.core.SamplePipeline;
+import com.cdot.ping.simulator.core.SampleTransport;
+import com.cdot.ping.simulator.core.SeabedSampleGenerator;
+import com.cdot.ping.simulator.core.Simulator;
+import com.cdot.ping.simulator.core.StreamStatistics;
+import com.cdot.ping.simulator.core.TickScheduler;
+import com.cdot.ping.simulator.core.WaveSampleGenerator;
 import com.cdot.ping.simulator.databinding.ServiceFragmentBinding;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.ByteBuffer;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.UUID;
+import java.io.File;
+import java.io.IOException;
 
 public class ServiceFragment extends Fragment {
 
     public static final String TAG = ServiceFragment.class.getSimpleName();
 
-    // ID bytes that characterise the fishfinder
-    static final byte ID0 = 83;
-    static final byte ID1 = 70;
-    // range (metres) indexed by range
-    static final int[] RANGE_DEPTH = {
-            3, 6, 9, 18, 24, 36, 36
-    };
-    static final String[] NOISES = {
-            "Off", "Low", "Medium", "High"
-    };
-
-    private static final byte COMMAND_CONFIGURE = 1;
-
-    // Bluetooth services BTS_*
-    // Bluetooth characteristics BTC_*
-    // Custom service that the fishfinder implements
-    static UUID BTS_CUSTOM = UUID.fromString("0000fff0-0000-1000-8000-00805f9b34fb");
-    // Characteristic for samples, notified. Note that FishFinder packages battery state in the
-    // sample packet and there is no separate characteristic
-    static UUID BTC_SAMPLE = UUID.fromString("0000fff1-0000-1000-8000-00805f9b34fb");
-    // Characteristic used for sending packets to the device. The only command I can
-    // find that FishFinder devices support is "configure".
-    static UUID BTC_CONFIGURE = UUID.fromString("0000fff2-0000-1000-8000-00805f9b34fb");
-    // Simulation of location
-    static UUID BTC_LOCATION = UUID.fromString("0000fff3-0000-1000-8000-00805f9b34fb");
-    // Sample data
-    public boolean mDry = false, mSilent = false;
-
     // GATT
     BluetoothGattService mBluetoothService;
     // UI
     ServiceFragmentBinding mBinding;
     double mTargetSonarRate = 8; // Hz
     double mTargetLocRate = 1; // Hz
-    // Current device configuration
-    private int mSensitivity = 50;
-    private int mNoise = 0;
-    private int mRange = 6;
-    private Timer mSonarTimer = null;
-    private Timer mLocTimer = null;
-
-    private double mAveSonarRate; // rolling average sampling rate
-    private int mTotalSonarCount;
-    private long mLastSonarTime;
-    private double mAveLocRate; // rolling average sampling rate
-    private int mTotalLocCount;
-    private long mLastLocTime;
+    // Generates, encodes and schedules the samples
+    private final Simulator mSimulator;
 
     private boolean mAlwaysOn = false;
 
-    private Sample mSample;
+    // Generator chosen in the spinner, and whether to add schools of fish to it
+    private SampleGenerator mSourceGenerator;
+    private int mSourcePosition = 0;
+    private boolean mFish = false;
+
+    // Grid for the bathymetry source, opened when it's first chosen
+    private static final String BATHYMETRY_FILE = "bathymetry.bin";
+    private BathymetryGrid mBathymetry = null;
+
+    // Display refresh caps in Hz, matching @array/displayRefreshRates. 0 refreshes on every
+    // display frame, -1 turns the display off.
+    private static final double[] REFRESH_RATES = {0, 30, 10, 1, -1};
+
+    // Display refresh, UI thread only. The display is refreshed from a Choreographer frame
+    // callback rather than by the ticks, so however fast the ticks it costs at most one
+    // update per display frame.
+    private long mRefreshPeriod = 0; // ns, -1 = off
+    private long mLastRefresh = 0;
+    private long mLastFrameShown = -1;
+    private boolean mRefreshing = false;
+    private final Choreographer.FrameCallback mRefresh = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mRefreshing)
+                return;
+            if (frameTimeNanos - mLastRefresh >= mRefreshPeriod) {
+                mLastRefresh = frameTimeNanos;
+                updateSampleDisplay();
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    // Adaptive rate control. When on, each client is sent sonar packets at the rate its
+    // rate controller has found, and the sonar stream runs a little faster than the
+    // fastest client so that client can probe for more.
+    private static final long ADAPT_PERIOD = 1000; // ms
+    private static final double PROBE_HEADROOM = 1.25;
+    private static final double ADAPT_THRESHOLD = 0.05;
+    private BleTransport mBleTransport;
+    private boolean mAdaptive = false;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mAdapt = new Runnable() {
+        @Override
+        public void run() {
+            adaptSonarRate();
+            mHandler.postDelayed(this, ADAPT_PERIOD);
+        }
+    };
+
+    // Copy of the latest frame's sample, UI thread only
+    private final Sample mDisplaySample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
 
-    private SampleGenerator mSampleGenerator;
+    // Display formats, looked up once rather than on every refresh
+    private String mDepthFormat, mStrengthFormat, mFishDepthFormat, mFishStrengthFormat;
+    private String mBatteryFormat, mTemperatureFormat, mLatFormat, mLonFormat, mFreqFormat;
+    private String mSonarStatsFormat, mLocStatsFormat, mEncodeStatsFormat, mClientRateFormat;
 
     public ServiceFragment() {
-        mSampleGenerator = new DemoSampleGenerator();
-        resetSampleCounters();
+        // Nowhere to send samples until the GATT server is up
+        mSourceGenerator = new DemoSampleGenerator();
+        mSimulator = new Simulator(TAG, createPipeline(mSourceGenerator), mTargetSonarRate, mTargetLocRate,
+                new LoopbackTransport(null));
+        mSimulator.enableStatistics();
 
         // Set up Bluetooth
-        mBluetoothService = new BluetoothGattService(BTS_CUSTOM, BluetoothGattService.SERVICE_TYPE_PRIMARY);
+        mBluetoothService = new BluetoothGattService(FishFinder.BTS_CUSTOM, BluetoothGattService.SERVICE_TYPE_PRIMARY);
         log("Created service");
 
         // Set up sample characteristics
         BluetoothGattCharacteristic cha;
         BluetoothGattDescriptor descriptor;
 
-        cha = new BluetoothGattCharacteristic(BTC_SAMPLE,
+        cha = new BluetoothGattCharacteristic(FishFinder.BTC_SAMPLE,
                 BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_INDICATE,
                 BluetoothGattCharacteristic.PERMISSION_READ);
         // Descriptor written with ENABLE_NOTIFICATION_VALUE
@@ -130,7 +169,7 @@ public class ServiceFragment extends Fragment {
         cha.addDescriptor(descriptor);
         mBluetoothService.addCharacteristic(cha);
 
-        cha = new BluetoothGattCharacteristic(BTC_LOCATION,
+        cha = new BluetoothGattCharacteristic(FishFinder.BTC_LOCATION,
                 BluetoothGattCharacteristic.PROPERTY_NOTIFY | BluetoothGattCharacteristic.PROPERTY_INDICATE,
                 BluetoothGattCharacteristic.PERMISSION_READ);
         descriptor = new BluetoothGattDescriptor(MainActivity.CLIENT_CHARACTERISTIC_CONFIGURATION_UUID,
@@ -140,7 +179,7 @@ public class ServiceFragment extends Fragment {
         mBluetoothService.addCharacteristic(cha);
 
         // Set up configure characteristic
-        cha = new BluetoothGattCharacteristic(BTC_CONFIGURE,
+        cha = new BluetoothGattCharacteristic(FishFinder.BTC_CONFIGURE,
                 BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE
                         | BluetoothGattCharacteristic.PROPERTY_WRITE,
                 BluetoothGattCharacteristic.PERMISSION_WRITE);
@@ -151,19 +190,101 @@ public class ServiceFragment extends Fragment {
         mAlwaysOn = true;
     }
 
-    private void resetSampleCounters() {
-        mAveSonarRate = mTargetSonarRate; // rolling average sampling rate
-        mTotalSonarCount = 1;
-        mLastSonarTime = 0;
-        mAveLocRate = mTargetLocRate; // rolling average sampling rate
-        mTotalLocCount = 0;
-        mLastLocTime = 0;
+    /**
+     * Export the simulator's metrics
+     */
+    void registerMetrics(MetricsRegistry registry) {
+        mSimulator.registerMetrics(registry, AndroidMetrics.CPU_TIMER);
+    }
+
+    /**
+     * Set where samples are sent
+     * @param transport the transport, or null to discard samples
+     */
+    void setTransport(SampleTransport transport) {
+        mBleTransport = transport instanceof BleTransport ? (BleTransport) transport : null;
+        if (mBleTransport != null)
+            mBleTransport.setAdaptive(mAdaptive);
+        else
+            mSimulator.getSonarStream().setRate(mTargetSonarRate);
+        mSimulator.setTransport(transport != null ? transport : new LoopbackTransport(null));
+    }
+
+    /**
+     * @return the rate the user asked for the sonar stream, Hz
+     */
+    double getTargetSonarRate() {
+        return mTargetSonarRate;
+    }
+
+    private void setAdaptive(boolean adaptive) {
+        mAdaptive = adaptive;
+        if (mBleTransport != null)
+            mBleTransport.setAdaptive(adaptive);
+        mHandler.removeCallbacks(mAdapt);
+        if (adaptive)
+            mHandler.post(mAdapt);
+        else {
+            mSimulator.getSonarStream().setRate(mTargetSonarRate);
+            if (mBinding != null)
+                mBinding.clientRatesTV.setText("");
+        }
+    }
+
+    // Run the sonar stream just fast enough for the fastest client to keep probing, and
+    // show what each client has settled on. UI thread only.
+    private void adaptSonarRate() {
+        BleTransport transport = mBleTransport;
+        DeviceSession[] sessions = transport != null ? transport.getSessions() : new DeviceSession[0];
+        double fastest = 0;
+        StringBuilder sb = new StringBuilder();
+        for (DeviceSession session : sessions) {
+            if (!session.isSubscribed())
+                continue;
+            double rate = session.mRate.getRate();
+            fastest = Math.max(fastest, rate);
+            if (sb.length() > 0)
+                sb.append('\n');
+            sb.append(String.format(mClientRateFormat, session.getAddress(), rate, session.mRate.getCeiling()));
+        }
+        double rate = fastest == 0 ? mTargetSonarRate : Math.min(mTargetSonarRate, fastest * PROBE_HEADROOM);
+        TickScheduler.Stream stream = mSimulator.getSonarStream();
+        if (Math.abs(rate - stream.getRate()) > ADAPT_THRESHOLD * stream.getRate())
+            stream.setRate(rate);
+        if (mBinding != null)
+            mBinding.clientRatesTV.setText(sb);
+    }
+
+    // Add fish to a source if they're wanted, then noise and range as configured by Ping
+    private SampleGenerator createPipeline(SampleGenerator source) {
+        return mFish
+                ? new SamplePipeline(source, new FishSchoolStage(), new NoiseStage(), new RangeStage())
+                : new SamplePipeline(source, new NoiseStage(), new RangeStage());
+    }
+
+    // Use a generator as the source
+    private void setSampleGenerator(SampleGenerator generator) {
+        mSourceGenerator = generator;
+        mSimulator.setSampleGenerator(createPipeline(generator));
     }
 
-    private static byte[] double2byteArray(double number) {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(Double.BYTES);
-        byteBuffer.putDouble(number);
-        return byteBuffer.array();
+    /**
+     * Open the bathymetry grid, made by BathymetryConverter and copied to the app's
+     * external files directory, the first time it's needed
+     * @return the grid, or null if it can't be opened
+     */
+    private BathymetryGrid openBathymetry() {
+        if (mBathymetry == null) {
+            File file = new File(getActivity().getExternalFilesDir(null), BATHYMETRY_FILE);
+            try {
+                mBathymetry = new BathymetryGrid(file);
+                log("Opened bathymetry " + mBathymetry.columns + "x" + mBathymetry.rows);
+            } catch (IOException ioe) {
+                log("Can't open bathymetry " + file + ": " + ioe);
+                Toast.makeText(getActivity(), ioe.toString(), Toast.LENGTH_SHORT).show();
+            }
+        }
+        return mBathymetry;
     }
 
     private void log(String lin) {
@@ -192,7 +313,9 @@ public class ServiceFragment extends Fragment {
                         && event != null && event.getKeyCode() == KeyEvent.KEYCODE_ENTER) {
                     try {
                         mTargetSonarRate = Double.parseDouble(v.getText().toString());
-                        mLastSonarTime = 0;
+                        mSimulator.getSonarStream().setRate(mTargetSonarRate);
+                        if (mBleTransport != null)
+                            mBleTransport.setMaxRate(mTargetSonarRate);
                         log("Sample rate " + mTargetSonarRate + "Hz");
                         // Hide the soft keyboard
                         InputMethodManager imm = (InputMethodManager) getActivity().getSystemService(Activity.INPUT_METHOD_SERVICE);
@@ -222,7 +345,7 @@ public class ServiceFragment extends Fragment {
                         && event != null && event.getKeyCode() == KeyEvent.KEYCODE_ENTER) {
                     try {
                         mTargetLocRate = Double.parseDouble(v.getText().toString());
-                        mLastLocTime = 0;
+                        mSimulator.getLocationStream().setRate(mTargetLocRate);
                         log("Sample rate " + mTargetLocRate + "Hz");
                         // Hide the soft keyboard
                         InputMethodManager imm = (InputMethodManager) getActivity().getSystemService(Activity.INPUT_METHOD_SERVICE);
@@ -239,22 +362,41 @@ public class ServiceFragment extends Fragment {
             }
         });
 
-        mBinding.isDry.setChecked(mDry);
-        mBinding.isDry.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+        mBinding.hasFish.setChecked(mFish);
+        mBinding.hasFish.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
-                mDry = isChecked;
+                mFish = isChecked;
+                setSampleGenerator(mSourceGenerator);
             }
         });
 
-        mBinding.isSilent.setChecked(mSilent);
+        mBinding.isDry.setChecked(mSimulator.isDry());
         mBinding.isDry.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
-                mSilent = isChecked;
+                mSimulator.setDry(isChecked);
+            }
+        });
+
+        mBinding.isAdaptive.setChecked(mAdaptive);
+        mBinding.isAdaptive.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                setAdaptive(isChecked);
+                log((isChecked ? "Adapting" : "Not adapting") + " sonar rate to clients");
             }
         });
 
+        mBinding.isSilent.setChecked(mSimulator.isSilent());
+        mBinding.isSilent.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                mSimulator.setSilent(isChecked);
+            }
+        });
+
+        mBinding.sampleSource.setSelection(mSourcePosition, false);
         mBinding.sampleSource.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             /**
              * <p>Callback method to be invoked when an item in this view has been
@@ -272,18 +414,33 @@ public class ServiceFragment extends Fragment {
              */
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (position == mSourcePosition)
+                    return;
                 switch (position) {
                     default:
                     case 0: // Demo
-                        mSampleGenerator = new DemoSampleGenerator();
+                        setSampleGenerator(new DemoSampleGenerator());
                         break;
                     case 1: // Wave
-                        mSampleGenerator = new WaveSampleGenerator();
+                        setSampleGenerator(new WaveSampleGenerator());
                         break;
                     case 2: // Flatline
-                        mSampleGenerator = new FlatlineSampleGenerator();
+                        setSampleGenerator(new FlatlineSampleGenerator());
+                        break;
+                    case 3: // Seabed
+                        setSampleGenerator(new SeabedSampleGenerator());
+                        break;
+                    case 4: // Bathymetry
+                        BathymetryGrid grid = openBathymetry();
+                        if (grid == null) {
+                            // Show the source that is still running
+                            parent.setSelection(mSourcePosition);
+                            return;
+                        }
+                        setSampleGenerator(new BathymetrySampleGenerator(grid));
                 }
-                resetSampleCounters();
+                mSourcePosition = position;
+                mSimulator.resetStatistics();
             }
 
             /**
@@ -298,86 +455,126 @@ public class ServiceFragment extends Fragment {
 
             }
         });
+        mBinding.displayRefresh.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                double rate = REFRESH_RATES[position];
+                mRefreshPeriod = rate < 0 ? -1 : rate == 0 ? 0 : (long) (1e9 / rate);
+                stopDisplayRefresh();
+                if (isResumed())
+                    startDisplayRefresh();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+
+            }
+        });
+
+        Resources r = getResources();
+        mDepthFormat = r.getString(R.string.depth);
+        mStrengthFormat = r.getString(R.string.strength);
+        mFishDepthFormat = r.getString(R.string.fish_depth);
+        mFishStrengthFormat = r.getString(R.string.fish_strength);
+        mBatteryFormat = r.getString(R.string.battery);
+        mTemperatureFormat = r.getString(R.string.temperature);
+        mLatFormat = r.getString(R.string.lat);
+        mLonFormat = r.getString(R.string.lon);
+        mFreqFormat = r.getString(R.string.freq);
+        mSonarStatsFormat = r.getString(R.string.sonar_stats);
+        mLocStatsFormat = r.getString(R.string.location_stats);
+        mEncodeStatsFormat = r.getString(R.string.encode_stats);
+        mClientRateFormat = r.getString(R.string.client_rate);
+
         updateConfigurationDisplay();
-        updateSonarDisplay();
-        updateLocDisplay();
+        mLastFrameShown = -1;
+        updateSampleDisplay();
         return mBinding.getRoot();
     }
 
-    private void updateConfigurationDisplay() {
-        Resources r = getResources();
-        mBinding.sensitivityTV.setText(r.getString(R.string.sensitivity, mSensitivity));
-        mBinding.noiseTV.setText(r.getString(R.string.noise, NOISES[mNoise]));
-        mBinding.rangeTV.setText(r.getString(R.string.range, RANGE_DEPTH[mRange]));
+    @Override // Fragment
+    public void onResume() {
+        super.onResume();
+        startDisplayRefresh();
     }
 
-    private void updateSonarDisplay() {
-        Sample sample = mSampleGenerator.getSample();
-        Resources r = getResources();
-        mBinding.depthTV.setText(r.getString(R.string.depth,sample.depth));
-        mBinding.strengthTV.setText(r.getString(R.string.strength, sample.strength));
-        mBinding.fishDepthTV.setText(r.getString(R.string.fish_depth, sample.fishDepth));
-        mBinding.fishStrengthTV.setText(r.getString(R.string.fish_strength,sample.fishStrength));
-        mBinding.battTV.setText(r.getString(R.string.battery, sample.battery));
-        mBinding.tempTV.setText(r.getString(R.string.temperature, sample.temperature));
-        mBinding.sonarRateTV.setText(r.getString(R.string.freq, mAveSonarRate));
+    @Override // Fragment
+    public void onPause() {
+        stopDisplayRefresh();
+        super.onPause();
+    }
+
+    @Override // Fragment
+    public void onDestroy() {
+        // Adaptation carries on while paused, as clients are still being served, but
+        // must not outlive the fragment
+        mHandler.removeCallbacks(mAdapt);
+        // Nothing else uses the simulator, and it must stop reading the grid before it's closed
+        mSimulator.stop();
+        if (mBathymetry != null) {
+            try {
+                mBathymetry.close();
+            } catch (IOException ioe) {
+                Log.d(TAG, "Can't close bathymetry: " + ioe);
+            }
+            mBathymetry = null;
+        }
+        super.onDestroy();
+    }
+
+    private void startDisplayRefresh() {
+        if (mRefreshing || mRefreshPeriod < 0)
+            return;
+        mRefreshing = true;
+        Choreographer.getInstance().postFrameCallback(mRefresh);
     }
 
-    private void updateLocDisplay() {
-        Sample sample = mSampleGenerator.getSample();
+    private void stopDisplayRefresh() {
+        mRefreshing = false;
+        Choreographer.getInstance().removeFrameCallback(mRefresh);
+    }
+
+    private void updateConfigurationDisplay() {
         Resources r = getResources();
-        mBinding.latTV.setText(r.getString(R.string.lat, sample.latitude));
-        mBinding.lonTV.setText(r.getString(R.string.lon, sample.longitude));
-        mBinding.locRateTV.setText(r.getString(R.string.freq, mAveLocRate));
+        mBinding.sensitivityTV.setText(r.getString(R.string.sensitivity, mSimulator.getSensitivity()));
+        mBinding.noiseTV.setText(r.getString(R.string.noise, FishFinder.NOISES[mSimulator.getNoise()]));
+        mBinding.rangeTV.setText(r.getString(R.string.range, FishFinder.RANGE_DEPTH[mSimulator.getRange()]));
     }
 
-    /**
-     * Update the bluetooth characteristic stored value
-     */
-    private synchronized void updateSampleCharacteristic() {
-        Sample sample = mSampleGenerator.getSample();
-
-        byte[] data = new byte[18];
-        data[0] = ID0;
-        data[1] = ID1;
-        data[2] = 0;
-        data[3] = 0;
-        data[4] = mDry ? (byte) 0x8 : 0; // Dry. Only the top bit used
-        data[5] = 9;
-        data[6] = (byte) Math.floor(sample.depthFt());
-        data[7] = (byte) Math.floor(((sample.depthFt() - data[6]) * 100));
-        data[8] = (byte) (sample.strength * 255 / 100); // 0..255
-        data[9] = (byte) Math.floor(sample.fishDepthFt());
-        data[10] = (byte) Math.floor(((sample.fishDepthFt() - data[9]) * 100));
-        data[11] = (byte) ((int)(sample.fishStrength * 15 / 100) | ((int) Math.floor(6 * sample.battery / 100) << 4));
-        data[12] = (byte) Math.floor(sample.tempF());
-        data[13] = (byte) Math.floor((sample.tempF() - data[12]) * 100);
-        data[14] = 0;
-        data[15] = 0;
-        data[16] = 0;
-        int checksum = 0;
-        for (int i = 0; i < 17; i++)
-            checksum += data[i];
-        data[17] = (byte) (checksum & 0xFF);
-
-        BluetoothGattCharacteristic cha = mBluetoothService.getCharacteristic(BTC_SAMPLE);
-        cha.setValue(data);
-        MainActivity act = ((MainActivity) getActivity());
-        if (act != null && !mSilent)
-            act.sendNotificationToDevices(cha);
+    // Show the latest frame, UI thread only
+    private void updateSampleDisplay() {
+        Sample sample = mDisplaySample;
+        long seq = mSimulator.getFrames().copyLatest(sample);
+        if (seq != mLastFrameShown) {
+            mLastFrameShown = seq;
+            mBinding.depthTV.setText(String.format(mDepthFormat, sample.depth));
+            mBinding.strengthTV.setText(String.format(mStrengthFormat, sample.strength));
+            mBinding.fishDepthTV.setText(String.format(mFishDepthFormat, sample.fishDepth));
+            mBinding.fishStrengthTV.setText(String.format(mFishStrengthFormat, sample.fishStrength));
+            mBinding.battTV.setText(String.format(mBatteryFormat, sample.battery));
+            mBinding.tempTV.setText(String.format(mTemperatureFormat, sample.temperature));
+            mBinding.latTV.setText(String.format(mLatFormat, sample.latitude));
+            mBinding.lonTV.setText(String.format(mLonFormat, sample.longitude));
+        }
+        updateStatisticsDisplay();
     }
 
-    private void updateLocationCharacteristic() {
-        Sample sample = mSampleGenerator.getSample();
-        byte[] buff = new byte[2 * Double.BYTES];
-        System.arraycopy(double2byteArray(sample.latitude), 0, buff, 0, Double.BYTES);
-        System.arraycopy(double2byteArray(sample.longitude), 0, buff, Double.BYTES, Double.BYTES);
-        BluetoothGattCharacteristic cha = mBluetoothService.getCharacteristic(BTC_LOCATION);
-        // BLE allows a max of 20 bytes, 2 doubles is 16
-        cha.setValue(buff);
-        MainActivity act = ((MainActivity) getActivity());
-        if (act != null && !mSilent)
-            act.sendNotificationToDevices(cha);
+    // Show the rates, and p50/p99/max of the intervals, latencies and encode time
+    private void updateStatisticsDisplay() {
+        long now = System.nanoTime();
+        StreamStatistics sonar = mSimulator.getSonarStatistics();
+        StreamStatistics loc = mSimulator.getLocationStatistics();
+        LatencyHistogram encode = mSimulator.getEncodeTime();
+        mBinding.sonarRateTV.setText(String.format(mFreqFormat, sonar.rate.getRate(now)));
+        mBinding.locRateTV.setText(String.format(mFreqFormat, loc.rate.getRate(now)));
+        mBinding.sonarStatsTV.setText(String.format(mSonarStatsFormat,
+                sonar.interval.getPercentile(50) / 1e6, sonar.interval.getPercentile(99) / 1e6, sonar.interval.getMax() / 1e6,
+                sonar.latency.getPercentile(50) / 1e6, sonar.latency.getPercentile(99) / 1e6, sonar.latency.getMax() / 1e6));
+        mBinding.locStatsTV.setText(String.format(mLocStatsFormat,
+                loc.interval.getPercentile(50) / 1e6, loc.interval.getPercentile(99) / 1e6, loc.interval.getMax() / 1e6,
+                loc.latency.getPercentile(50) / 1e6, loc.latency.getPercentile(99) / 1e6, loc.latency.getMax() / 1e6));
+        mBinding.encodeStatsTV.setText(String.format(mEncodeStatsFormat,
+                encode.getPercentile(50) / 1e3, encode.getPercentile(99) / 1e3, encode.getMax() / 1e3));
     }
 
     // A remote client has requested to write to a local characteristic
@@ -388,34 +585,23 @@ public class ServiceFragment extends Fragment {
         }
 
         // We only support one write characteristic, so if this is anything else....
-        if (!characteristic.getUuid().equals(BTC_CONFIGURE)) {
+        if (!characteristic.getUuid().equals(FishFinder.BTC_CONFIGURE)) {
             Log.e(TAG, "BAD WRITE CHARACTERISTIC " + characteristic.getUuid());
             return BluetoothGatt.GATT_FAILURE;
         }
 
-        // Data should be 12 bytes
-        if (value.length != 12) {
-            Log.e(TAG, "BAD LENGTH " + value.length);
-            return BluetoothGatt.GATT_INVALID_ATTRIBUTE_LENGTH;
+        switch (mSimulator.configure(value)) {
+            case Simulator.CONFIGURE_BAD_LENGTH:
+                Log.e(TAG, "BAD LENGTH " + value.length);
+                return BluetoothGatt.GATT_INVALID_ATTRIBUTE_LENGTH;
+            case Simulator.CONFIGURE_BAD_ID:
+                Log.e(TAG, "BAD CONFIGURATION PACKET id's don't match");
+                return BluetoothGatt.GATT_FAILURE;
+            case Simulator.CONFIGURE_BAD_COMMAND:
+                Log.e(TAG, "BAD CONFIGURATION PACKET odd " + value[4] + " " + value[5]);
+                return BluetoothGatt.GATT_FAILURE;
         }
-
-        byte id0 = value[0]; // ID0
-        byte id1 = value[1]; // ID1
-        if (id0 != ID0 || id1 != ID1) {
-            Log.e(TAG, "BAD CONFIGURATION PACKET id's don't match");
-            return BluetoothGatt.GATT_FAILURE;
-        }
-        byte command = value[4]; // must be COMMAND_CONFIGURE
-        byte size = value[5]; // must be 3
-        if (command != COMMAND_CONFIGURE || size != 3) {
-            Log.e(TAG, "BAD CONFIGURATION PACKET odd " + command + " " + size);
-            return BluetoothGatt.GATT_FAILURE;
-        }
-        mSensitivity = value[6];
-        mNoise = value[7];
-        mRange = value[8];
-        mSampleGenerator.configure(mSensitivity, mNoise, mRange);
-        log("Configuration sensitivity " + mSensitivity + " noise " + mNoise + " range " + mRange);
+        log("Configuration sensitivity " + value[6] + " noise " + value[7] + " range " + value[8]);
 
         getActivity().runOnUiThread(new Runnable() {
             @Override
@@ -426,94 +612,25 @@ public class ServiceFragment extends Fragment {
         return BluetoothGatt.GATT_SUCCESS;
     }
 
-    // Oscillate when the timer is running
-    private synchronized void onSonarTimer() {
-
-        long now = System.currentTimeMillis();
-        if (mLastSonarTime == 0) {
-            mAveSonarRate = mTargetSonarRate;
-        } else {
-            double samplingRate = 1000.0 / (now - mLastSonarTime);
-            //Log.d(TAG, "Rate " + (now - mLastSampleTime) + " " + samplingRate);
-            mAveSonarRate = ((mAveSonarRate * mTotalSonarCount) + samplingRate) / (mTotalSonarCount + 1);
-            mTotalSonarCount++;
-        }
-        mLastSonarTime = now;
-
-        TimerTask task = new TimerTask() {
-            public void run() {
-                onSonarTimer();
-            }
-        };
-        mSonarTimer = new Timer();
-        mSonarTimer.schedule(task, (int) (1000.0 / mTargetSonarRate));
-
-        // Notify bluetooth listeners
-        updateSampleCharacteristic();
-
-        getActivity().runOnUiThread(new Runnable() {
-            public void run() {
-                updateSonarDisplay();
-            }
-        });
-    }
-
-    private synchronized void onLocationTimer() {
-        mLocTimer = new Timer();
-        TimerTask task = new TimerTask() {
-            public void run() {
-                onLocationTimer();
-            }
-        };
-        mLocTimer.schedule(task, (int) (1000.0 / (mTargetSonarRate / 10)));
-
-        // Notify bluetooth listeners
-        updateLocationCharacteristic();
-
-        long now = System.currentTimeMillis();
-        if (mLastLocTime == 0) {
-            mAveLocRate = mTargetLocRate;
-        } else {
-            double samplingRate = 1000.0 / (now - mLastLocTime);
-            //Log.d(TAG, "Rate " + (now - mLastSampleTime) + " " + samplingRate);
-            mAveLocRate = ((mAveLocRate * mTotalLocCount) + samplingRate) / (mTotalLocCount + 1);
-            mTotalLocCount++;
-        }
-        mLastSonarTime = now;
-
-        getActivity().runOnUiThread(new Runnable() {
-            public void run() {
-                updateLocDisplay();
-            }
-        });
-    }
-
     void startSampleGenerators() {
         if (mAlwaysOn)
             return;
         stopSampleGenerators();
-        Timer startTimer = new Timer();
-        TimerTask task = new TimerTask() {
-            public void run() {
-                log("Starting sample generator");
-                resetSampleCounters();
-                onSonarTimer();
-                onLocationTimer();
-            }
-        };
-        startTimer.schedule(task, 1000);
+        log("Starting sample generator");
+        mSimulator.start();
         mAlwaysOn = true;
     }
 
     void stopSampleGenerators() {
         if (mAlwaysOn)
             return;
-        if (mSonarTimer != null) {
+        if (mSimulator.isRunning()) {
             log("Stopping sample generator");
-            mSonarTimer.cancel();
-            mLocTimer.cancel();
-            mSonarTimer = null;
-            mLocTimer = null;
+            mSimulator.stop();
+            TickScheduler.Stream s = mSimulator.getSonarStream();
+            log("Sonar " + s.getTicks() + " ticks, " + s.getLateTicks() + " late, " + s.getMissedTicks() + " missed");
+            s = mSimulator.getLocationStream();
+            log("Location " + s.getTicks() + " ticks, " + s.getLateTicks() + " late, " + s.getMissedTicks() + " missed");
         }
     }
 }
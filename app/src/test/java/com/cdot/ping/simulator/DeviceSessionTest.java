@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2020 C-Dot Consultants
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.cdot.ping.simulator;
+
+import com.cdot.ping.simulator.core.MetricsRegistry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DeviceSessionTest {
+    private static final int SAMPLE = 0, LOCATION = 1;
+
+    private static DeviceSession newSession() {
+        DeviceSession session = new DeviceSession(null, "00:11:22:33:44:55", 2, new MetricsRegistry(), 8, 8);
+        session.setSubscription(SAMPLE, DeviceSession.NOTIFY);
+        session.setSubscription(LOCATION, DeviceSession.NOTIFY);
+        return session;
+    }
+
+    @Test
+    public void queueIsOldestFirst() {
+        DeviceSession session = newSession();
+        session.offer(LOCATION, new byte[]{1, 2}, 0, 2, 0);
+        session.offer(SAMPLE, new byte[]{3, 4, 5}, 0, 3, 0);
+        assertEquals(2, session.depth());
+        assertEquals(LOCATION, session.next());
+        byte[] value = new byte[session.getLength(LOCATION)];
+        session.take(LOCATION, value);
+        assertArrayEquals(new byte[]{1, 2}, value);
+        assertEquals(SAMPLE, session.next());
+        value = new byte[session.getLength(SAMPLE)];
+        session.take(SAMPLE, value);
+        assertArrayEquals(new byte[]{3, 4, 5}, value);
+        assertEquals(-1, session.next());
+    }
+
+    @Test
+    public void unsubscribeWhileQueued() {
+        DeviceSession session = newSession();
+        session.offer(SAMPLE, new byte[]{1}, 0, 1, 0);
+        session.offer(LOCATION, new byte[]{2}, 0, 1, 0);
+        session.setSubscription(SAMPLE, DeviceSession.UNSUBSCRIBED);
+        assertEquals(1, session.depth());
+        assertEquals(LOCATION, session.next());
+    }
+
+    @Test
+    public void queuedAfterUnsubscribing() {
+        // A sender that checked the subscription just before the device unsubscribed
+        // can still queue a packet; it mustn't block the other characteristics
+        DeviceSession session = newSession();
+        session.setSubscription(SAMPLE, DeviceSession.UNSUBSCRIBED);
+        session.offer(SAMPLE, new byte[]{1}, 0, 1, 0);
+        session.offer(LOCATION, new byte[]{2}, 0, 1, 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(LOCATION, session.next());
+            session.take(LOCATION, new byte[1]);
+            assertEquals(-1, session.next());
+            assertEquals(0, session.depth());
+            session.offer(LOCATION, new byte[]{2}, 0, 1, 0);
+        }
+    }
+}
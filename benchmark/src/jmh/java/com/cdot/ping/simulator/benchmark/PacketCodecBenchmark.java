@@ -0,0 +1,63 @@
+package com.cdot.ping.simulator.benchmark;
+
+import com.cdot.ping.simulator.core.DemoSampleGenerator;
+import com.cdot.ping.simulator.core.PacketCodec;
+import com.cdot.ping.simulator.core.Sample;
+import com.cdot.ping.simulator.core.SampleGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding the sonar and location packets sent on each tick. The
+ * samples are generated up front so only the encoding is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PacketCodecBenchmark {
+
+    // Enough distinct samples that the encoder can't be specialised for one value
+    private static final int SAMPLES = 1024;
+
+    Sample[] mSamples = new Sample[SAMPLES];
+    byte[] mSonarPacket = new byte[PacketCodec.SONAR_PACKET_SIZE];
+    byte[] mLocPacket = new byte[PacketCodec.LOCATION_PACKET_SIZE];
+    int mNext = 0;
+
+    @Setup
+    public void setup() {
+        SampleGenerator gen = new DemoSampleGenerator();
+        for (int i = 0; i < SAMPLES; i++) {
+            // Generators may reuse the sample they return, so take a copy
+            Sample s = gen.getSample();
+            mSamples[i] = new Sample(s.latitude, s.longitude, s.time, s.depth, s.strength,
+                    s.fishDepth, s.fishStrength, s.battery, s.temperature);
+        }
+    }
+
+    private Sample next() {
+        Sample s = mSamples[mNext];
+        mNext = (mNext + 1) & (SAMPLES - 1);
+        return s;
+    }
+
+    @Benchmark
+    public byte[] encodeSonar() {
+        PacketCodec.encodeSonar(next(), false, mSonarPacket, 0);
+        return mSonarPacket;
+    }
+
+    @Benchmark
+    public byte[] encodeLocation() {
+        PacketCodec.encodeLocation(next(), mLocPacket, 0);
+        return mLocPacket;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cdot.ping.simulator.benchmark;
+
+import com.cdot.ping.simulator.core.BatteryStage;
+import com.cdot.ping.simulator.core.DemoSampleGenerator;
+import com.cdot.ping.simulator.core.DropoutStage;
+import com.cdot.ping.simulator.core.FlatlineSampleGenerator;
+import com.cdot.ping.simulator.core.NoiseStage;
+import com.cdot.ping.simulator.core.RangeStage;
+import com.cdot.ping.simulator.core.Sample;
+import com.cdot.ping.simulator.core.SampleGenerator;
+import com.cdot.ping.simulator.core.SamplePipeline;
+import com.cdot.ping.simulator.core.TemperatureStage;
+import com.cdot.ping.simulator.core.WaveSampleGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating one sample with each of the generators, i.e. the
+ * generator share of a single sonar tick, both stepping with getSample()
+ * and time-addressed with sampleAt() and fill(). pipelineFill is the wave
+ * through every cheap stage, to show what the stages add.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SampleGeneratorBenchmark {
+
+    SampleGenerator mDemo = new DemoSampleGenerator();
+    SampleGenerator mWave = new WaveSampleGenerator();
+    SampleGenerator mFlatline = new FlatlineSampleGenerator();
+    SampleGenerator mPipeline = new SamplePipeline(new WaveSampleGenerator(), new NoiseStage(), new RangeStage(),
+            new DropoutStage(0.05), new BatteryStage(8), new TemperatureStage(15, 4));
+
+    @Setup
+    public void setup() {
+        // Noisy, so every stage has work to do
+        mPipeline.configure(70, 2, 3);
+    }
+
+    @Benchmark
+    public void demo(Blackhole bh) {
+        bh.consume(mDemo.getSample());
+    }
+
+    @Benchmark
+    public void wave(Blackhole bh) {
+        bh.consume(mWave.getSample());
+    }
+
+    @Benchmark
+    public void flatline(Blackhole bh) {
+        bh.consume(mFlatline.getSample());
+    }
+
+    // Simulated time for the sampleAt() benchmarks, advanced as if ticking at 100Hz
+    long mTime = 0;
+
+    private long nextTime() {
+        return mTime += 10000000L;
+    }
+
+    @Benchmark
+    public void demoAt(Blackhole bh) {
+        bh.consume(mDemo.sampleAt(nextTime()));
+    }
+
+    @Benchmark
+    public void waveAt(Blackhole bh) {
+        bh.consume(mWave.sampleAt(nextTime()));
+    }
+
+    @Benchmark
+    public void flatlineAt(Blackhole bh) {
+        bh.consume(mFlatline.sampleAt(nextTime()));
+    }
+
+    // Caller-owned sample for the fill() benchmarks
+    final Sample mSample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    @Benchmark
+    public void demoFill(Blackhole bh) {
+        mDemo.fill(mSample, nextTime());
+        bh.consume(mSample);
+    }
+
+    @Benchmark
+    public void waveFill(Blackhole bh) {
+        mWave.fill(mSample, nextTime());
+        bh.consume(mSample);
+    }
+
+    @Benchmark
+    public void flatlineFill(Blackhole bh) {
+        mFlatline.fill(mSample, nextTime());
+        bh.consume(mSample);
+    }
+
+    @Benchmark
+    public void pipelineFill(Blackhole bh) {
+        mPipeline.fill(mSample, nextTime());
+        bh.consume(mSample);
+    }
+}
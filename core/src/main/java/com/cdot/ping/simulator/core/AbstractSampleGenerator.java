@@ -0,0 +1,36 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Time handling shared by the generators: getSample() and sampleAt() are both answered
+ * by fill(), into a sample reused for every call, so subclasses only have to say what
+ * the sample is at a point in simulated time. getSample() follows the generator's clock,
+ * the system clock unless setClock() says otherwise.
+ */
+public abstract class AbstractSampleGenerator implements SampleGenerator {
+    private Clock mClock = Clock.SYSTEM;
+    long startTime = -1;
+    // Sample returned by getSample() and sampleAt(), reused for every call
+    private final Sample mSample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Set the clock getSample() follows, and start again from its current time
+     */
+    public void setClock(Clock clock) {
+        mClock = clock;
+        startTime = -1;
+    }
+
+    public Sample getSample() {
+        long now = mClock.currentTimeMillis();
+        if (startTime < 0)
+            startTime = now;
+        sampleAt((now - startTime) * 1000000L);
+        mSample.time = now;
+        return mSample;
+    }
+
+    public Sample sampleAt(long timeNanos) {
+        fill(mSample, timeNanos);
+        return mSample;
+    }
+}
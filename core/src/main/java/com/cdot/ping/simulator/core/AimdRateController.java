@@ -0,0 +1,85 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Finds the highest rate a client can sustain, by additive increase, multiplicative
+ * decrease (AIMD), as TCP does. While packets are delivered the rate creeps up; when
+ * there are signs of congestion (a packet failed, or was still waiting when the next
+ * one arrived) it is cut back. The rates at which congestion set in are averaged to
+ * give the client's ceiling.
+ * Events must come from one thread at a time; the rate and ceiling can be read from any.
+ */
+public class AimdRateController {
+    // Increase per second of successful delivery, Hz
+    private static final double INCREASE = 2;
+    // Factor to cut the rate by on congestion
+    private static final double DECREASE = 0.7;
+    // Minimum time between cuts, ns, so one burst of congestion only counts once
+    private static final long HOLD_OFF = 250000000L;
+    // Weight of the latest congestion rate in the ceiling
+    private static final double CEILING_WEIGHT = 0.2;
+
+    private final double mMinRate;
+    private volatile double mMaxRate;
+    private volatile double mRate;
+    private volatile double mCeiling = 0;
+    private long mLastSuccess = 0;
+    private long mLastDecrease = 0;
+
+    /**
+     * @param rate starting rate, Hz
+     * @param minRate rate never to go below, Hz
+     * @param maxRate rate never to go above, Hz
+     */
+    public AimdRateController(double rate, double minRate, double maxRate) {
+        mMinRate = minRate;
+        mMaxRate = maxRate;
+        mRate = Math.max(minRate, Math.min(rate, maxRate));
+    }
+
+    /**
+     * A packet was delivered
+     * @param now System.nanoTime()
+     */
+    public void onSuccess(long now) {
+        if (mLastSuccess != 0) {
+            // Don't leap up after an idle spell
+            double dt = Math.min(now - mLastSuccess, 1000000000L) / 1e9;
+            mRate = Math.min(mMaxRate, mRate + INCREASE * dt);
+        }
+        mLastSuccess = now;
+    }
+
+    /**
+     * A packet failed or was held up
+     * @param now System.nanoTime()
+     */
+    public void onCongestion(long now) {
+        if (mLastDecrease != 0 && now - mLastDecrease < Math.max(HOLD_OFF, (long) (1e9 / mRate)))
+            return;
+        double rate = mRate;
+        double ceiling = mCeiling;
+        mCeiling = ceiling == 0 ? rate : ceiling + CEILING_WEIGHT * (rate - ceiling);
+        mRate = Math.max(mMinRate, rate * DECREASE);
+        mLastDecrease = now;
+    }
+
+    /**
+     * @return the rate to send at, Hz
+     */
+    public double getRate() {
+        return mRate;
+    }
+
+    /**
+     * @return average of the rates at which congestion set in, Hz, or 0 if it hasn't yet
+     */
+    public double getCeiling() {
+        return mCeiling;
+    }
+
+    public void setMaxRate(double maxRate) {
+        mMaxRate = maxRate;
+        if (mRate > maxRate)
+            mRate = maxRate;
+    }
+}
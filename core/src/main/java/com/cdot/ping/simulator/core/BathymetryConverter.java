@@ -0,0 +1,250 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Converts a bathymetry grid into the binary tile form read by BathymetryGrid. The input
+ * is either an ESRI ASCII grid (.asc), or an XYZ file with one "x y z" point per line
+ * (space or comma separated) on a regular grid. Values are elevations, negative below
+ * the surface, unless -depth is given. Coordinates are taken to be longitude and latitude
+ * if they look like it, or use -geographic or -projected to say. Usage:
+ * <pre>
+ * BathymetryConverter [-depth] [-geographic|-projected] [-tile n] in.asc|in.xyz out.bin
+ * </pre>
+ * The output is written through a memory mapping, so the grid never has to fit in the heap.
+ */
+public class BathymetryConverter {
+    static final int DEFAULT_TILE = 128;
+
+    private final boolean mDepths;
+    private final Boolean mGeographic; // null to guess
+    private final int mTileSize;
+
+    // The grid being written
+    private int mColumns, mRows, mTilesX;
+    private MappedByteBuffer mOut;
+
+    /**
+     * @param depths true if the values are depths, false if they are elevations
+     * @param geographic true if coordinates are longitude and latitude, false if not,
+     *                   null to guess
+     * @param tileSize cells along each side of a tile
+     */
+    public BathymetryConverter(boolean depths, Boolean geographic, int tileSize) {
+        mDepths = depths;
+        mGeographic = geographic;
+        mTileSize = tileSize;
+    }
+
+    // Create the output, with every depth missing, and write the header
+    private void create(File out, int columns, int rows, double x0, double y0, double cellSize) throws IOException {
+        if (columns < 2 || rows < 2 || !(cellSize > 0))
+            throw new IOException("Grid must be at least 2x2 with a positive cell size");
+        long size = BathymetryGrid.fileSize(columns, rows, mTileSize);
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Grid is too large; use a smaller area or a coarser grid");
+        boolean geographic = mGeographic != null ? mGeographic
+                : Math.abs(x0) <= 180 && Math.abs(x0 + (columns - 1) * cellSize) <= 180
+                && Math.abs(y0) <= 90 && Math.abs(y0 + (rows - 1) * cellSize) <= 90 && cellSize < 1;
+        mColumns = columns;
+        mRows = rows;
+        mTilesX = BathymetryGrid.tilesAlong(columns, mTileSize);
+
+        try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+            raf.setLength(0);
+            raf.setLength(size);
+            mOut = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        mOut.putInt(BathymetryGrid.MAGIC);
+        mOut.putInt(columns);
+        mOut.putInt(rows);
+        mOut.putInt(mTileSize);
+        mOut.putInt(geographic ? BathymetryGrid.GEOGRAPHIC : 0);
+        mOut.putDouble(x0);
+        mOut.putDouble(y0);
+        mOut.putDouble(cellSize);
+        mOut.putInt(0);
+        while (mOut.hasRemaining())
+            mOut.putFloat(Float.NaN);
+    }
+
+    // Store the value at a grid point in every tile that holds it, up to 4 where tiles overlap
+    private void put(int column, int row, double value) {
+        if (column < 0 || column >= mColumns || row < 0 || row >= mRows)
+            return;
+        float depth = (float) (mDepths ? value : -value);
+        int t = mTileSize;
+        int tx = Math.min(column / t, mTilesX - 1), ty = Math.min(row / t, (mRows - 2) / t);
+        for (int y = ty; y >= 0 && y * t + t >= row; y--)
+            for (int x = tx; x >= 0 && x * t + t >= column; x--) {
+                long offset = BathymetryGrid.HEADER_SIZE
+                        + ((long) (y * mTilesX + x) * (t + 1) * (t + 1)
+                        + (row - y * t) * (t + 1) + column - x * t) * Float.BYTES;
+                mOut.putFloat((int) offset, depth);
+            }
+    }
+
+    private void finish() {
+        mOut.force();
+        mOut = null;
+    }
+
+    /**
+     * Convert an ESRI ASCII grid
+     */
+    public void convertAsc(File in, File out) throws IOException {
+        try (BufferedReader r = new BufferedReader(new FileReader(in))) {
+            int columns = -1, rows = -1;
+            double x0 = Double.NaN, y0 = Double.NaN, cellSize = Double.NaN, noData = Double.NaN;
+            boolean centre = false;
+            String line;
+            // Header lines are "key value"; the data starts with the first number
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0)
+                    continue;
+                char c = line.charAt(0);
+                if (Character.isDigit(c) || c == '-' || c == '.' || c == '+')
+                    break;
+                String[] kv = line.split("\\s+");
+                if (kv.length != 2)
+                    throw new IOException("Bad header line: " + line);
+                String key = kv[0].toLowerCase();
+                double v = Double.parseDouble(kv[1]);
+                switch (key) {
+                    case "ncols": columns = (int) v; break;
+                    case "nrows": rows = (int) v; break;
+                    case "xllcorner": x0 = v; break;
+                    case "yllcorner": y0 = v; break;
+                    case "xllcenter": x0 = v; centre = true; break;
+                    case "yllcenter": y0 = v; centre = true; break;
+                    case "cellsize": cellSize = v; break;
+                    case "nodata_value": noData = v; break;
+                    default: throw new IOException("Unknown header " + kv[0]);
+                }
+            }
+            if (Double.isNaN(x0) || Double.isNaN(y0))
+                throw new IOException("Missing corner");
+            if (!centre) {
+                // Values are for the centres of the cells
+                x0 += cellSize / 2;
+                y0 += cellSize / 2;
+            }
+            create(out, columns, rows, x0, y0, cellSize);
+
+            // Rows run from north to south
+            int n = 0, total = columns * rows;
+            while (line != null) {
+                for (String field : line.trim().split("\\s+")) {
+                    if (field.length() == 0)
+                        continue;
+                    if (n == total)
+                        throw new IOException("Too many values");
+                    double v = Double.parseDouble(field);
+                    if (v != noData)
+                        put(n % columns, rows - 1 - n / columns, v);
+                    n++;
+                }
+                line = r.readLine();
+            }
+            if (n != total)
+                throw new IOException("Expected " + total + " values, found " + n);
+        }
+        finish();
+    }
+
+    /**
+     * Convert an XYZ file. The file is read twice, first to find the extent and spacing
+     * of the grid, then to fill it in.
+     */
+    public void convertXyz(File in, File out) throws IOException {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        // The grid spacing is the smallest step between successive points
+        double cellSize = Double.POSITIVE_INFINITY;
+        double lastX = Double.NaN, lastY = Double.NaN;
+        try (BufferedReader r = new BufferedReader(new FileReader(in))) {
+            double[] p = new double[3];
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (!parsePoint(line, p))
+                    continue;
+                minX = Math.min(minX, p[0]);
+                maxX = Math.max(maxX, p[0]);
+                minY = Math.min(minY, p[1]);
+                maxY = Math.max(maxY, p[1]);
+                double step = Math.max(Math.abs(p[0] - lastX), Math.abs(p[1] - lastY));
+                if (step > 0 && step < cellSize)
+                    cellSize = step;
+                lastX = p[0];
+                lastY = p[1];
+            }
+        }
+        if (Double.isInfinite(cellSize))
+            throw new IOException("Need at least two distinct points");
+        create(out, (int) Math.round((maxX - minX) / cellSize) + 1, (int) Math.round((maxY - minY) / cellSize) + 1,
+                minX, minY, cellSize);
+
+        try (BufferedReader r = new BufferedReader(new FileReader(in))) {
+            double[] p = new double[3];
+            String line;
+            while ((line = r.readLine()) != null)
+                if (parsePoint(line, p))
+                    put((int) Math.round((p[0] - minX) / cellSize), (int) Math.round((p[1] - minY) / cellSize), p[2]);
+        }
+        finish();
+    }
+
+    // Parse "x y z", returning false for blank lines, comments and headers
+    private static boolean parsePoint(String line, double[] p) throws IOException {
+        line = line.trim();
+        if (line.length() == 0 || line.startsWith("#"))
+            return false;
+        String[] fields = line.split("[\\s,]+");
+        if (fields.length < 3)
+            throw new IOException("Expected x y z: " + line);
+        try {
+            for (int i = 0; i < 3; i++)
+                p[i] = Double.parseDouble(fields[i]);
+        } catch (NumberFormatException nfe) {
+            // Column headings
+            return false;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean depths = false;
+        Boolean geographic = null;
+        int tileSize = DEFAULT_TILE;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            switch (args[i]) {
+                case "-depth": depths = true; break;
+                case "-geographic": geographic = true; break;
+                case "-projected": geographic = false; break;
+                case "-tile": tileSize = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length - i != 2)
+            throw new IllegalArgumentException(
+                    "Usage: BathymetryConverter [-depth] [-geographic|-projected] [-tile n] in.asc|in.xyz out.bin");
+        File in = new File(args[i]), out = new File(args[i + 1]);
+        BathymetryConverter c = new BathymetryConverter(depths, geographic, tileSize);
+        if (in.getName().toLowerCase().endsWith(".asc"))
+            c.convertAsc(in, out);
+        else
+            c.convertXyz(in, out);
+        try (BathymetryGrid grid = new BathymetryGrid(out)) {
+            System.out.println(grid.columns + "x" + grid.rows + " grid written to " + out
+                    + (grid.isGeographic() ? " (geographic)" : " (projected)"));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A bathymetry grid in binary tile form, as written by BathymetryConverter. Grids can be
+ * far bigger than the heap, so nothing is loaded: the tiles are memory-mapped, a region
+ * of up to REGION_SIZE bytes at a time as they are first needed, and the OS pages them
+ * in and out. Mappings are never dropped, since Java can't unmap them promptly, so
+ * there are at most file size / REGION_SIZE of them. The binary form is
+ * <pre>
+ * int    MAGIC
+ * int    columns, rows    grid points in x and y
+ * int    tile size, T     cells along each side of a tile
+ * int    flags            GEOGRAPHIC if x and y are longitude and latitude
+ * double x0, y0           coordinates of the south-west grid point
+ * double cell size        distance between grid points, in the same units as x0 and y0
+ * int    reserved
+ * float  depths[]         tiles, west to east then south to north
+ * </pre>
+ * all big-endian. Each tile holds (T + 1) x (T + 1) depths in metres, south to north then
+ * west to east, overlapping its neighbours by a row and a column so any point can be
+ * interpolated from a single tile. Missing depths, and points beyond the edge of the
+ * grid, are NaN.
+ */
+public class BathymetryGrid implements Closeable {
+    public static final int MAGIC = 0x50425459; // "PBTY"
+    public static final int GEOGRAPHIC = 1;
+    static final int HEADER_SIZE = 5 * Integer.BYTES + 3 * Double.BYTES + Integer.BYTES;
+    // Most bytes mapped at once
+    static final int REGION_SIZE = 32 * 1024 * 1024;
+
+    public final int columns, rows, tileSize, flags;
+    public final double x0, y0, cellSize;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private final int mTilesX;
+    private final int mTileBytes;
+    // Whole tiles in each region
+    private final int mRegionTiles;
+    // Regions of tiles, mapped when first needed
+    private final MappedByteBuffer[] mRegions;
+
+    /**
+     * Open a grid
+     * @param file the binary grid
+     */
+    public BathymetryGrid(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "r");
+        mChannel = mFile.getChannel();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining())
+                if (mChannel.read(header) < 0)
+                    throw new IOException("Not a bathymetry grid");
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a bathymetry grid");
+            columns = header.getInt();
+            rows = header.getInt();
+            tileSize = header.getInt();
+            flags = header.getInt();
+            x0 = header.getDouble();
+            y0 = header.getDouble();
+            cellSize = header.getDouble();
+            if (columns < 2 || rows < 2 || tileSize < 1 || !(cellSize > 0))
+                throw new IOException("Bad bathymetry grid header");
+            mTilesX = tilesAlong(columns, tileSize);
+            mTileBytes = (tileSize + 1) * (tileSize + 1) * Float.BYTES;
+            if (mChannel.size() != fileSize(columns, rows, tileSize))
+                throw new IOException("Bathymetry grid is truncated");
+        } catch (IOException ioe) {
+            mFile.close();
+            throw ioe;
+        }
+        long tiles = (long) mTilesX * tilesAlong(rows, tileSize);
+        mRegionTiles = Math.max(1, REGION_SIZE / mTileBytes);
+        mRegions = new MappedByteBuffer[(int) ((tiles + mRegionTiles - 1) / mRegionTiles)];
+    }
+
+    // Number of tiles needed to cover a number of grid points
+    static int tilesAlong(int points, int tileSize) {
+        return (points - 2) / tileSize + 1;
+    }
+
+    static long fileSize(int columns, int rows, int tileSize) {
+        return HEADER_SIZE + (long) tilesAlong(columns, tileSize) * tilesAlong(rows, tileSize)
+                * (tileSize + 1) * (tileSize + 1) * Float.BYTES;
+    }
+
+    public boolean isGeographic() {
+        return (flags & GEOGRAPHIC) != 0;
+    }
+
+    /**
+     * @return x coordinate of the centre of the grid
+     */
+    public double getCentreX() {
+        return x0 + (columns - 1) * cellSize / 2;
+    }
+
+    /**
+     * @return y coordinate of the centre of the grid
+     */
+    public double getCentreY() {
+        return y0 + (rows - 1) * cellSize / 2;
+    }
+
+    public double getWidth() {
+        return (columns - 1) * cellSize;
+    }
+
+    public double getHeight() {
+        return (rows - 1) * cellSize;
+    }
+
+    // Get a view of a tile, mapping its region if it hasn't been already
+    private FloatBuffer tile(int index) throws IOException {
+        int r = index / mRegionTiles;
+        ByteBuffer region;
+        synchronized (mRegions) {
+            if (mRegions[r] == null) {
+                long start = HEADER_SIZE + (long) r * mRegionTiles * mTileBytes;
+                mRegions[r] = mChannel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min((long) mRegionTiles * mTileBytes, mChannel.size() - start));
+            }
+            // Each thread needs its own view, since the position is changed
+            region = mRegions[r].duplicate();
+        }
+        region.position((index - r * mRegionTiles) * mTileBytes);
+        region.limit(region.position() + mTileBytes);
+        return region.slice().asFloatBuffer();
+    }
+
+    @Override // Closeable
+    public void close() throws IOException {
+        mFile.close();
+    }
+
+    public Sampler newSampler() {
+        return new Sampler();
+    }
+
+    /**
+     * Looks up depths for a single thread. Successive points are usually in the same
+     * tile, so the sampler holds on to a view of the last tile.
+     */
+    public class Sampler {
+        private int mTileIndex = -1;
+        private FloatBuffer mTile;
+
+        /**
+         * Interpolate the depth at a point from the four grid points around it. If any of
+         * them is missing, the depth is that of the nearest grid point instead, so a
+         * missing point doesn't spread to the valid ones around it.
+         * @param x x coordinate, in the grid's units
+         * @param y y coordinate, in the grid's units
+         * @return depth in metres, NaN if the grid doesn't have one there
+         */
+        public double depthAt(double x, double y) throws IOException {
+            double gx = (x - x0) / cellSize, gy = (y - y0) / cellSize;
+            if (!(gx >= 0 && gy >= 0 && gx <= columns - 1 && gy <= rows - 1))
+                return Double.NaN;
+            int cx = Math.min((int) gx, columns - 2), cy = Math.min((int) gy, rows - 2);
+            int tx = cx / tileSize, ty = cy / tileSize;
+            int index = ty * mTilesX + tx;
+            if (index != mTileIndex) {
+                mTile = tile(index);
+                mTileIndex = index;
+            }
+            FloatBuffer t = mTile;
+            int i = (cy - ty * tileSize) * (tileSize + 1) + cx - tx * tileSize;
+            float d00 = t.get(i), d10 = t.get(i + 1);
+            float d01 = t.get(i + tileSize + 1), d11 = t.get(i + tileSize + 2);
+            double u = gx - cx, v = gy - cy;
+            if (Float.isNaN(d00 + d10 + d01 + d11))
+                return v < 0.5 ? (u < 0.5 ? d00 : d10) : (u < 0.5 ? d01 : d11);
+            double a = d00 + (d10 - d00) * u;
+            double b = d01 + (d11 - d01) * u;
+            return a + (b - a) * v;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.IOException;
+
+/**
+ * A boat circling the middle of an imported bathymetry grid (see BathymetryGrid), with
+ * the depth interpolated from the grid at its position. Where the grid has no depth,
+ * such as on land or off the edge, the sounder gets no echo.
+ */
+public class BathymetrySampleGenerator extends AbstractSampleGenerator {
+    private static final double SPEED = 2; // m/s
+    private static final double M_PER_DEGREE = 111320;
+
+    private final BathymetryGrid mGrid;
+    private final BathymetryGrid.Sampler mSampler;
+    // The course, a circle filling most of the grid
+    private final double mRadius; // m
+    private final double mMetresPerUnitX, mMetresPerUnitY;
+    // Depth of the configured range, m
+    private float mMaxDepth = FishFinder.rangeDepth(FishFinder.RANGE_DEPTH.length - 1);
+
+    /**
+     * @param grid the grid, which may be shared with other generators
+     */
+    public BathymetrySampleGenerator(BathymetryGrid grid) {
+        mGrid = grid;
+        mSampler = grid.newSampler();
+        if (grid.isGeographic()) {
+            mMetresPerUnitY = M_PER_DEGREE;
+            mMetresPerUnitX = M_PER_DEGREE * Math.cos(Math.toRadians(grid.getCentreY()));
+        } else
+            mMetresPerUnitX = mMetresPerUnitY = 1;
+        mRadius = 0.4 * Math.min(grid.getWidth() * mMetresPerUnitX, grid.getHeight() * mMetresPerUnitY);
+    }
+
+    public void fill(Sample into, long timeNanos) {
+        double t = timeNanos / 1e9;
+        double theta = mRadius > 0 ? t * SPEED / mRadius : 0;
+        double x = mGrid.getCentreX() + mRadius * Math.cos(theta) / mMetresPerUnitX;
+        double y = mGrid.getCentreY() + mRadius * Math.sin(theta) / mMetresPerUnitY;
+        double bottom;
+        try {
+            bottom = mSampler.depthAt(x, y);
+        } catch (IOException ioe) {
+            bottom = Double.NaN;
+        }
+        boolean echo = bottom > 0;
+        float depth = echo ? (float) bottom : 0;
+
+        if (mGrid.isGeographic()) {
+            into.latitude = y;
+            into.longitude = x;
+        } else {
+            // Projected coordinates; put the grid near 0,0 like the other generators
+            into.latitude = (y - mGrid.getCentreY()) / M_PER_DEGREE;
+            into.longitude = (x - mGrid.getCentreX()) / M_PER_DEGREE;
+        }
+        into.time = timeNanos / 1000000L;
+        into.depth = depth;
+        into.strength = echo ? (float) Math.max(20, 80 - bottom / 2) : 0;
+        into.fishDepth = (float) (depth * (0.5 + 0.3 * Math.sin(t / 7)));
+        into.fishStrength = echo ? 25 : 0;
+        into.battery = (float) (100 - (t / 60) % 100);
+        into.temperature = (float) Math.max(4, 18 - (echo ? bottom : 0) / 5);
+        RangeStage.clip(into, mMaxDepth);
+    }
+
+    // Clips to the range itself, so it is honoured even without a RangeStage
+    public void configure(int sensitivity, int noise, int range) {
+        mMaxDepth = FishFinder.rangeDepth(range);
+    }
+}
@@ -0,0 +1,26 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Runs the battery down steadily from full, until it is flat.
+ */
+public class BatteryStage implements SampleStage {
+    private final double mPercentPerNano;
+
+    /**
+     * @param hours how long a full battery lasts
+     */
+    public BatteryStage(double hours) {
+        mPercentPerNano = 100 / (hours * 3600e9);
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+    }
+
+    public boolean isTimeInvariant() {
+        return false;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        into.battery = (float) Math.max(0, 100 - timeNanos * mPercentPerNano);
+    }
+}
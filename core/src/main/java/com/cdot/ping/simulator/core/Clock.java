@@ -0,0 +1,97 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Where the simulator gets the time from, and how its threads wait for it to pass.
+ * SYSTEM is the real time; a SimulatedClock runs as fast as the threads using it can
+ * keep up, so hours of simulation take seconds.
+ * <p>
+ * Threads that wait for deadlines on the clock's behalf, such as a TickScheduler's, are
+ * attach()ed to it while they run, so that a simulated clock knows not to move on until
+ * they have all finished their work and are waiting again.
+ */
+public abstract class Clock {
+
+    /**
+     * The real time, with threads waiting by parking
+     */
+    public static final Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void parkUntil(Object blocker, long deadline) {
+            if (deadline == Long.MAX_VALUE)
+                LockSupport.park(blocker);
+            else
+                LockSupport.parkNanos(blocker, deadline - System.nanoTime());
+        }
+
+        @Override
+        public void unpark(Thread thread) {
+            LockSupport.unpark(thread);
+        }
+    };
+
+    /**
+     * @return the time in nanoseconds, from an arbitrary origin, as System.nanoTime()
+     */
+    public abstract long nanoTime();
+
+    /**
+     * @return the time in milliseconds since the epoch, as System.currentTimeMillis()
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * Wait until nanoTime() reaches a deadline, or the thread is unpark()ed. Like
+     * LockSupport.parkNanos(), may return early for no reason, so callers must check.
+     * @param blocker the object the thread is waiting on, for diagnostics
+     * @param deadline nanoTime() to wait for, Long.MAX_VALUE to wait only for unpark()
+     */
+    public abstract void parkUntil(Object blocker, long deadline);
+
+    /**
+     * Wake a thread waiting in parkUntil(), or make its next call return at once
+     */
+    public abstract void unpark(Thread thread);
+
+    /**
+     * Wait until nanoTime() reaches a deadline, however often the thread is woken
+     */
+    public void sleepUntil(long deadline) throws InterruptedException {
+        while (nanoTime() < deadline) {
+            parkUntil(this, deadline);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+
+    /**
+     * @return true if the clock keeps real time
+     */
+    public boolean isRealTime() {
+        return true;
+    }
+
+    /**
+     * Register a thread that will wait on the clock for deadlines until it is detached.
+     * Attach it before starting it, so the clock can't move on before it has run.
+     */
+    public void attach(Thread thread) {
+    }
+
+    /**
+     * Unregister a thread that has stopped waiting on the clock
+     */
+    public void detach(Thread thread) {
+    }
+}
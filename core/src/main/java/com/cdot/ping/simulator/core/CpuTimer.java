@@ -0,0 +1,11 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Source of the CPU time used by the current thread, which is platform specific
+ */
+public interface CpuTimer {
+    /**
+     * @return CPU time used by the current thread in ns
+     */
+    long currentThreadCpuTime();
+}
@@ -0,0 +1,105 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Replays a recorded track, ping-ponging back and forth over it. getSample() steps
+ * one row per call; sampleAt() follows the recorded times, interpolating between rows;
+ * rowAt() follows the recorded times a row at a time, so the packets can be pre-encoded.
+ */
+public class DemoSampleGenerator implements FiniteSampleGenerator {
+
+    // The track is only loaded the first time a demo generator is used
+    private static class Holder {
+        static final Track TRACK = Track.load("demo_track.bin");
+    }
+
+    private final Track mTrack = Holder.TRACK;
+    // Sample returned by getSample(), reused for every call
+    private final Sample mSample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    int mStep = 1, mCtr = 0;
+    // Row returned by the last call to rowAt(), where the search for the next one starts
+    private int mRow = 0;
+
+    public Sample getSample() {
+        mCtr += mStep;
+        if (mCtr == 0)
+            mStep = 1;
+        else if (mCtr == mTrack.size() - 1)
+            mStep = -1;
+        mTrack.get(mCtr, mSample);
+        return mSample;
+    }
+
+    // Map a simulation time onto a time in the track, in ms. Plays forward then
+    // backward, so one cycle is twice the length of the track.
+    private double trackTime(long timeNanos) {
+        long[] times = mTrack.time;
+        double span = times[times.length - 1] - times[0];
+        if (span <= 0)
+            return times[0];
+        double t = (timeNanos / 1e6) % (2 * span);
+        if (t < 0)
+            t += 2 * span;
+        if (t > span)
+            t = 2 * span - t;
+        return t + times[0];
+    }
+
+    public Sample sampleAt(long timeNanos) {
+        fill(mSample, timeNanos);
+        return mSample;
+    }
+
+    public void fill(Sample into, long timeNanos) {
+        long[] times = mTrack.time;
+        int last = times.length - 1;
+        if (times[last] <= times[0]) {
+            mTrack.get(0, into);
+            return;
+        }
+        double t = trackTime(timeNanos);
+        int row = mTrack.rowAt(t);
+        if (row == last)
+            mTrack.get(row, into);
+        else
+            mTrack.interpolate(row, row + 1, (t - times[row]) / (times[row + 1] - times[row]), into);
+    }
+
+    @Override // FiniteSampleGenerator
+    public Track getTrack() {
+        return mTrack;
+    }
+
+    @Override // FiniteSampleGenerator
+    public Object getKind() {
+        return DemoSampleGenerator.class;
+    }
+
+    @Override // FiniteSampleGenerator
+    public void getRow(int row, Sample into) {
+        mTrack.get(row, into);
+    }
+
+    @Override // FiniteSampleGenerator
+    public int rowAt(long timeNanos) {
+        long[] times = mTrack.time;
+        int last = times.length - 1;
+        double t = trackTime(timeNanos);
+        // Ticks are close together, so the row is nearly always the last one or a neighbour
+        int row = mRow;
+        if (times[row] <= t && (row == last || t < times[row + 1]))
+            return row;
+        if (row < last && times[row + 1] <= t && (row + 1 == last || t < times[row + 2]))
+            row++;
+        else if (row > 0 && times[row - 1] <= t && t < times[row])
+            row--;
+        else
+            row = mTrack.rowAt(t);
+        mRow = row;
+        return row;
+    }
+
+    // A recorded track, so range, sensitivity and noise are left to RangeStage and NoiseStage
+    public void configure(int sensitivity, int noise, int range) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Loses the bottom now and again, as a sounder does in aerated water or a sharp turn:
+ * time is divided into short slots, and in a random fraction of them there is no echo
+ * at all. Whether a slot drops out depends only on the seed and the slot, so the same
+ * seed always loses the same slots.
+ */
+public class DropoutStage implements SampleStage {
+    public static final long DEFAULT_SEED = 0xD209;
+    // Length of a slot, ns
+    private static final long SLOT = 250000000L;
+
+    private final long mSeed;
+    // Slots lost, as a fraction of 2^53
+    private final long mThreshold;
+
+    /**
+     * @param rate fraction of the time the bottom is lost, 0..1
+     */
+    public DropoutStage(double rate) {
+        this(rate, DEFAULT_SEED);
+    }
+
+    /**
+     * @param rate fraction of the time the bottom is lost, 0..1
+     * @param seed seed for the dropouts; give each device its own for independent dropouts
+     */
+    public DropoutStage(double rate, long seed) {
+        mThreshold = (long) (Math.max(0, Math.min(rate, 1)) * (1L << 53));
+        mSeed = seed;
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+    }
+
+    public boolean isTimeInvariant() {
+        return mThreshold == 0;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        if ((SplitMix64.mix(mSeed ^ timeNanos / SLOT) >>> 11) >= mThreshold)
+            return;
+        into.depth = 0;
+        into.strength = 0;
+        into.fishDepth = 0;
+        into.fishStrength = 0;
+    }
+}
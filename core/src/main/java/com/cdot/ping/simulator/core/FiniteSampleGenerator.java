@@ -0,0 +1,35 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * A generator that only ever produces a fixed set of samples, one for each row of a
+ * Track, so the packets for every row can be encoded once, in advance, rather than on
+ * every tick (see PacketCache).
+ */
+public interface FiniteSampleGenerator extends SampleGenerator {
+    /**
+     * @return the track the generator's rows come from, or null if in its current
+     * configuration it doesn't produce a fixed set of samples
+     */
+    Track getTrack();
+
+    /**
+     * Get the sample the generator produces for a row, which must not change while the
+     * generator is configured the same
+     * @param row index of the row in getTrack()
+     * @param into sample to fill in
+     */
+    void getRow(int row, Sample into);
+
+    /**
+     * @return an object equal to that of any other generator that produces the same rows
+     * from the same track in the same configuration, so they can share packets
+     */
+    Object getKind();
+
+    /**
+     * Get the row to send at a point in simulated time
+     * @param timeNanos time since the start of the simulation, in nanoseconds
+     * @return index of the row in getTrack()
+     */
+    int rowAt(long timeNanos);
+}
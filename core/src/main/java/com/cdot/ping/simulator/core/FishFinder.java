@@ -0,0 +1,41 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.UUID;
+
+/**
+ * Constants that describe the simulated FishFinder device
+ */
+public class FishFinder {
+    // ID bytes that characterise the fishfinder
+    public static final byte ID0 = 83;
+    public static final byte ID1 = 70;
+    // range (metres) indexed by range
+    public static final int[] RANGE_DEPTH = {
+            3, 6, 9, 18, 24, 36, 36
+    };
+    public static final String[] NOISES = {
+            "Off", "Low", "Medium", "High"
+    };
+
+    /**
+     * @return the depth of a range, in metres; out of range ranges are clamped
+     */
+    public static int rangeDepth(int range) {
+        return RANGE_DEPTH[Math.max(0, Math.min(range, RANGE_DEPTH.length - 1))];
+    }
+
+    public static final byte COMMAND_CONFIGURE = 1;
+
+    // Bluetooth services BTS_*
+    // Bluetooth characteristics BTC_*
+    // Custom service that the fishfinder implements
+    public static final UUID BTS_CUSTOM = UUID.fromString("0000fff0-0000-1000-8000-00805f9b34fb");
+    // Characteristic for samples, notified. Note that FishFinder packages battery state in the
+    // sample packet and there is no separate characteristic
+    public static final UUID BTC_SAMPLE = UUID.fromString("0000fff1-0000-1000-8000-00805f9b34fb");
+    // Characteristic used for sending packets to the device. The only command I can
+    // find that FishFinder devices support is "configure".
+    public static final UUID BTC_CONFIGURE = UUID.fromString("0000fff2-0000-1000-8000-00805f9b34fb");
+    // Simulation of location
+    public static final UUID BTC_LOCATION = UUID.fromString("0000fff3-0000-1000-8000-00805f9b34fb");
+}
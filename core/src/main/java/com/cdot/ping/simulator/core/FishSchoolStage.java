@@ -0,0 +1,257 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Adds schools of fish to samples. Thousands of fish drift in 3D around the centres of
+ * their schools, which wander slowly through the water. The fish are indexed in a
+ * uniform grid of columns of water, so each ping only looks at the fish in the cells
+ * under the transducer's cone, and reports the strongest target there as the sample's
+ * fish depth and strength.
+ * <p>
+ * The water is a square that repeats in every direction, so the boat meets fish wherever
+ * it goes. The fish move in fixed steps, however fast the pipeline is sampled, and a
+ * ping costs the same however many fish there are elsewhere.
+ */
+public class FishSchoolStage implements SampleStage {
+    public static final int DEFAULT_FISH = 2000;
+    public static final int DEFAULT_SCHOOLS = 8;
+    public static final long DEFAULT_SEED = 0xF15F;
+
+    // The water the fish live in
+    private static final float WORLD = 256; // m along each side
+    private static final float CELL = 8; // m along each side of a grid cell
+    private static final int GRID = (int) (WORLD / CELL);
+    private static final double M_PER_DEGREE = 111320;
+
+    // Movement
+    private static final long STEP = 100000000L; // ns between fish movements
+    private static final int MAX_STEPS = 50; // steps to catch up by, after a jump in time
+    private static final double SCHOOL_SPEED = 0.3; // m/s
+    private static final double SCHOOL_RADIUS = 6; // m
+    private static final double FISH_JITTER = 0.5; // m/s, random swimming
+    private static final double COHESION = 0.5; // pull back to the school, per second
+    private static final double SHALLOWEST = 2, DEEPEST = 30; // m, range of school depths
+
+    // Half the angle of the transducer's cone
+    private static final double TAN_HALF_BEAM = Math.tan(Math.toRadians(10));
+
+    private final long mSeed;
+    private final int mFish;
+    private Random mRandom;
+
+    // Schools, moving in straight lines and bobbing up and down
+    private final double[] mSchoolX, mSchoolY, mSchoolVX, mSchoolVY, mSchoolDepth, mSchoolPhase;
+    // Centres of the schools at the last step
+    private final float[] mCentreX, mCentreY, mCentreZ;
+    // Fish, as offsets from their school
+    private final int[] mSchoolOf;
+    private final float[] mOffX, mOffY, mOffZ, mVX, mVY, mVZ;
+    // Fish positions at the last step
+    private final float[] mX, mY, mZ;
+
+    // Grid, rebuilt after every step: the fish in cell c are
+    // mCellFish[mCellStart[c]] .. mCellFish[mCellStart[c + 1] - 1]
+    private final int[] mCellStart = new int[GRID * GRID + 1];
+    private final int[] mCellFish;
+    // Cell each fish is in
+    private final int[] mCell;
+
+    // Simulated time of the last step, ns, or -1 before the first
+    private long mStepTime = -1;
+    // Where the first sample was, so positions can be measured in metres from it
+    private double mOriginLat = Double.NaN, mOriginLon;
+    private double mMetresPerDegreeLon;
+
+    public FishSchoolStage() {
+        this(DEFAULT_FISH, DEFAULT_SCHOOLS, DEFAULT_SEED);
+    }
+
+    /**
+     * @param fish number of fish
+     * @param schools number of schools they swim in
+     * @param seed seed for the schools and the fish's movements
+     */
+    public FishSchoolStage(int fish, int schools, long seed) {
+        mSeed = seed;
+        mFish = fish;
+        mSchoolX = new double[schools];
+        mSchoolY = new double[schools];
+        mSchoolVX = new double[schools];
+        mSchoolVY = new double[schools];
+        mSchoolDepth = new double[schools];
+        mSchoolPhase = new double[schools];
+        mCentreX = new float[schools];
+        mCentreY = new float[schools];
+        mCentreZ = new float[schools];
+        mSchoolOf = new int[fish];
+        mOffX = new float[fish];
+        mOffY = new float[fish];
+        mOffZ = new float[fish];
+        mVX = new float[fish];
+        mVY = new float[fish];
+        mVZ = new float[fish];
+        mX = new float[fish];
+        mY = new float[fish];
+        mZ = new float[fish];
+        mCellFish = new int[fish];
+        mCell = new int[fish];
+    }
+
+    // Scatter the schools and the fish in them, the same way every time
+    private void reset(long timeNanos) {
+        mRandom = new Random(mSeed);
+        int schools = mSchoolX.length;
+        for (int s = 0; s < schools; s++) {
+            mSchoolX[s] = mRandom.nextDouble() * WORLD;
+            mSchoolY[s] = mRandom.nextDouble() * WORLD;
+            double heading = mRandom.nextDouble() * 2 * Math.PI;
+            mSchoolVX[s] = SCHOOL_SPEED * Math.cos(heading);
+            mSchoolVY[s] = SCHOOL_SPEED * Math.sin(heading);
+            mSchoolDepth[s] = SHALLOWEST + mRandom.nextDouble() * (DEEPEST - SHALLOWEST);
+            mSchoolPhase[s] = mRandom.nextDouble() * 2 * Math.PI;
+        }
+        for (int f = 0; f < mFish; f++) {
+            mSchoolOf[f] = f % schools;
+            mOffX[f] = (float) (mRandom.nextGaussian() * SCHOOL_RADIUS);
+            mOffY[f] = (float) (mRandom.nextGaussian() * SCHOOL_RADIUS);
+            mOffZ[f] = (float) (mRandom.nextGaussian() * SCHOOL_RADIUS / 3);
+            mVX[f] = mVY[f] = mVZ[f] = 0;
+        }
+        mStepTime = timeNanos;
+        place(timeNanos);
+    }
+
+    // Move the fish on to a time, a step at a time
+    private void advance(long timeNanos) {
+        if (mStepTime < 0 || timeNanos < mStepTime)
+            reset(timeNanos);
+        long steps = (timeNanos - mStepTime) / STEP;
+        if (steps == 0)
+            return;
+        float dt = STEP / 1e9f;
+        float jitter = (float) (FISH_JITTER * Math.sqrt(dt));
+        float pull = (float) (COHESION * dt);
+        for (long i = Math.max(0, steps - MAX_STEPS); i < steps; i++) {
+            for (int f = 0; f < mFish; f++) {
+                // Swim about at random, drawn back towards the middle of the school
+                mVX[f] += jitter * mRandom.nextGaussian() - pull * (mOffX[f] + mVX[f]);
+                mVY[f] += jitter * mRandom.nextGaussian() - pull * (mOffY[f] + mVY[f]);
+                mVZ[f] += jitter * mRandom.nextGaussian() - pull * (3 * mOffZ[f] + mVZ[f]);
+                mOffX[f] += mVX[f] * dt;
+                mOffY[f] += mVY[f] * dt;
+                mOffZ[f] += mVZ[f] * dt;
+            }
+        }
+        mStepTime += steps * STEP;
+        place(mStepTime);
+    }
+
+    // Work out where the fish are, and rebuild the grid by counting sort
+    private void place(long timeNanos) {
+        double t = timeNanos / 1e9;
+        int cells = GRID * GRID;
+        int[] start = mCellStart;
+        Arrays.fill(start, 0);
+        for (int s = 0; s < mSchoolX.length; s++) {
+            mCentreX[s] = wrap(mSchoolX[s] + mSchoolVX[s] * t);
+            mCentreY[s] = wrap(mSchoolY[s] + mSchoolVY[s] * t);
+            // Schools rise and sink over a few minutes
+            mCentreZ[s] = (float) (mSchoolDepth[s] * (1 + 0.3 * Math.sin(t / 60 + mSchoolPhase[s])));
+        }
+        for (int f = 0; f < mFish; f++) {
+            int s = mSchoolOf[f];
+            // Fish stay much closer than WORLD to the centre, so wrapping once is enough
+            float x = mCentreX[s] + mOffX[f];
+            if (x < 0) x += WORLD; else if (x >= WORLD) x -= WORLD;
+            float y = mCentreY[s] + mOffY[f];
+            if (y < 0) y += WORLD; else if (y >= WORLD) y -= WORLD;
+            mX[f] = x;
+            mY[f] = y;
+            mZ[f] = Math.max(0.5f, mCentreZ[s] + mOffZ[f]);
+            int c = cellOf(x, y);
+            mCell[f] = c;
+            start[c + 1]++;
+        }
+        // start[c + 1] is now the end of cell c
+        for (int c = 0; c < cells; c++)
+            start[c + 1] += start[c];
+        // Filling each cell from its end leaves start[c + 1] at the start of cell c
+        for (int f = mFish - 1; f >= 0; f--)
+            mCellFish[--start[mCell[f] + 1]] = f;
+        for (int c = 0; c < cells; c++)
+            start[c] = start[c + 1];
+        start[cells] = mFish;
+    }
+
+    private static float wrap(double v) {
+        v %= WORLD;
+        return (float) (v < 0 ? v + WORLD : v);
+    }
+
+    private static int cellOf(float x, float y) {
+        int cx = Math.min((int) (x / CELL), GRID - 1);
+        int cy = Math.min((int) (y / CELL), GRID - 1);
+        return cy * GRID + cx;
+    }
+
+    // Find the strongest fish in the cone under the boat, above the bottom
+    private void ping(Sample into) {
+        into.fishDepth = 0;
+        into.fishStrength = 0;
+        double bottom = into.depth;
+        if (!(bottom > 0))
+            return;
+        if (Double.isNaN(mOriginLat)) {
+            mOriginLat = into.latitude;
+            mOriginLon = into.longitude;
+            mMetresPerDegreeLon = M_PER_DEGREE * Math.cos(Math.toRadians(into.latitude));
+        }
+        float bx = wrap((into.longitude - mOriginLon) * mMetresPerDegreeLon);
+        float by = wrap((into.latitude - mOriginLat) * M_PER_DEGREE);
+        double reach = bottom * TAN_HALF_BEAM;
+        int cells = (int) Math.ceil(reach / CELL);
+        int cx = Math.min((int) (bx / CELL), GRID - 1), cy = Math.min((int) (by / CELL), GRID - 1);
+        double best = 0, bestDepth = 0;
+        for (int j = cy - cells; j <= cy + cells; j++) {
+            int row = ((j % GRID) + GRID) % GRID * GRID;
+            for (int i = cx - cells; i <= cx + cells; i++) {
+                int c = row + ((i % GRID) + GRID) % GRID;
+                for (int k = mCellStart[c]; k < mCellStart[c + 1]; k++) {
+                    int f = mCellFish[k];
+                    float z = mZ[f];
+                    if (z >= bottom)
+                        continue;
+                    // Shortest way round the repeating water
+                    float dx = mX[f] - bx, dy = mY[f] - by;
+                    if (dx > WORLD / 2) dx -= WORLD; else if (dx < -WORLD / 2) dx += WORLD;
+                    if (dy > WORLD / 2) dy -= WORLD; else if (dy < -WORLD / 2) dy += WORLD;
+                    double r = Math.sqrt(dx * dx + dy * dy), edge = z * TAN_HALF_BEAM;
+                    if (r >= edge)
+                        continue;
+                    // Strongest on the axis of the beam
+                    double strength = 100 * (1 - 0.7 * r / edge);
+                    if (strength > best) {
+                        best = strength;
+                        bestDepth = z;
+                    }
+                }
+            }
+        }
+        into.fishDepth = (float) bestDepth;
+        into.fishStrength = (float) best;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        advance(timeNanos);
+        ping(into);
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+    }
+
+    public boolean isTimeInvariant() {
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * A boat circling once every 30 seconds with the sounder out of the water: no bottom,
+ * no fish.
+ */
+public class FlatlineSampleGenerator extends AbstractSampleGenerator {
+
+    public void fill(Sample into, long timeNanos) {
+        // We want one complete cycle - 2 pi radians - to correspond to 30 seconds
+        // t in the range 0..30
+        float t = (float) ((timeNanos / 1e9) % 30);
+        // theta in the range 0..2pi
+        double theta = t * (2 * Math.PI) / 30.0;
+        // Describing an ellipse of 1 minute (1 nm) radius
+        into.latitude = Math.sin(theta) / 60;
+        into.longitude = Math.cos(theta) / 60;
+        into.time = timeNanos / 1000000L;
+        into.depth = -0.01f;
+        into.strength = 0;
+        into.fishDepth = 0;
+        into.fishStrength = 0;
+        into.battery = 100;
+        into.temperature = 15;
+    }
+
+    // No bottom or fish for the range to limit; sensitivity and noise are left to NoiseStage
+    public void configure(int sensitivity, int noise, int range) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Everything produced by one sonar tick: the sample and both packets encoded from it.
+ * Frames live in a FrameRing and are reused, so consumers must not hold on to them.
+ */
+public class Frame {
+    public long sequence = -1; // sequence number in the ring
+    public long deadline; // Clock.nanoTime() the tick was due
+    public long tickNanos; // Clock.nanoTime() the tick fired
+    // False if the frame was made for a location tick because the sonar stream isn't running
+    public boolean sonar;
+    public final Sample sample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+    // Buffers the packets are encoded into when they aren't pre-encoded
+    public final byte[] sonarPacket = new byte[PacketCodec.SONAR_PACKET_SIZE];
+    public final byte[] locPacket = new byte[PacketCodec.LOCATION_PACKET_SIZE];
+    // Where the packets to send are: the buffers above, or a PacketCache
+    public byte[] sonarData = sonarPacket;
+    public int sonarOffset = 0;
+    public byte[] locData = locPacket;
+    public int locOffset = 0;
+}
@@ -0,0 +1,162 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring of preallocated frames, written by a single producer and read by any
+ * number of consumers. The producer never waits for consumers: a consumer that falls
+ * more than a ring's length behind skips the frames it missed. Nothing is allocated
+ * after construction.
+ * <p>
+ * The producer claim()s the next frame, fills it in, and publish()es it. A consumer
+ * either follows every frame with a Cursor, or just looks at the latest(). Since the
+ * producer may reuse a frame while a consumer is still reading it, consumers should
+ * check isAvailable() after copying anything out of a frame.
+ * <p>
+ * The check is a seqlock-style validation, and depends on memory ordering on both sides.
+ * A frame's fields are plain, so the Java memory model lets a consumer's reads of them
+ * move after its volatile read of the published sequence, which would let it accept a
+ * frame overwritten after the check. Java 8, and Android at the app's minSdkVersion,
+ * have no load fence, so isAvailable() writes a volatile field of the ring's before it
+ * reads the sequence: no read may move after a volatile write, and no volatile read may
+ * move before one. On the other side, publish() is a volatile write, not a lazySet(),
+ * so the producer's writes into the next frame can't be seen before the publication
+ * of this one. A consumer that sees any write into a reused frame therefore sees the
+ * sequence that makes isAvailable() fail.
+ */
+public class FrameRing {
+    private final Frame[] mFrames;
+    private final int mMask;
+    // Sequence number of the last published frame, -1 if none
+    private final AtomicLong mPublished = new AtomicLong(-1);
+    // Written by consumers only, to order their reads of a frame before the re-check
+    private volatile long mFence;
+    // Producer only
+    private long mNext = 0;
+
+    /**
+     * @param capacity number of frames, must be a power of 2
+     */
+    public FrameRing(int capacity) {
+        if (capacity < 2 || (capacity & (capacity - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be a power of 2");
+        mFrames = new Frame[capacity];
+        for (int i = 0; i < capacity; i++)
+            mFrames[i] = new Frame();
+        mMask = capacity - 1;
+    }
+
+    public int capacity() {
+        return mFrames.length;
+    }
+
+    /**
+     * Producer: get the next frame to fill in
+     */
+    public Frame claim() {
+        Frame f = mFrames[(int) mNext & mMask];
+        f.sequence = mNext;
+        return f;
+    }
+
+    /**
+     * Producer: make the claimed frame visible to consumers
+     */
+    public void publish() {
+        mPublished.set(mNext++);
+    }
+
+    /**
+     * @return the sequence number of the last published frame, -1 if there isn't one
+     */
+    public long published() {
+        return mPublished.get();
+    }
+
+    /**
+     * @return the last published frame, or null if there isn't one
+     */
+    public Frame latest() {
+        long seq = mPublished.get();
+        return seq < 0 ? null : mFrames[(int) seq & mMask];
+    }
+
+    /**
+     * @return the frame with a sequence number. The producer may since have reused it, so
+     * check isAvailable() after copying anything out of it.
+     */
+    public Frame get(long seq) {
+        return mFrames[(int) seq & mMask];
+    }
+
+    /**
+     * Check a frame hasn't been, and isn't being, overwritten by the producer
+     * @param seq sequence number of the frame
+     */
+    public boolean isAvailable(long seq) {
+        // Keep the caller's reads of the frame before the read of the sequence
+        mFence = seq;
+        long published = mPublished.get();
+        // The producer may already be filling in the slot after the published one
+        return seq <= published && seq > published + 1 - mFrames.length;
+    }
+
+    /**
+     * Copy the sample from the latest frame, retrying if the producer overwrote it meanwhile
+     * @param into sample to copy into
+     * @return the sequence number of the frame copied, -1 if there isn't one
+     */
+    public long copyLatest(Sample into) {
+        while (true) {
+            long seq = mPublished.get();
+            if (seq < 0)
+                return -1;
+            into.set(mFrames[(int) seq & mMask].sample);
+            if (isAvailable(seq))
+                return seq;
+        }
+    }
+
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Follows every frame in turn, for a single consumer thread
+     */
+    public class Cursor {
+        private long mNext = mPublished.get() + 1;
+        private long mSkipped = 0;
+
+        /**
+         * @return the next frame, or null if the consumer has caught up with the producer
+         */
+        public Frame poll() {
+            long published = mPublished.get();
+            if (mNext > published)
+                return null;
+            long oldest = published + 2 - mFrames.length;
+            if (mNext < oldest) {
+                // Lapped by the producer
+                mSkipped += oldest - mNext;
+                mNext = oldest;
+            }
+            return mFrames[(int) mNext++ & mMask];
+        }
+
+        /**
+         * Check the frame poll() last returned hasn't been, and isn't being, overwritten
+         * by the producer. Call after copying anything out of the frame.
+         */
+        public boolean isAvailable() {
+            return FrameRing.this.isAvailable(mNext - 1);
+        }
+
+        /**
+         * @return number of frames skipped because the consumer fell too far behind
+         */
+        public long getSkipped() {
+            return mSkipped;
+        }
+    }
+}
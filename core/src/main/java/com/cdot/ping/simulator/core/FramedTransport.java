@@ -0,0 +1,59 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base of transports that send each payload as a frame over a socket. A frame is
+ * <pre>
+ * byte  channel, PacketCodec.channelOf(characteristic)
+ * byte  payload length
+ * long  System.nanoTime() when sent, so a receiver on the same host can measure latency
+ * byte[] payload
+ * </pre>
+ * All multi-byte values are big-endian.
+ */
+public abstract class FramedTransport implements SampleTransport {
+    public static final int HEADER_SIZE = 2 + Long.BYTES;
+    // Largest frame we can send; payloads are limited to the BLE maximum of 20 bytes
+    public static final int MAX_FRAME_SIZE = HEADER_SIZE + 20;
+
+    private final ByteBuffer mFrame = ByteBuffer.allocateDirect(MAX_FRAME_SIZE);
+    private final AtomicLong mPackets = new AtomicLong();
+    private final AtomicLong mBytes = new AtomicLong();
+    private final AtomicLong mErrors = new AtomicLong();
+    private volatile IOException mLastError;
+
+    /**
+     * Write a complete frame
+     * @param frame buffer positioned at the start of the frame, limit at the end
+     */
+    protected abstract void write(ByteBuffer frame) throws IOException;
+
+    @Override // SampleTransport
+    public synchronized void send(UUID characteristic, byte[] payload, int off, int len) {
+        mFrame.clear();
+        mFrame.put(PacketCodec.channelOf(characteristic));
+        mFrame.put((byte) len);
+        mFrame.putLong(System.nanoTime());
+        mFrame.put(payload, off, len);
+        mFrame.flip();
+        try {
+            write(mFrame);
+            mPackets.incrementAndGet();
+            mBytes.addAndGet(len);
+        } catch (IOException ioe) {
+            // Nobody listening, or the connection dropped. Count it and carry on; the
+            // scheduler must not be held up by a missing receiver.
+            mErrors.incrementAndGet();
+            mLastError = ioe;
+        }
+    }
+
+    public long getPackets() { return mPackets.get(); }
+    public long getBytes() { return mBytes.get(); }
+    public long getErrors() { return mErrors.get(); }
+    public IOException getLastError() { return mLastError; }
+}
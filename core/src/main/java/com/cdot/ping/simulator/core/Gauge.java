@@ -0,0 +1,8 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * A value sampled when metrics are exported
+ */
+public interface Gauge {
+    double get();
+}
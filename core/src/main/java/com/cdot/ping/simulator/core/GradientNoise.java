@@ -0,0 +1,74 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.Random;
+
+/**
+ * Seeded 2D gradient (Perlin) noise, and fractal noise made by summing octaves of it.
+ * The same seed always gives the same field.
+ */
+public class GradientNoise {
+    // Unit gradients at the lattice points, 8 directions
+    private static final double[] GRAD_X = {1, -1, 0, 0, 0.7071, -0.7071, 0.7071, -0.7071};
+    private static final double[] GRAD_Y = {0, 0, 1, -1, 0.7071, 0.7071, -0.7071, -0.7071};
+
+    // Permutation of 0..255, repeated so lookups don't need wrapping twice
+    private final int[] mPerm = new int[512];
+
+    public GradientNoise(long seed) {
+        Random r = new Random(seed);
+        for (int i = 0; i < 256; i++)
+            mPerm[i] = i;
+        for (int i = 255; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = mPerm[i];
+            mPerm[i] = mPerm[j];
+            mPerm[j] = t;
+        }
+        System.arraycopy(mPerm, 0, mPerm, 256, 256);
+    }
+
+    // Quintic fade, so the noise has a continuous second derivative
+    private static double fade(double t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    private double dot(int xi, int yi, double dx, double dy) {
+        int g = mPerm[mPerm[xi & 255] + (yi & 255)] & 7;
+        return GRAD_X[g] * dx + GRAD_Y[g] * dy;
+    }
+
+    /**
+     * @return noise at a point, roughly -1..1, varying over a distance of about 1
+     */
+    public double noise(double x, double y) {
+        double fx = Math.floor(x), fy = Math.floor(y);
+        int xi = (int) fx, yi = (int) fy;
+        double dx = x - fx, dy = y - fy;
+        double u = fade(dx), v = fade(dy);
+        double a = dot(xi, yi, dx, dy);
+        double b = dot(xi + 1, yi, dx - 1, dy);
+        double c = dot(xi, yi + 1, dx, dy - 1);
+        double d = dot(xi + 1, yi + 1, dx - 1, dy - 1);
+        double ab = a + (b - a) * u;
+        double cd = c + (d - c) * u;
+        // Scale so the result covers about -1..1
+        return 1.4142 * (ab + (cd - ab) * v);
+    }
+
+    /**
+     * Sum octaves of noise, each at twice the frequency and half the amplitude of the last
+     * @param octaves number of octaves
+     * @return fractal noise at a point, normalised to roughly -1..1
+     */
+    public double fractal(double x, double y, int octaves) {
+        double sum = 0, amplitude = 1, total = 0;
+        for (int i = 0; i < octaves; i++) {
+            sum += amplitude * noise(x, y);
+            total += amplitude;
+            amplitude *= 0.5;
+            x *= 2;
+            y *= 2;
+        }
+        return sum / total;
+    }
+}
@@ -0,0 +1,170 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the simulator without a phone, reporting the rates achieved. Usage:
+ * <pre>
+ * HeadlessSimulator [-source demo|wave|flatline|seabed|bathymetry:grid.bin] [-fish n]
+ *                   [-dropout fraction] [-battery hours] [-temperature C]
+ *                   [-sonar Hz] [-location Hz] [-seconds s] [-simulated]
+ *                   [-transport loopback|udp:host:port|tcp:host:port]
+ *                   [-metrics port] [-dump file]
+ * </pre>
+ * Use TransportReceiver at the other end of a udp or tcp transport. -metrics serves
+ * metrics over HTTP on localhost (see MetricsServer), -dump appends them to a file
+ * every 10 seconds. -fish adds n fish, in schools, to the source; -dropout loses the
+ * bottom for a fraction of the time; -battery runs the battery flat over so many hours;
+ * -temperature sets the mean water temperature, which then varies through the day.
+ * Noise and range are applied as the configuration written to the simulator asks.
+ * -simulated runs on a SimulatedClock, as fast as the CPU allows, so -seconds is
+ * simulated time and long runs finish in a fraction of it.
+ */
+public class HeadlessSimulator {
+    // Time between metrics dumps, ms
+    private static final long DUMP_PERIOD = 10000;
+
+    // Bathymetry grids opened so far, shared by every generator using the same file
+    private static final Map<String, BathymetryGrid> sGrids = new HashMap<>();
+
+    /**
+     * Create a source generator. Wrap it in a SamplePipeline with a NoiseStage and a
+     * RangeStage for it to honour the configuration Ping writes.
+     * @param name demo, wave, flatline, seabed, or bathymetry:grid.bin
+     */
+    static synchronized SampleGenerator createGenerator(String name) throws IOException {
+        if (name.startsWith("bathymetry:")) {
+            String path = name.substring("bathymetry:".length());
+            BathymetryGrid grid = sGrids.get(path);
+            if (grid == null) {
+                grid = new BathymetryGrid(new File(path));
+                sGrids.put(path, grid);
+            }
+            return new BathymetrySampleGenerator(grid);
+        }
+        switch (name) {
+            case "demo": return new DemoSampleGenerator();
+            case "wave": return new WaveSampleGenerator();
+            case "flatline": return new FlatlineSampleGenerator();
+            case "seabed": return new SeabedSampleGenerator();
+            default: throw new IllegalArgumentException("Unknown source " + name);
+        }
+    }
+
+    static SampleTransport createTransport(String spec) throws IOException {
+        if (spec.equals("loopback"))
+            return new LoopbackTransport(null);
+        String[] parts = spec.split(":");
+        if (parts.length == 3) {
+            InetSocketAddress to = new InetSocketAddress(parts[1], Integer.parseInt(parts[2]));
+            switch (parts[0]) {
+                case "udp": return new UdpTransport(to);
+                case "tcp": return new TcpTransport(to);
+            }
+        }
+        throw new IllegalArgumentException("Unknown transport " + spec);
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        String source = "demo", transport = "loopback", dump = null;
+        double sonarRate = 8, locRate = 1, seconds = 10;
+        int metricsPort = -1, fish = 0;
+        double dropout = 0, battery = 0, temperature = Double.NaN;
+        boolean simulated = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-source": source = args[++i]; break;
+                case "-sonar": sonarRate = Double.parseDouble(args[++i]); break;
+                case "-location": locRate = Double.parseDouble(args[++i]); break;
+                case "-seconds": seconds = Double.parseDouble(args[++i]); break;
+                case "-simulated": simulated = true; break;
+                case "-transport": transport = args[++i]; break;
+                case "-metrics": metricsPort = Integer.parseInt(args[++i]); break;
+                case "-dump": dump = args[++i]; break;
+                case "-fish": fish = Integer.parseInt(args[++i]); break;
+                case "-dropout": dropout = Double.parseDouble(args[++i]); break;
+                case "-battery": battery = Double.parseDouble(args[++i]); break;
+                case "-temperature": temperature = Double.parseDouble(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SampleTransport tx = createTransport(transport);
+        List<SampleStage> stages = new ArrayList<>();
+        if (fish > 0)
+            stages.add(new FishSchoolStage(fish, FishSchoolStage.DEFAULT_SCHOOLS, FishSchoolStage.DEFAULT_SEED));
+        stages.add(new NoiseStage());
+        stages.add(new RangeStage());
+        if (dropout > 0)
+            stages.add(new DropoutStage(dropout));
+        if (battery > 0)
+            stages.add(new BatteryStage(battery));
+        if (!Double.isNaN(temperature))
+            stages.add(new TemperatureStage((float) temperature, 4));
+        SampleGenerator generator = new SamplePipeline(createGenerator(source),
+                stages.toArray(new SampleStage[stages.size()]));
+        Clock clock = simulated ? new SimulatedClock() : Clock.SYSTEM;
+        Simulator sim = new Simulator("HeadlessSimulator", clock, generator, sonarRate, locRate, tx);
+        sim.enableStatistics();
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        sim.registerMetrics(metrics, JvmMetrics.CPU_TIMER);
+        JvmMetrics.register(metrics);
+        MetricsServer server = null;
+        if (metricsPort >= 0) {
+            server = new MetricsServer(metrics, metricsPort);
+            System.out.println("Metrics on http://localhost:" + server.getPort() + "/metrics");
+        }
+        MetricsDumper dumper = dump != null ? new MetricsDumper(metrics, new File(dump), DUMP_PERIOD) : null;
+
+        long start = clock.nanoTime(), wallStart = System.nanoTime();
+        sim.setEndTime(start + (long) (seconds * 1e9));
+        sim.start();
+        sim.awaitEnd();
+        double elapsed = (clock.nanoTime() - start) / 1e9;
+        double wallElapsed = (System.nanoTime() - wallStart) / 1e9;
+        if (dumper != null)
+            dumper.close();
+        if (server != null)
+            server.close();
+
+        report("Sonar", sim.getSonarStream(), sonarRate, elapsed);
+        report("Sonar", sim.getSonarStatistics());
+        report("Location", sim.getLocationStream(), locRate, elapsed);
+        report("Location", sim.getLocationStatistics());
+        report("  Encode time", sim.getEncodeTime());
+        if (simulated)
+            System.out.println(String.format("Simulated %.2fs in %.2fs, %.0f times real time",
+                    elapsed, wallElapsed, elapsed / wallElapsed));
+        if (tx instanceof LoopbackTransport) {
+            LoopbackTransport lt = (LoopbackTransport) tx;
+            System.out.println(String.format("%d packets, %d bytes in %.2fs", lt.getPackets(), lt.getBytes(), elapsed));
+        } else if (tx instanceof FramedTransport) {
+            FramedTransport ft = (FramedTransport) tx;
+            System.out.println(String.format("%d packets, %d bytes in %.2fs, %d send errors", ft.getPackets(), ft.getBytes(), elapsed, ft.getErrors()));
+        }
+        tx.close();
+    }
+
+    private static void report(String name, TickScheduler.Stream s, double target, double elapsed) {
+        System.out.println(String.format("%s: %d ticks, %.2fHz (target %.2fHz), %d late, %d missed, max lateness %.3fms",
+                name, s.getTicks(), s.getTicks() / elapsed, target, s.getLateTicks(), s.getMissedTicks(),
+                s.getMaxLateness() / 1e6));
+    }
+
+    private static void report(String name, StreamStatistics s) {
+        report("  " + name + " interval", s.interval);
+        report("  " + name + " latency", s.latency);
+    }
+
+    private static void report(String name, LatencyHistogram h) {
+        System.out.println(String.format("%s p50 %.3fms p99 %.3fms max %.3fms", name,
+                h.getPercentile(50) / 1e6, h.getPercentile(99) / 1e6, h.getMax() / 1e6));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cdot.ping.simulator.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Metrics of the JVM the simulator is running in. java.lang.management isn't
+ * available on Android, so this is only for running headless.
+ */
+public class JvmMetrics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static final CpuTimer CPU_TIMER = new CpuTimer() {
+        @Override
+        public long currentThreadCpuTime() {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+    };
+
+    /**
+     * Add gauges for garbage collections and heap use
+     */
+    public static void register(MetricsRegistry registry) {
+        registry.gauge("fishfinder_gc_count", "Garbage collections since the JVM started", new Gauge() {
+            @Override
+            public double get() {
+                long n = 0;
+                for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+                    n += Math.max(0, gc.getCollectionCount());
+                return n;
+            }
+        });
+        registry.gauge("fishfinder_heap_used_bytes", "Heap in use", new Gauge() {
+            @Override
+            public double get() {
+                Runtime rt = Runtime.getRuntime();
+                return rt.totalMemory() - rt.freeMemory();
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds, with buckets on a log-linear scale in the style
+ * of HdrHistogram, so any value is recorded to within 1/64 (about 1.6%) whatever its magnitude.
+ * Recording is a single array increment with no allocation. Values are recorded by a
+ * single thread; percentiles may be read from any thread.
+ */
+public class LatencyHistogram {
+    // 64 sub-buckets per power of 2
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+
+    private final long mMaxValue;
+    private final AtomicLongArray mCounts;
+    private volatile long mCount;
+    private volatile long mMax;
+    private volatile long mTotal;
+
+    /**
+     * @param maxValue largest value that can be told apart; larger values are clamped to it
+     */
+    public LatencyHistogram(long maxValue) {
+        mMaxValue = maxValue;
+        mCounts = new AtomicLongArray(indexOf(maxValue) + 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT)
+            return (int) value;
+        // Shift so the top SUB_BITS bits of the value are left
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) (value >> shift) - HALF_COUNT;
+    }
+
+    // Largest value recorded in a bucket
+    private static long highestValueAt(int index) {
+        if (index < SUB_COUNT)
+            return index;
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (index - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Record a value
+     * @param value duration in ns
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        int i = indexOf(Math.min(value, mMaxValue));
+        mCounts.lazySet(i, mCounts.get(i) + 1);
+        mCount++;
+        mTotal += value;
+        if (value > mMax)
+            mMax = value;
+    }
+
+    public long getCount() { return mCount; }
+    public long getMax() { return mMax; }
+
+    public double getMean() {
+        long count = mCount;
+        return count == 0 ? 0 : (double) mTotal / count;
+    }
+
+    /**
+     * @param percentile 0..100
+     * @return the value that percentile of the recorded values are at or below, 0 if none
+     * have been recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < mCounts.length(); i++)
+            total += mCounts.get(i);
+        if (total == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < mCounts.length(); i++) {
+            seen += mCounts.get(i);
+            if (seen >= target)
+                return Math.min(highestValueAt(i), mMax);
+        }
+        return mMax;
+    }
+
+    /**
+     * Forget all recorded values. Values recorded at the same time may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < mCounts.length(); i++)
+            mCounts.set(i, 0);
+        mCount = mTotal = mMax = 0;
+    }
+}
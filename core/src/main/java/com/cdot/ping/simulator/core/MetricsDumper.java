@@ -0,0 +1,74 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Periodically appends a MetricsRegistry to a file, as one line of JSON per dump, so a
+ * long soak test leaves a record even if nothing was scraping the MetricsServer.
+ */
+public class MetricsDumper implements Closeable {
+    private final MetricsRegistry mRegistry;
+    private final Writer mOut;
+    private final long mPeriod; // ms
+    private final Thread mThread;
+    private volatile boolean mRunning = true;
+
+    /**
+     * @param registry the metrics to dump
+     * @param file file to append to
+     * @param period time between dumps in ms
+     */
+    public MetricsDumper(MetricsRegistry registry, File file, long period) throws IOException {
+        mRegistry = registry;
+        mOut = new OutputStreamWriter(new FileOutputStream(file, true), Charset.forName("UTF-8"));
+        mPeriod = period;
+        mThread = new Thread(new Runnable() {
+            public void run() {
+                loop();
+            }
+        }, "MetricsDumper");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    private void loop() {
+        StringBuilder line = new StringBuilder();
+        while (mRunning) {
+            try {
+                Thread.sleep(mPeriod);
+            } catch (InterruptedException ie) {
+                // close() wants us to finish
+            }
+            line.setLength(0);
+            mRegistry.writeJson(line);
+            line.append('\n');
+            try {
+                mOut.write(line.toString());
+                mOut.flush();
+            } catch (IOException ioe) {
+                mRunning = false;
+            }
+        }
+    }
+
+    /**
+     * Write a last dump and close the file
+     */
+    @Override // Closeable
+    public void close() throws IOException {
+        mRunning = false;
+        mThread.interrupt();
+        try {
+            mThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        mOut.close();
+    }
+}
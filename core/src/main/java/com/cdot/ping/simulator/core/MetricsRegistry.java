@@ -0,0 +1,175 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named counters and gauges, exported as Prometheus text or JSON. Each metric may have
+ * labels, given as name, value pairs, e.g. counter("notifications_total", "...", "device", address).
+ * Registering and exporting are synchronized; counting is done directly on the
+ * StripedCounter returned, so doesn't touch the registry.
+ */
+public class MetricsRegistry {
+    private static final String COUNTER = "counter";
+    private static final String GAUGE = "gauge";
+
+    // All the metrics with the same name
+    private static class Family {
+        final String help;
+        final String type;
+        final List<String[]> labels = new ArrayList<>();
+        final List<Object> metrics = new ArrayList<>(); // StripedCounter or Gauge
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> mFamilies = new LinkedHashMap<>();
+
+    private Family family(String name, String help, String type) {
+        Family f = mFamilies.get(name);
+        if (f == null) {
+            f = new Family(help, type);
+            mFamilies.put(name, f);
+        } else if (!f.type.equals(type))
+            throw new IllegalArgumentException(name + " is a " + f.type);
+        return f;
+    }
+
+    private static int find(Family f, String[] labels) {
+        for (int i = 0; i < f.labels.size(); i++)
+            if (Arrays.equals(f.labels.get(i), labels))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Get a counter, creating it if it doesn't exist
+     * @param name metric name
+     * @param help description of the metric
+     * @param labels label name, value pairs
+     */
+    public synchronized StripedCounter counter(String name, String help, String... labels) {
+        Family f = family(name, help, COUNTER);
+        int i = find(f, labels);
+        if (i >= 0)
+            return (StripedCounter) f.metrics.get(i);
+        StripedCounter c = new StripedCounter();
+        f.labels.add(labels);
+        f.metrics.add(c);
+        return c;
+    }
+
+    /**
+     * Add a gauge, replacing any with the same name and labels
+     * @param name metric name
+     * @param help description of the metric
+     * @param gauge source of the value
+     * @param labels label name, value pairs
+     */
+    public synchronized void gauge(String name, String help, Gauge gauge, String... labels) {
+        Family f = family(name, help, GAUGE);
+        int i = find(f, labels);
+        if (i >= 0)
+            f.metrics.set(i, gauge);
+        else {
+            f.labels.add(labels);
+            f.metrics.add(gauge);
+        }
+    }
+
+    /**
+     * Remove every metric, of any name, with exactly the given labels, e.g. all those of a
+     * device that has gone away
+     * @param labels label name, value pairs
+     */
+    public synchronized void remove(String... labels) {
+        Iterator<Family> families = mFamilies.values().iterator();
+        while (families.hasNext()) {
+            Family f = families.next();
+            int i = find(f, labels);
+            if (i < 0)
+                continue;
+            f.labels.remove(i);
+            f.metrics.remove(i);
+            if (f.metrics.isEmpty())
+                families.remove();
+        }
+    }
+
+    private static double valueOf(Object metric) {
+        return metric instanceof StripedCounter ? ((StripedCounter) metric).get() : ((Gauge) metric).get();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double v) {
+        if (v == (long) v)
+            return Long.toString((long) v);
+        if (Double.isNaN(v))
+            return "NaN";
+        return Double.toString(v);
+    }
+
+    /**
+     * Write all the metrics in the Prometheus text exposition format
+     */
+    public synchronized void writePrometheus(StringBuilder out) {
+        for (Map.Entry<String, Family> e : mFamilies.entrySet()) {
+            String name = e.getKey();
+            Family f = e.getValue();
+            out.append("# HELP ").append(name).append(' ').append(f.help.replace("\n", " ")).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(f.type).append('\n');
+            for (int i = 0; i < f.metrics.size(); i++) {
+                out.append(name);
+                String[] labels = f.labels.get(i);
+                if (labels.length > 0) {
+                    out.append('{');
+                    for (int l = 0; l < labels.length; l += 2) {
+                        if (l > 0)
+                            out.append(',');
+                        out.append(labels[l]).append("=\"").append(escape(labels[l + 1])).append('"');
+                    }
+                    out.append('}');
+                }
+                out.append(' ').append(format(valueOf(f.metrics.get(i)))).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Write all the metrics as a single line JSON object,
+     * {"time":ms,"metrics":[{"name":"...","labels":{...},"value":n},...]}
+     */
+    public synchronized void writeJson(StringBuilder out) {
+        out.append("{\"time\":").append(System.currentTimeMillis()).append(",\"metrics\":[");
+        boolean first = true;
+        for (Map.Entry<String, Family> e : mFamilies.entrySet()) {
+            Family f = e.getValue();
+            for (int i = 0; i < f.metrics.size(); i++) {
+                if (!first)
+                    out.append(',');
+                first = false;
+                out.append("{\"name\":\"").append(escape(e.getKey())).append("\",\"labels\":{");
+                String[] labels = f.labels.get(i);
+                for (int l = 0; l < labels.length; l += 2) {
+                    if (l > 0)
+                        out.append(',');
+                    out.append('"').append(escape(labels[l])).append("\":\"").append(escape(labels[l + 1])).append('"');
+                }
+                double v = valueOf(f.metrics.get(i));
+                // JSON has no NaN
+                out.append("},\"value\":").append(Double.isNaN(v) ? "null" : format(v)).append('}');
+            }
+        }
+        out.append("]}");
+    }
+}
@@ -0,0 +1,102 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+
+/**
+ * Minimal HTTP server for a MetricsRegistry, listening on the loopback interface only.
+ * GET /metrics returns Prometheus text, GET /metrics.json returns JSON. Requests are
+ * handled one at a time on a single daemon thread, which is plenty for a scraper.
+ * On a phone, reach it with "adb forward tcp:port tcp:port".
+ */
+public class MetricsServer implements Closeable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final MetricsRegistry mRegistry;
+    private final ServerSocket mServer;
+
+    /**
+     * @param registry the metrics to serve
+     * @param port port to listen on, 0 for any free port
+     */
+    public MetricsServer(MetricsRegistry registry, int port) throws IOException {
+        mRegistry = registry;
+        mServer = new ServerSocket(port, 4, InetAddress.getByName(null));
+        Thread t = new Thread(new Runnable() {
+            public void run() {
+                serve();
+            }
+        }, "MetricsServer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int getPort() {
+        return mServer.getLocalPort();
+    }
+
+    private void serve() {
+        while (!mServer.isClosed()) {
+            try {
+                Socket s = mServer.accept();
+                try {
+                    handle(s);
+                } finally {
+                    s.close();
+                }
+            } catch (IOException ignore) {
+                // Client went away, or the server was closed
+            }
+        }
+    }
+
+    private void handle(Socket s) throws IOException {
+        s.setSoTimeout(5000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), UTF8));
+        String request = in.readLine();
+        if (request == null)
+            return;
+        // Skip the headers
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty())
+            ;
+
+        String[] parts = request.split(" ");
+        String path = parts.length > 1 ? parts[1] : "";
+        StringBuilder body = new StringBuilder();
+        String status = "200 OK", type;
+        if (!parts[0].equals("GET")) {
+            status = "405 Method Not Allowed";
+            type = "text/plain";
+        } else if (path.equals("/metrics")) {
+            type = "text/plain; version=0.0.4";
+            mRegistry.writePrometheus(body);
+        } else if (path.equals("/metrics.json")) {
+            type = "application/json";
+            mRegistry.writeJson(body);
+        } else {
+            status = "404 Not Found";
+            type = "text/plain";
+        }
+
+        byte[] bytes = body.toString().getBytes(UTF8);
+        String header = "HTTP/1.0 " + status + "\r\nContent-Type: " + type + "; charset=utf-8\r\nContent-Length: "
+                + bytes.length + "\r\nConnection: close\r\n\r\n";
+        OutputStream out = s.getOutputStream();
+        out.write(header.getBytes(UTF8));
+        out.write(bytes);
+        out.flush();
+    }
+
+    @Override // Closeable
+    public void close() throws IOException {
+        mServer.close();
+    }
+}
@@ -0,0 +1,103 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Makes samples look as if they came through the sounder's receiver, as set up by
+ * configure(). Noise jitters the depths and strengths and adds false echoes, more of
+ * each at higher FishFinder.NOISES levels. Sensitivity is the gain: above the default,
+ * echoes are stronger and false echoes more frequent; below it, weak echoes are lost.
+ * <p>
+ * The random numbers for each sample are drawn from a generator reseeded from the
+ * sample's time, so the same seed and time always give the same sample. With noise off
+ * the stage is time invariant.
+ */
+public class NoiseStage implements SampleStage {
+    public static final long DEFAULT_SEED = 0x401CE;
+    // Sensitivity at which strengths are unchanged
+    public static final int DEFAULT_SENSITIVITY = 50;
+
+    // Indexed by noise level, as FishFinder.NOISES
+    private static final float[] DEPTH_SIGMA = {0, 0.05f, 0.15f, 0.4f}; // m
+    private static final float[] STRENGTH_SIGMA = {0, 2, 5, 10}; // %
+    private static final float[] FALSE_ECHO_RATE = {0, 0.01f, 0.04f, 0.1f}; // per sample
+    // Mean strength of a false echo at the default sensitivity, %
+    private static final float FALSE_ECHO_STRENGTH = 12;
+    // Strength below which echoes are lost, per unit of sensitivity below the default, %
+    private static final float THRESHOLD_PER_STEP = 0.4f;
+
+    private final long mSeed;
+    private final SplitMix64 mRandom = new SplitMix64(0);
+
+    // Derived from the configuration
+    private int mNoise = 0;
+    private float mGain = 1, mThreshold = 0, mFalseEchoRate = 0;
+
+    public NoiseStage() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * @param seed seed for the noise; give each device its own for independent noise
+     */
+    public NoiseStage(long seed) {
+        mSeed = seed;
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+        int s = Math.max(0, Math.min(sensitivity, 100));
+        mNoise = Math.max(0, Math.min(noise, FishFinder.NOISES.length - 1));
+        mGain = 0.5f + s / 100f;
+        mThreshold = Math.max(0, DEFAULT_SENSITIVITY - s) * THRESHOLD_PER_STEP;
+        mFalseEchoRate = FALSE_ECHO_RATE[mNoise] * mGain;
+    }
+
+    public boolean isTimeInvariant() {
+        return mNoise == 0;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        if (mNoise == 0) {
+            receive(into);
+            return;
+        }
+        SplitMix64 r = mRandom;
+        r.setSeed(mSeed ^ SplitMix64.mix(timeNanos));
+        float depthSigma = DEPTH_SIGMA[mNoise], strengthSigma = STRENGTH_SIGMA[mNoise];
+
+        float depth = Math.max(0, into.depth + depthSigma * r.nextNormal());
+        float strength = into.strength * mGain + strengthSigma * r.nextNormal();
+        into.strength = strength < mThreshold ? 0 : Math.min(strength, 100);
+        into.depth = depth;
+
+        float fishStrength = into.fishStrength * mGain + strengthSigma * r.nextNormal();
+        float fishDepth = into.fishDepth + depthSigma * r.nextNormal();
+        if (fishStrength < mThreshold || fishDepth <= 0)
+            fishStrength = 0;
+        if (r.nextFloat() < mFalseEchoRate) {
+            // A false echo somewhere between the surface and the bottom
+            float falseStrength = FALSE_ECHO_STRENGTH * mGain * r.nextExponential();
+            if (falseStrength > fishStrength && falseStrength >= mThreshold) {
+                fishStrength = falseStrength;
+                fishDepth = r.nextFloat() * depth;
+            }
+        }
+        if (fishStrength == 0) {
+            into.fishStrength = 0;
+            into.fishDepth = 0;
+        } else {
+            into.fishStrength = Math.min(fishStrength, 100);
+            into.fishDepth = fishDepth;
+        }
+    }
+
+    // Apply the gain and threshold without any noise
+    private void receive(Sample into) {
+        float strength = into.strength * mGain;
+        into.strength = strength < mThreshold ? 0 : Math.min(strength, 100);
+        float fishStrength = into.fishStrength * mGain;
+        if (fishStrength < mThreshold) {
+            into.fishStrength = 0;
+            into.fishDepth = 0;
+        } else
+            into.fishStrength = Math.min(fishStrength, 100);
+    }
+}
@@ -0,0 +1,75 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sonar and location packets for every row a FiniteSampleGenerator produces, encoded
+ * once for one device configuration and laid out end to end in two arrays. Row i's
+ * sonar packet starts at i * SONAR_PACKET_SIZE, and its location packet at
+ * i * LOCATION_PACKET_SIZE. A cache is never modified after it is built, so packets can
+ * be sent straight out of it.
+ * <p>
+ * Caches are shared by every simulator whose generator is of the same kind (see
+ * FiniteSampleGenerator.getKind()) and has the same configuration, so a swarm doesn't
+ * hold a copy per device.
+ */
+public class PacketCache {
+    // Most caches kept for sharing; more than this and the least recently used is dropped
+    private static final int MAX_SHARED = 8;
+    // Most recently used first
+    private static final List<PacketCache> sShared = new ArrayList<>();
+
+    public final Track track;
+    public final Object kind;
+    public final int sensitivity, noise, range;
+    public final boolean dry;
+    public final byte[] sonar;
+    public final byte[] location;
+
+    private PacketCache(FiniteSampleGenerator g, Track track, int sensitivity, int noise, int range, boolean dry) {
+        this.track = track;
+        this.kind = g.getKind();
+        this.sensitivity = sensitivity;
+        this.noise = noise;
+        this.range = range;
+        this.dry = dry;
+        int rows = track.size();
+        sonar = new byte[rows * PacketCodec.SONAR_PACKET_SIZE];
+        location = new byte[rows * PacketCodec.LOCATION_PACKET_SIZE];
+        Sample sample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+        for (int i = 0; i < rows; i++) {
+            g.getRow(i, sample);
+            PacketCodec.encodeSonar(sample, dry, sonar, i * PacketCodec.SONAR_PACKET_SIZE);
+            PacketCodec.encodeLocation(sample, location, i * PacketCodec.LOCATION_PACKET_SIZE);
+        }
+    }
+
+    private boolean matches(FiniteSampleGenerator g, Track t, int s, int n, int r, boolean d) {
+        return track == t && kind.equals(g.getKind())
+                && sensitivity == s && noise == n && range == r && dry == d;
+    }
+
+    /**
+     * Get the packets for a generator, which must already be configured, encoding them
+     * if no simulator has yet
+     */
+    public static PacketCache get(FiniteSampleGenerator g, int sensitivity, int noise, int range, boolean dry) {
+        Track track = g.getTrack();
+        synchronized (sShared) {
+            for (int i = 0; i < sShared.size(); i++) {
+                PacketCache c = sShared.get(i);
+                if (c.matches(g, track, sensitivity, noise, range, dry)) {
+                    sShared.remove(i);
+                    sShared.add(0, c);
+                    return c;
+                }
+            }
+            PacketCache c = new PacketCache(g, track, sensitivity, noise, range, dry);
+            sShared.add(0, c);
+            if (sShared.size() > MAX_SHARED)
+                sShared.remove(MAX_SHARED);
+            return c;
+        }
+    }
+}
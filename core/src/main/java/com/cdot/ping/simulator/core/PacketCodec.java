@@ -0,0 +1,93 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.UUID;
+
+/**
+ * Encodes samples into the packets sent on the FishFinder characteristics. All encoding
+ * is done into caller-owned buffers, so nothing is allocated per tick.
+ */
+public class PacketCodec {
+    // Size of the packet notified on BTC_SAMPLE
+    public static final int SONAR_PACKET_SIZE = 18;
+    // Size of the packet notified on BTC_LOCATION; BLE allows a max of 20 bytes, 2 doubles is 16
+    public static final int LOCATION_PACKET_SIZE = 2 * Double.BYTES;
+
+    /**
+     * Encode a sample into a sonar packet
+     * @param sample the sample to encode
+     * @param dry true if the transducer is out of the water
+     * @param buf buffer to encode into
+     * @param off offset in buf to start the packet at, must leave room for SONAR_PACKET_SIZE bytes
+     */
+    public static void encodeSonar(Sample sample, boolean dry, byte[] buf, int off) {
+        double depthFt = sample.depthFt();
+        double fishDepthFt = sample.fishDepthFt();
+        double tempF = sample.tempF();
+
+        buf[off] = FishFinder.ID0;
+        buf[off + 1] = FishFinder.ID1;
+        buf[off + 2] = 0;
+        buf[off + 3] = 0;
+        buf[off + 4] = dry ? (byte) 0x8 : 0; // Dry. Only the top bit used
+        buf[off + 5] = 9;
+        byte whole = (byte) Math.floor(depthFt);
+        buf[off + 6] = whole;
+        buf[off + 7] = (byte) Math.floor((depthFt - whole) * 100);
+        buf[off + 8] = (byte) (sample.strength * 255 / 100); // 0..255
+        whole = (byte) Math.floor(fishDepthFt);
+        buf[off + 9] = whole;
+        buf[off + 10] = (byte) Math.floor((fishDepthFt - whole) * 100);
+        buf[off + 11] = (byte) ((int) (sample.fishStrength * 15 / 100) | ((int) Math.floor(6 * sample.battery / 100) << 4));
+        whole = (byte) Math.floor(tempF);
+        buf[off + 12] = whole;
+        buf[off + 13] = (byte) Math.floor((tempF - whole) * 100);
+        buf[off + 14] = 0;
+        buf[off + 15] = 0;
+        buf[off + 16] = 0;
+        int checksum = 0;
+        for (int i = off; i < off + SONAR_PACKET_SIZE - 1; i++)
+            checksum += buf[i];
+        buf[off + SONAR_PACKET_SIZE - 1] = (byte) (checksum & 0xFF);
+    }
+
+    /**
+     * Encode a sample into a location packet, latitude then longitude as big-endian doubles
+     * @param sample the sample to encode
+     * @param buf buffer to encode into
+     * @param off offset in buf to start the packet at, must leave room for LOCATION_PACKET_SIZE bytes
+     */
+    public static void encodeLocation(Sample sample, byte[] buf, int off) {
+        putDouble(sample.latitude, buf, off);
+        putDouble(sample.longitude, buf, off + Double.BYTES);
+    }
+
+    /**
+     * Get the channel number used to identify a characteristic in framed transports
+     * @param characteristic FishFinder.BTC_SAMPLE or FishFinder.BTC_LOCATION
+     * @return the channel number, the low byte of the characteristic's short UUID
+     */
+    public static byte channelOf(UUID characteristic) {
+        return (byte) (characteristic.getMostSignificantBits() >>> 32);
+    }
+
+    /**
+     * Inverse of channelOf
+     * @return the characteristic, or null if the channel isn't known
+     */
+    public static UUID characteristicOf(byte channel) {
+        if (channel == channelOf(FishFinder.BTC_SAMPLE))
+            return FishFinder.BTC_SAMPLE;
+        if (channel == channelOf(FishFinder.BTC_LOCATION))
+            return FishFinder.BTC_LOCATION;
+        return null;
+    }
+
+    // Same layout as ByteBuffer.putDouble with the default (big-endian) byte order
+    private static void putDouble(double d, byte[] buf, int off) {
+        long bits = Double.doubleToRawLongBits(d);
+        for (int i = Double.BYTES - 1; i >= 0; i--) {
+            buf[off + i] = (byte) bits;
+            bits >>>= 8;
+        }
+    }
+}
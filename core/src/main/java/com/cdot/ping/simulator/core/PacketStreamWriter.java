@@ -0,0 +1,257 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Writes the packets a simulated FishFinder would send over a long survey to a file, as
+ * fast as the disk will take them, for benchmarking what reads them. Usage:
+ * <pre>
+ * PacketStreamWriter [-source demo|wave|flatline|seabed|bathymetry:grid.bin] [-fish n]
+ *                    [-sonar Hz] [-location Hz] [-seconds s] [-partition s] [-threads n]
+ *                    [-sensitivity n] [-noise n] [-range n] [-dry] [-seed n] file
+ * </pre>
+ * The file is a sequence of frames, laid out as FramedTransport sends them, except that
+ * the timestamp is the simulated time of the tick, in nanoseconds from the start of the
+ * survey. Sonar and location packets are interleaved in time order, at the given rates.
+ * <p>
+ * The survey is cut into partitions of -partition simulated seconds, which are generated
+ * in parallel on a ForkJoinPool. Each partition has its own pipeline, seeded from -seed
+ * and the partition's index, so the file is the same however many cores write it. The
+ * number of packets in each partition is known in advance, so each writes its own part
+ * of the file through a large direct buffer, with no coordination between them.
+ */
+public class PacketStreamWriter {
+    // Size of each worker's write buffer
+    private static final int BUFFER_SIZE = 4 << 20;
+    private static final int SONAR_FRAME_SIZE = FramedTransport.HEADER_SIZE + PacketCodec.SONAR_PACKET_SIZE;
+    private static final int LOCATION_FRAME_SIZE = FramedTransport.HEADER_SIZE + PacketCodec.LOCATION_PACKET_SIZE;
+
+    private final String mSource;
+    private final int mFish;
+    private final long mSonarPeriod, mLocPeriod; // ns, 0 for none
+    private final long mDuration, mPartition; // ns
+    private final int mSensitivity, mNoise, mRange;
+    private final boolean mDry;
+    // Seed for each partition
+    private final long[] mSeeds;
+    // Where each partition starts in the file, and where the last ends
+    private final long[] mOffsets;
+
+    private FileChannel mChannel;
+
+    // Each worker thread's buffer, reused for every partition it writes
+    private final ThreadLocal<ByteBuffer> mBuffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * @param source name of the source generator, as for HeadlessSimulator
+     * @param fish fish per school, 0 for none
+     * @param sonarRate sonar rate in Hz, 0 for none
+     * @param locRate location rate in Hz, 0 for none
+     * @param seconds length of the survey
+     * @param partitionSeconds length of each partition
+     * @param sensitivity sensitivity, as configured by Ping
+     * @param noise noise level, as configured by Ping
+     * @param range range index, as configured by Ping
+     * @param dry true to mark the sonar packets as out of the water
+     * @param seed seed the partitions' seeds are drawn from
+     */
+    PacketStreamWriter(String source, int fish, double sonarRate, double locRate, double seconds,
+                       double partitionSeconds, int sensitivity, int noise, int range, boolean dry,
+                       long seed) {
+        mSource = source;
+        mFish = fish;
+        mSonarPeriod = sonarRate > 0 ? (long) (1e9 / sonarRate) : 0;
+        mLocPeriod = locRate > 0 ? (long) (1e9 / locRate) : 0;
+        mDuration = (long) (seconds * 1e9);
+        mPartition = (long) (partitionSeconds * 1e9);
+        mSensitivity = sensitivity;
+        mNoise = noise;
+        mRange = range;
+        mDry = dry;
+
+        int partitions = (int) ((mDuration + mPartition - 1) / mPartition);
+        SplitMix64 seeds = new SplitMix64(seed);
+        mSeeds = new long[partitions];
+        mOffsets = new long[partitions + 1];
+        for (int p = 0; p < partitions; p++) {
+            mSeeds[p] = seeds.nextLong();
+            long start = p * mPartition, end = Math.min(start + mPartition, mDuration);
+            mOffsets[p + 1] = mOffsets[p]
+                    + (ticksBefore(end, mSonarPeriod) - ticksBefore(start, mSonarPeriod)) * SONAR_FRAME_SIZE
+                    + (ticksBefore(end, mLocPeriod) - ticksBefore(start, mLocPeriod)) * LOCATION_FRAME_SIZE;
+        }
+    }
+
+    // Number of ticks, at 0, period, 2 * period..., before a time
+    private static long ticksBefore(long time, long period) {
+        return period == 0 ? 0 : (time + period - 1) / period;
+    }
+
+    private SampleGenerator createPipeline(long seed) throws IOException {
+        SplitMix64 seeds = new SplitMix64(seed);
+        List<SampleStage> stages = new ArrayList<>();
+        if (mFish > 0)
+            stages.add(new FishSchoolStage(mFish, FishSchoolStage.DEFAULT_SCHOOLS, seeds.nextLong()));
+        stages.add(new NoiseStage(seeds.nextLong()));
+        stages.add(new RangeStage());
+        SampleGenerator g = new SamplePipeline(HeadlessSimulator.createGenerator(mSource),
+                stages.toArray(new SampleStage[stages.size()]));
+        g.configure(mSensitivity, mNoise, mRange);
+        return g;
+    }
+
+    // Generate and write one partition
+    private void writePartition(int p) throws IOException {
+        SampleGenerator g = createPipeline(mSeeds[p]);
+        long start = p * mPartition, end = Math.min(start + mPartition, mDuration);
+        long nextSonar = mSonarPeriod == 0 ? Long.MAX_VALUE : ticksBefore(start, mSonarPeriod) * mSonarPeriod;
+        long nextLoc = mLocPeriod == 0 ? Long.MAX_VALUE : ticksBefore(start, mLocPeriod) * mLocPeriod;
+        Sample sample = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+        byte[] sonar = new byte[PacketCodec.SONAR_PACKET_SIZE];
+        byte[] loc = new byte[PacketCodec.LOCATION_PACKET_SIZE];
+        ByteBuffer buf = mBuffers.get();
+        buf.clear();
+        long position = mOffsets[p];
+
+        while (true) {
+            long t = Math.min(nextSonar, nextLoc);
+            if (t >= end)
+                break;
+            g.fill(sample, t);
+            if (buf.remaining() < SONAR_FRAME_SIZE + LOCATION_FRAME_SIZE)
+                position = flush(buf, position);
+            // On the same tick, sonar goes first, as the Simulator sends it
+            if (nextSonar == t) {
+                PacketCodec.encodeSonar(sample, mDry, sonar, 0);
+                buf.put(PacketCodec.channelOf(FishFinder.BTC_SAMPLE));
+                buf.put((byte) sonar.length);
+                buf.putLong(t);
+                buf.put(sonar);
+                nextSonar += mSonarPeriod;
+            }
+            if (nextLoc == t) {
+                PacketCodec.encodeLocation(sample, loc, 0);
+                buf.put(PacketCodec.channelOf(FishFinder.BTC_LOCATION));
+                buf.put((byte) loc.length);
+                buf.putLong(t);
+                buf.put(loc);
+                nextLoc += mLocPeriod;
+            }
+        }
+        position = flush(buf, position);
+        if (position != mOffsets[p + 1])
+            throw new IllegalStateException("Partition " + p + " wrote the wrong number of packets");
+    }
+
+    // Write out a buffer at a position in the file, leaving it empty
+    private long flush(ByteBuffer buf, long position) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            position += mChannel.write(buf, position);
+        buf.clear();
+        return position;
+    }
+
+    // Write a range of partitions, splitting it between the pool's threads
+    private class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int mFrom, mTo;
+
+        Task(int from, int to) {
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom == 1) {
+                try {
+                    writePartition(mFrom);
+                } catch (IOException ioe) {
+                    throw new RuntimeException(ioe);
+                }
+                return;
+            }
+            int mid = (mFrom + mTo) >>> 1;
+            invokeAll(new Task(mFrom, mid), new Task(mid, mTo));
+        }
+    }
+
+    /**
+     * Write the whole survey
+     * @param threads number of threads to write with
+     * @return number of bytes written
+     */
+    long write(File file, int threads) throws IOException {
+        long size = mOffsets[mOffsets.length - 1];
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(size);
+            mChannel = raf.getChannel();
+            if (mSeeds.length > 0)
+                new ForkJoinPool(threads).invoke(new Task(0, mSeeds.length));
+        } catch (RuntimeException re) {
+            if (re.getCause() instanceof IOException)
+                throw (IOException) re.getCause();
+            throw re;
+        } finally {
+            raf.close();
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String source = "demo", file = null;
+        double sonarRate = 8, locRate = 1, seconds = 3600, partition = 60;
+        int fish = 0, sensitivity = NoiseStage.DEFAULT_SENSITIVITY, noise = 0, range = FishFinder.RANGE_DEPTH.length - 1;
+        boolean dry = false;
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-source": source = args[++i]; break;
+                case "-fish": fish = Integer.parseInt(args[++i]); break;
+                case "-sonar": sonarRate = Double.parseDouble(args[++i]); break;
+                case "-location": locRate = Double.parseDouble(args[++i]); break;
+                case "-seconds": seconds = Double.parseDouble(args[++i]); break;
+                case "-partition": partition = Double.parseDouble(args[++i]); break;
+                case "-sensitivity": sensitivity = Integer.parseInt(args[++i]); break;
+                case "-noise": noise = Integer.parseInt(args[++i]); break;
+                case "-range": range = Integer.parseInt(args[++i]); break;
+                case "-dry": dry = true; break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                default:
+                    if (args[i].startsWith("-") || file != null)
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    file = args[i];
+            }
+        }
+        if (file == null)
+            throw new IllegalArgumentException("No file given");
+        if (partition <= 0)
+            throw new IllegalArgumentException("Partitions must be longer than 0s");
+
+        PacketStreamWriter writer = new PacketStreamWriter(source, fish, sonarRate, locRate, seconds, partition,
+                sensitivity, noise, range, dry, seed);
+        long start = System.nanoTime();
+        long bytes = writer.write(new File(file), threads);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long packets = ticksBefore(writer.mDuration, writer.mSonarPeriod) + ticksBefore(writer.mDuration, writer.mLocPeriod);
+        System.out.println(String.format("%d packets, %d bytes in %.2fs, %.0f packets/s, %.1fMB/s",
+                packets, bytes, elapsed, packets / elapsed, bytes / elapsed / (1 << 20)));
+    }
+}
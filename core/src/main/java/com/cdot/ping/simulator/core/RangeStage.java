@@ -0,0 +1,35 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Limits samples to the configured range, as the sounder would: deeper bottoms are
+ * reported at the limit of the range, and fish beyond it aren't seen at all.
+ */
+public class RangeStage implements SampleStage {
+    private float mMaxDepth = FishFinder.rangeDepth(FishFinder.RANGE_DEPTH.length - 1);
+
+    public void configure(int sensitivity, int noise, int range) {
+        mMaxDepth = FishFinder.rangeDepth(range);
+    }
+
+    public boolean isTimeInvariant() {
+        return true;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        clip(into, mMaxDepth);
+    }
+
+    /**
+     * Limit a sample to a range, as apply() does, for generators that honour the range
+     * themselves
+     * @param maxDepth depth of the range, m
+     */
+    static void clip(Sample into, float maxDepth) {
+        if (into.depth > maxDepth)
+            into.depth = maxDepth;
+        if (into.fishDepth > maxDepth) {
+            into.fishStrength = 0;
+            into.fishDepth = 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Exponentially weighted moving average of the rate of events. Unlike a cumulative
+ * average it follows the current rate, forgetting old events with the given time
+ * constant, and it shows a stall as soon as one happens.
+ * Events are marked by a single thread; the rate may be read from any thread.
+ */
+public class RateMeter {
+    private final double mTimeConstant; // ns
+    private volatile long mLast = 0;
+    private volatile double mRate = 0;
+
+    /**
+     * @param timeConstant time in seconds over which old events are forgotten
+     */
+    public RateMeter(double timeConstant) {
+        mTimeConstant = timeConstant * 1e9;
+    }
+
+    /**
+     * Record an event
+     * @param now System.nanoTime() of the event
+     */
+    public void mark(long now) {
+        long last = mLast;
+        if (last != 0 && now > last) {
+            long dt = now - last;
+            double instant = 1e9 / dt;
+            // Weight by the time since the last event, so the average doesn't depend on the rate
+            double alpha = 1 - Math.exp(-dt / mTimeConstant);
+            double rate = mRate;
+            mRate = rate == 0 ? instant : rate + alpha * (instant - rate);
+        }
+        mLast = now;
+    }
+
+    /**
+     * @param now System.nanoTime()
+     * @return the rate in Hz. If there have been no events for longer than the average
+     * interval, the rate is capped by the time since the last event.
+     */
+    public double getRate(long now) {
+        long last = mLast;
+        double rate = mRate;
+        if (last == 0)
+            return 0;
+        if (now > last)
+            rate = Math.min(rate, 1e9 / (now - last));
+        return rate;
+    }
+
+    public void reset() {
+        mLast = 0;
+        mRate = 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cdot.ping.simulator.core;
+
+public class Sample {
+    // metres to feet
+    private static final double m2ft = 3.2808399;
+
+    public double latitude; // degrees
+    public double longitude; // degrees
+    public long time; // ms
+    public float depth; // m
+    public float strength; // %
+    public float fishDepth; // m
+    public float fishStrength; // %
+    public float battery; // %
+    public float temperature; // C
+
+    /**
+     * @param lat latitude degress
+     * @param lon longitude degrees
+     * @param tim time milliseconds
+     * @param dep depth metres
+     * @param stren strength percent
+     * @param fd fishdepth metres
+     * @param fs fish strength percent
+     * @param batt battery percent
+     * @param temp temperature celcius
+     */
+    public Sample(double lat, double lon, long tim, float dep, float stren, float fd, float fs, float batt, float temp) {
+        latitude = lat;
+        longitude = lon;
+        time = tim;
+        depth = dep;
+        strength = stren;
+        fishDepth = fd;
+        fishStrength = fs;
+        temperature = temp;
+        battery = batt;
+    }
+
+    /**
+     * Copy all fields from another sample
+     */
+    public void set(Sample from) {
+        latitude = from.latitude;
+        longitude = from.longitude;
+        time = from.time;
+        depth = from.depth;
+        strength = from.strength;
+        fishDepth = from.fishDepth;
+        fishStrength = from.fishStrength;
+        battery = from.battery;
+        temperature = from.temperature;
+    }
+
+    public double depthFt() { return depth * m2ft; }
+    public double fishDepthFt() { return fishDepth * m2ft; }
+    public double tempF() { return 9 * temperature / 5.0 + 32; }
+}
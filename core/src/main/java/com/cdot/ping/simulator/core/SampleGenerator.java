@@ -0,0 +1,37 @@
+package com.cdot.ping.simulator.core;
+
+public interface SampleGenerator {
+    /**
+     * Get the next sample. Each call advances the generator, so the rate at which
+     * samples change depends on how often this is called.
+     * @return the sample, which may be reused by the next call
+     */
+    Sample getSample();
+
+    /**
+     * Get the sample at a point in simulated time. The result depends only on the time,
+     * so it is the same however often, and in whatever order, it is called.
+     * @param timeNanos time since the start of the simulation, in nanoseconds
+     * @return the sample, which may be reused by the next call
+     */
+    Sample sampleAt(long timeNanos);
+
+    /**
+     * Fill in a caller-owned sample with the sample at a point in simulated time, as
+     * sampleAt() would return it. Every field of the sample is set.
+     * @param into sample to fill in
+     * @param timeNanos time since the start of the simulation, in nanoseconds
+     */
+    void fill(Sample into, long timeNanos);
+
+    /**
+     * Configure the generator as Ping configures the FishFinder. Source generators only
+     * shape what they generate to the range, where they can; sensitivity and noise, and
+     * the range limit itself, are applied by NoiseStage and RangeStage, so a source must
+     * run in a SamplePipeline with them to honour the whole configuration.
+     * @param sensitivity 0..100
+     * @param noise index into FishFinder.NOISES
+     * @param range index into FishFinder.RANGE_DEPTH
+     */
+    void configure(int sensitivity, int noise, int range);
+}
@@ -0,0 +1,85 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A source generator followed by stages that each change its samples in place, e.g.
+ * <pre>
+ * new SamplePipeline(new SeabedSampleGenerator(), new FishSchoolStage(), new NoiseStage(seed), new RangeStage())
+ * </pre>
+ * Each tick is one pass over one sample: the source fills it in and the stages are
+ * applied in order, with no copies or allocation, and the time is only handled once.
+ * <p>
+ * While the source is finite and every stage is time invariant, the pipeline is finite
+ * too, so its packets can be pre-encoded.
+ */
+public class SamplePipeline extends AbstractSampleGenerator implements FiniteSampleGenerator {
+    private final SampleGenerator mSource;
+    private final SampleStage[] mStages;
+    // The source's kind followed by the stages' classes
+    private final List<Object> mKind;
+
+    /**
+     * @param source generator for the samples before any stage is applied
+     * @param stages stages, in the order they are applied
+     */
+    public SamplePipeline(SampleGenerator source, SampleStage... stages) {
+        mSource = source;
+        mStages = stages.clone();
+        List<Object> kind = new ArrayList<>(stages.length + 1);
+        kind.add(source instanceof FiniteSampleGenerator ? ((FiniteSampleGenerator) source).getKind() : source.getClass());
+        for (SampleStage stage : stages)
+            kind.add(stage.getClass());
+        mKind = Collections.unmodifiableList(kind);
+    }
+
+    public SampleGenerator getSource() {
+        return mSource;
+    }
+
+    public void fill(Sample into, long timeNanos) {
+        mSource.fill(into, timeNanos);
+        SampleStage[] stages = mStages;
+        for (int i = 0; i < stages.length; i++)
+            stages[i].apply(into, timeNanos);
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+        mSource.configure(sensitivity, noise, range);
+        for (SampleStage stage : mStages)
+            stage.configure(sensitivity, noise, range);
+    }
+
+    /**
+     * @return the source's track while the pipeline is finite, otherwise null
+     */
+    @Override // FiniteSampleGenerator
+    public Track getTrack() {
+        if (!(mSource instanceof FiniteSampleGenerator))
+            return null;
+        for (SampleStage stage : mStages)
+            if (!stage.isTimeInvariant())
+                return null;
+        return ((FiniteSampleGenerator) mSource).getTrack();
+    }
+
+    @Override // FiniteSampleGenerator
+    public Object getKind() {
+        return mKind;
+    }
+
+    @Override // FiniteSampleGenerator
+    public void getRow(int row, Sample into) {
+        ((FiniteSampleGenerator) mSource).getRow(row, into);
+        // The stages are time invariant, so any time will do
+        for (SampleStage stage : mStages)
+            stage.apply(into, 0);
+    }
+
+    @Override // FiniteSampleGenerator
+    public int rowAt(long timeNanos) {
+        return ((FiniteSampleGenerator) mSource).rowAt(timeNanos);
+    }
+}
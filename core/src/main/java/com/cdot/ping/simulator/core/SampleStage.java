@@ -0,0 +1,23 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * One step of a SamplePipeline, changing in place a sample that the pipeline's source,
+ * and the stages before this one, have filled in.
+ */
+public interface SampleStage {
+    /**
+     * Change a sample in place. Called on every tick, so mustn't allocate.
+     * @param sample sample to change
+     * @param timeNanos time since the start of the simulation, in nanoseconds
+     */
+    void apply(Sample sample, long timeNanos);
+
+    void configure(int sensitivity, int noise, int range);
+
+    /**
+     * @return true if in its current configuration the stage does the same to a sample
+     * whatever the time, and what it does depends only on its class and configure(), so
+     * the rows of a finite source can still be pre-encoded
+     */
+    boolean isTimeInvariant();
+}
@@ -0,0 +1,18 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.Closeable;
+import java.util.UUID;
+
+/**
+ * Somewhere the simulator can send the payloads of its notified characteristics
+ */
+public interface SampleTransport extends Closeable {
+    /**
+     * Send a payload. Called on the scheduler thread, so must not block for long.
+     * @param characteristic FishFinder.BTC_SAMPLE or FishFinder.BTC_LOCATION
+     * @param payload buffer holding the payload; only valid for the duration of the call
+     * @param off offset of the payload in the buffer
+     * @param len length of the payload
+     */
+    void send(UUID characteristic, byte[] payload, int off, int len);
+}
@@ -0,0 +1,137 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A boat circling over a procedural seabed. The seabed is fractal gradient noise,
+ * computed a tile at a time onto a grid and cached, so sampling at high rates is a
+ * bilinear lookup in a tile that is nearly always the one used last time.
+ */
+public class SeabedSampleGenerator extends AbstractSampleGenerator {
+    private static final long DEFAULT_SEED = 0x5EABED;
+
+    // Shape of the seabed
+    private static final double SHALLOWEST = 1; // m
+    private static final double DEEPEST = 40; // m
+    private static final double FEATURE_SIZE = 400; // m, wavelength of the lowest octave
+    private static final int OCTAVES = 5;
+    private static final double CONTRAST = 2;
+
+    // Tiles of the depth grid
+    private static final double CELL = 4; // m between grid points
+    private static final int TILE = 64; // cells along each side of a tile
+    private static final int MAX_TILES = 16;
+
+    // The boat's course, a wobbly circle around the origin
+    private static final double SPEED = 2; // m/s
+    private static final double RADIUS = 600; // m
+    private static final double WOBBLE = 150; // m
+    private static final double M_PER_DEGREE = 111320;
+
+    private final GradientNoise mNoise;
+    // Depth of the configured range, m
+    private float mMaxDepth = FishFinder.rangeDepth(FishFinder.RANGE_DEPTH.length - 1);
+
+    // Least recently used tiles are dropped. Each tile holds depths at the corners of its
+    // cells, (TILE + 1) squared, so interpolating never needs a neighbouring tile.
+    private final Map<Long, float[]> mTiles = new LinkedHashMap<Long, float[]>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, float[]> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    // The tile used last, which saves a map lookup on nearly every call
+    private long mTileKey = Long.MIN_VALUE;
+    private float[] mTile;
+
+    public SeabedSampleGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * @param seed seed for the seabed; the same seed always gives the same seabed
+     */
+    public SeabedSampleGenerator(long seed) {
+        mNoise = new GradientNoise(seed);
+    }
+
+    public void fill(Sample into, long timeNanos) {
+        double t = timeNanos / 1e9;
+        double theta = t * SPEED / RADIUS;
+        double r = RADIUS + WOBBLE * Math.sin(3 * theta);
+        double x = r * Math.cos(theta), y = r * Math.sin(theta);
+        double bottom = depthAt(x, y);
+
+        into.latitude = y / M_PER_DEGREE;
+        into.longitude = x / M_PER_DEGREE;
+        into.time = timeNanos / 1000000L;
+        into.depth = (float) bottom;
+        // Deeper water gives a weaker echo
+        into.strength = (float) (80 - 50 * bottom / DEEPEST);
+        // A fish hovering between the surface and the bottom
+        into.fishDepth = (float) (bottom * (0.5 + 0.3 * Math.sin(t / 7)));
+        into.fishStrength = 25;
+        // Loses 1% a minute, then starts again
+        into.battery = (float) (100 - (t / 60) % 100);
+        into.temperature = (float) (18 - 8 * bottom / DEEPEST);
+        RangeStage.clip(into, mMaxDepth);
+    }
+
+    /**
+     * @return depth of the seabed at a point, m
+     * @param x metres east of the origin
+     * @param y metres north of the origin
+     */
+    double depthAt(double x, double y) {
+        double gx = x / CELL, gy = y / CELL;
+        double fx = Math.floor(gx), fy = Math.floor(gy);
+        int cx = (int) fx, cy = (int) fy;
+        // Tile coordinates, rounding towards minus infinity
+        int tx = cx >= 0 ? cx / TILE : -1 - (-1 - cx) / TILE;
+        int ty = cy >= 0 ? cy / TILE : -1 - (-1 - cy) / TILE;
+        float[] tile = tile(tx, ty);
+        int i = (cy - ty * TILE) * (TILE + 1) + cx - tx * TILE;
+        double u = gx - fx, v = gy - fy;
+        double a = tile[i] + (tile[i + 1] - tile[i]) * u;
+        double b = tile[i + TILE + 1] + (tile[i + TILE + 2] - tile[i + TILE + 1]) * u;
+        return a + (b - a) * v;
+    }
+
+    private float[] tile(int tx, int ty) {
+        long key = ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+        if (key == mTileKey)
+            return mTile;
+        float[] tile = mTiles.get(key);
+        if (tile == null) {
+            tile = computeTile(tx, ty);
+            mTiles.put(key, tile);
+        }
+        mTileKey = key;
+        mTile = tile;
+        return tile;
+    }
+
+    private float[] computeTile(int tx, int ty) {
+        float[] tile = new float[(TILE + 1) * (TILE + 1)];
+        double scale = CELL / FEATURE_SIZE;
+        int i = 0;
+        for (int row = 0; row <= TILE; row++) {
+            double y = (ty * TILE + row) * scale;
+            for (int col = 0; col <= TILE; col++) {
+                double x = (tx * TILE + col) * scale;
+                // Fractal noise mostly stays well inside -1..1, so stretch it to give
+                // some shoals and deeps
+                double n = CONTRAST * mNoise.fractal(x, y, OCTAVES);
+                double d = SHALLOWEST + (DEEPEST - SHALLOWEST) * (n + 1) / 2;
+                tile[i++] = (float) Math.max(SHALLOWEST, Math.min(DEEPEST, d));
+            }
+        }
+        return tile;
+    }
+
+    // Clips to the range itself, so it is honoured even without a RangeStage
+    public void configure(int sensitivity, int noise, int range) {
+        mMaxDepth = FishFinder.rangeDepth(range);
+    }
+}
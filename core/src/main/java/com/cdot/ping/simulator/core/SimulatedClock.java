@@ -0,0 +1,152 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A clock that jumps straight to the next deadline rather than waiting for it, so a
+ * simulation runs as fast as the CPU allows. Time only moves on once every attached
+ * thread is waiting in parkUntil(), and then goes to the earliest deadline any thread is
+ * waiting for, so every tick still fires in order, at exactly its deadline, however
+ * many scheduler threads share the clock. Threads that aren't attached, such as one
+ * waiting for a run to finish, can wait on the clock too, but never hold it back.
+ */
+public class SimulatedClock extends Clock {
+
+    // A thread waiting on the clock
+    private static class Waiter {
+        final Thread thread;
+        final boolean attached;
+        boolean waiting = false;
+        boolean unparked = false;
+        long deadline;
+
+        Waiter(Thread thread, boolean attached) {
+            this.thread = thread;
+            this.attached = attached;
+        }
+    }
+
+    // Real time the simulated time starts from, ms since the epoch
+    private final long mEpoch;
+    // Guarded by this
+    private long mNanos = 0;
+    private final List<Waiter> mWaiters = new ArrayList<>();
+
+    public SimulatedClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * @param epoch what currentTimeMillis() says at the start of the simulation
+     */
+    public SimulatedClock(long epoch) {
+        mEpoch = epoch;
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return mNanos;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return mEpoch + mNanos / 1000000L;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    private Waiter find(Thread t) {
+        for (int i = 0; i < mWaiters.size(); i++)
+            if (mWaiters.get(i).thread == t)
+                return mWaiters.get(i);
+        return null;
+    }
+
+    @Override
+    public synchronized void attach(Thread thread) {
+        if (find(thread) == null)
+            mWaiters.add(new Waiter(thread, true));
+    }
+
+    @Override
+    public synchronized void detach(Thread thread) {
+        Waiter w = find(thread);
+        if (w != null) {
+            mWaiters.remove(w);
+            advance();
+        }
+    }
+
+    @Override
+    public synchronized void parkUntil(Object blocker, long deadline) {
+        if (deadline <= mNanos)
+            return;
+        Waiter w = find(Thread.currentThread());
+        boolean visiting = w == null;
+        if (visiting) {
+            w = new Waiter(Thread.currentThread(), false);
+            mWaiters.add(w);
+        } else if (w.unparked) {
+            w.unparked = false;
+            return;
+        }
+        w.deadline = deadline;
+        w.waiting = true;
+        advance();
+        try {
+            while (w.waiting)
+                wait();
+        } catch (InterruptedException ie) {
+            w.waiting = false;
+            Thread.currentThread().interrupt();
+        } finally {
+            w.unparked = false;
+            if (visiting) {
+                mWaiters.remove(w);
+                advance();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void unpark(Thread thread) {
+        Waiter w = find(thread);
+        if (w == null)
+            return;
+        w.unparked = true;
+        if (w.waiting) {
+            w.waiting = false;
+            notifyAll();
+        }
+    }
+
+    // Move time on to the earliest deadline, if every attached thread is waiting. Must
+    // hold the lock.
+    private void advance() {
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < mWaiters.size(); i++) {
+            Waiter w = mWaiters.get(i);
+            if (w.waiting)
+                next = Math.min(next, w.deadline);
+            else if (w.attached)
+                return;
+        }
+        if (next == Long.MAX_VALUE)
+            return;
+        mNanos = Math.max(mNanos, next);
+        boolean woken = false;
+        for (int i = 0; i < mWaiters.size(); i++) {
+            Waiter w = mWaiters.get(i);
+            if (w.waiting && w.deadline <= mNanos) {
+                w.waiting = false;
+                woken = true;
+            }
+        }
+        if (woken)
+            notifyAll();
+    }
+}
@@ -0,0 +1,583 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The simulated FishFinder, independent of any UI. A TickScheduler drives a
+ * sonar stream and a location stream. Each sonar tick samples the current generator at the
+ * tick's scheduled time and publishes a Frame, holding the sample and both packets encoded
+ * from it, to a FrameRing. Sending is a consumer of the ring, so the transport, the location
+ * stream and anything watching the ring (e.g. a UI) all see the same sample, and none of
+ * them can hold up the sonar stream.
+ * When the generator replays a finite track, the packets for every row are encoded once
+ * per configuration (see PacketCache) and each tick just points its frame at them.
+ * The scheduler may be private to the simulator, in which case packets are sent from a
+ * separate sender thread, or shared between many simulators (see Swarm), in which case
+ * they are sent from the scheduler thread after each tick. They are also sent from the
+ * scheduler thread when its clock is simulated, so the sender can't fall behind a
+ * scheduler running faster than real time.
+ */
+public class Simulator {
+
+    // Results from configure(byte[])
+    public static final int CONFIGURE_OK = 0;
+    public static final int CONFIGURE_BAD_LENGTH = 1;
+    public static final int CONFIGURE_BAD_ID = 2;
+    public static final int CONFIGURE_BAD_COMMAND = 3;
+
+    public interface Listener {
+        /**
+         * Called on the sending thread after a sonar packet has been sent
+         * @param sample the sample that was encoded, only valid during the call
+         * @param now Clock.nanoTime() of the tick
+         */
+        void onSonarTick(Sample sample, long now);
+
+        /**
+         * Called on the sending thread after a location packet has been sent
+         * @param sample the sample that was encoded, only valid during the call
+         * @param now Clock.nanoTime() of the tick
+         */
+        void onLocationTick(Sample sample, long now);
+    }
+
+    private volatile SampleTransport mTransport;
+    private volatile Listener mListener = null;
+    private final TickScheduler mScheduler;
+    private final Clock mClock;
+    // True if the scheduler was created by, and is only used by, this simulator
+    private final boolean mOwnsScheduler;
+    // True if packets are sent from a separate thread, rather than the scheduler's
+    private final boolean mHasSender;
+    private final TickScheduler.Stream mSonarStream;
+    private final TickScheduler.Stream mLocStream;
+
+    private volatile SampleGenerator mSampleGenerator;
+    private volatile boolean mDry = false;
+    // Pre-encoded packets for the generator and configuration, null if it isn't finite
+    private volatile PacketCache mPacketCache = null;
+    // Clock.nanoTime() when the simulation started; generators are sampled relative to this
+    private volatile long mStartNanos;
+    // When silent, samples are generated but not sent
+    private volatile boolean mSilent = false;
+
+    // Current device configuration
+    private int mSensitivity = 50;
+    private int mNoise = 0;
+    private int mRange = 6;
+
+    // Frames are only overwritten after this many more ticks, so a slow sender skips frames
+    // rather than holding up the scheduler
+    private static final int FRAME_RING_SIZE = 64;
+    // When the scheduler is shared, frames are sent as soon as they are published, so
+    // a small ring keeps the memory per simulator down
+    private static final int SHARED_FRAME_RING_SIZE = 4;
+    private final FrameRing mFrames;
+
+    // Count of location ticks, written by the scheduler thread
+    private volatile long mLocTicks = 0;
+    private volatile long mLocDeadline;
+    private volatile long mLocTickNanos;
+
+    // Statistics, null until enableStatistics() is called
+    private volatile StreamStatistics mSonarStatistics = null;
+    private volatile StreamStatistics mLocStatistics = null;
+    private volatile LatencyHistogram mEncodeTime = null;
+
+    // Metrics, null until registerMetrics() is called
+    private volatile StripedCounter mFramesCounter = null;
+    private volatile StripedCounter mSonarSentCounter = null;
+    private volatile StripedCounter mLocSentCounter = null;
+    private volatile StripedCounter mTickCpuCounter = null;
+    private volatile CpuTimer mCpuTimer = null;
+
+    // Sending thread only
+    private FrameRing.Cursor mCursor;
+    private long mLocTicksSent = 0;
+    // What is being sent, copied out of the ring so the producer can't overwrite it meanwhile
+    private final byte[] mSonarCopy = new byte[PacketCodec.SONAR_PACKET_SIZE];
+    private final byte[] mLocCopy = new byte[PacketCodec.LOCATION_PACKET_SIZE];
+    private final Sample mSampleCopy = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+    // Frames overwritten by the producer while they were being copied
+    private volatile long mLappedFrames = 0;
+
+    private Thread mSender = null;
+    private volatile boolean mSending = false;
+
+    /**
+     * @param name name of the scheduler thread
+     * @param generator initial sample generator
+     * @param sonarRate sonar rate in Hz
+     * @param locRate location rate in Hz
+     * @param transport where to send the encoded packets
+     */
+    public Simulator(String name, SampleGenerator generator, double sonarRate, double locRate, SampleTransport transport) {
+        this(new TickScheduler(name), true, generator, sonarRate, locRate, transport);
+    }
+
+    /**
+     * @param name name of the scheduler thread
+     * @param clock clock to run the simulation by
+     * @param generator initial sample generator
+     * @param sonarRate sonar rate in Hz
+     * @param locRate location rate in Hz
+     * @param transport where to send the encoded packets
+     */
+    public Simulator(String name, Clock clock, SampleGenerator generator, double sonarRate, double locRate,
+                     SampleTransport transport) {
+        this(new TickScheduler(name, clock), true, generator, sonarRate, locRate, transport);
+    }
+
+    /**
+     * Construct a simulator whose streams are driven by a shared scheduler. The streams are
+     * created paused; start() and stop() pause and resume them, and don't touch the scheduler.
+     * @param scheduler the shared scheduler
+     * @param generator initial sample generator
+     * @param sonarRate sonar rate in Hz
+     * @param locRate location rate in Hz
+     * @param transport where to send the encoded packets
+     */
+    public Simulator(TickScheduler scheduler, SampleGenerator generator, double sonarRate, double locRate, SampleTransport transport) {
+        this(scheduler, false, generator, sonarRate, locRate, transport);
+    }
+
+    private Simulator(TickScheduler scheduler, boolean owner, SampleGenerator generator, double sonarRate, double locRate, SampleTransport transport) {
+        mSampleGenerator = generator;
+        updatePacketCache();
+        mTransport = transport;
+        mScheduler = scheduler;
+        mClock = scheduler.getClock();
+        mStartNanos = mClock.nanoTime();
+        mOwnsScheduler = owner;
+        mHasSender = owner && mClock.isRealTime();
+        mFrames = new FrameRing(mHasSender ? FRAME_RING_SIZE : SHARED_FRAME_RING_SIZE);
+        mCursor = mFrames.newCursor();
+        mSonarStream = mScheduler.addStream(sonarRate, new TickScheduler.TickListener() {
+            @Override
+            public void onTick(TickScheduler.Stream stream, long deadline, long now) {
+                onSonarTick(deadline, now);
+            }
+        });
+        mLocStream = mScheduler.addStream(locRate, new TickScheduler.TickListener() {
+            @Override
+            public void onTick(TickScheduler.Stream stream, long deadline, long now) {
+                onLocationTick(deadline, now);
+            }
+        });
+        if (!owner) {
+            mSonarStream.setPaused(true);
+            mLocStream.setPaused(true);
+        }
+    }
+
+    public SampleTransport getTransport() {
+        return mTransport;
+    }
+
+    public void setTransport(SampleTransport transport) {
+        mTransport = transport;
+    }
+
+    /**
+     * Set a listener to be told about each tick, or null for none
+     */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    public SampleGenerator getSampleGenerator() {
+        return mSampleGenerator;
+    }
+
+    /**
+     * Switch to a different generator, configured the same as the current one
+     */
+    public synchronized void setSampleGenerator(SampleGenerator generator) {
+        generator.configure(mSensitivity, mNoise, mRange);
+        mSampleGenerator = generator;
+        updatePacketCache();
+    }
+
+    public synchronized void configure(int sensitivity, int noise, int range) {
+        mSensitivity = sensitivity;
+        mNoise = noise;
+        mRange = range;
+        mSampleGenerator.configure(sensitivity, noise, range);
+        updatePacketCache();
+    }
+
+    // Pre-encode the packets for a finite generator, now rather than on the next tick,
+    // so the scheduler thread never has to. Must hold the lock.
+    private void updatePacketCache() {
+        SampleGenerator g = mSampleGenerator;
+        mPacketCache = g instanceof FiniteSampleGenerator && ((FiniteSampleGenerator) g).getTrack() != null
+                ? PacketCache.get((FiniteSampleGenerator) g, mSensitivity, mNoise, mRange, mDry)
+                : null;
+    }
+
+    /**
+     * Handle a configuration command, as written by Ping to BTC_CONFIGURE
+     * @param value the command packet
+     * @return one of the CONFIGURE_* results
+     */
+    public int configure(byte[] value) {
+        // Data should be 12 bytes
+        if (value.length != 12)
+            return CONFIGURE_BAD_LENGTH;
+        if (value[0] != FishFinder.ID0 || value[1] != FishFinder.ID1)
+            return CONFIGURE_BAD_ID;
+        byte command = value[4]; // must be COMMAND_CONFIGURE
+        byte size = value[5]; // must be 3
+        if (command != FishFinder.COMMAND_CONFIGURE || size != 3)
+            return CONFIGURE_BAD_COMMAND;
+        configure(value[6], value[7], value[8]);
+        return CONFIGURE_OK;
+    }
+
+    public synchronized int getSensitivity() { return mSensitivity; }
+    public synchronized int getNoise() { return mNoise; }
+    public synchronized int getRange() { return mRange; }
+
+    public boolean isDry() { return mDry; }
+    public synchronized void setDry(boolean dry) {
+        mDry = dry;
+        updatePacketCache();
+    }
+
+    public boolean isSilent() { return mSilent; }
+    public void setSilent(boolean silent) { mSilent = silent; }
+
+    public Clock getClock() { return mClock; }
+
+    public TickScheduler.Stream getSonarStream() { return mSonarStream; }
+    public TickScheduler.Stream getLocationStream() { return mLocStream; }
+
+    public boolean isRunning() {
+        return mOwnsScheduler ? mScheduler.isRunning() : !mSonarStream.isPaused();
+    }
+
+    /**
+     * Get the ring the frames are published to, for consumers that want to follow the samples
+     */
+    public FrameRing getFrames() {
+        return mFrames;
+    }
+
+    /**
+     * @return the number of frames the sender has skipped because it fell too far behind
+     */
+    public long getSkippedFrames() {
+        return mCursor.getSkipped() + mLappedFrames;
+    }
+
+    /**
+     * Start measuring the rates and latencies of the streams, and the time taken to
+     * encode packets. Off by default, to keep the memory per simulator down in a swarm.
+     */
+    public synchronized void enableStatistics() {
+        if (mSonarStatistics != null)
+            return;
+        mSonarStatistics = new StreamStatistics();
+        mLocStatistics = new StreamStatistics();
+        mEncodeTime = new LatencyHistogram(StreamStatistics.MAX_DURATION);
+    }
+
+    /**
+     * @return statistics of the sonar packets sent, or null if they aren't enabled
+     */
+    public StreamStatistics getSonarStatistics() { return mSonarStatistics; }
+
+    /**
+     * @return statistics of the location packets sent, or null if they aren't enabled
+     */
+    public StreamStatistics getLocationStatistics() { return mLocStatistics; }
+
+    /**
+     * @return histogram of the time taken to encode each frame's packets, or null if
+     * statistics aren't enabled
+     */
+    public LatencyHistogram getEncodeTime() { return mEncodeTime; }
+
+    /**
+     * Reset the scheduler's statistics for both streams, and the measurements taken if
+     * statistics are enabled
+     */
+    public void resetStatistics() {
+        mSonarStream.resetStatistics();
+        mLocStream.resetStatistics();
+        if (mSonarStatistics != null) {
+            mSonarStatistics.reset();
+            mLocStatistics.reset();
+            mEncodeTime.reset();
+        }
+    }
+
+    /**
+     * Export counters and gauges for the simulator's ticks and packets
+     * @param registry where to register them
+     * @param cpuTimer used to measure the CPU time used by each tick, or null not to
+     */
+    public void registerMetrics(MetricsRegistry registry, CpuTimer cpuTimer) {
+        mTickCpuCounter = registry.counter("fishfinder_tick_cpu_nanoseconds_total", "CPU time spent generating and encoding frames");
+        mFramesCounter = registry.counter("fishfinder_frames_total", "Frames generated");
+        mSonarSentCounter = registry.counter("fishfinder_packets_sent_total", "Packets sent", "stream", "sonar");
+        mLocSentCounter = registry.counter("fishfinder_packets_sent_total", "Packets sent", "stream", "location");
+        mCpuTimer = cpuTimer;
+        for (final TickScheduler.Stream s : new TickScheduler.Stream[]{mSonarStream, mLocStream}) {
+            String name = s == mSonarStream ? "sonar" : "location";
+            registry.gauge("fishfinder_ticks", "Ticks since the simulator started", new Gauge() {
+                @Override
+                public double get() {
+                    return s.getTicks();
+                }
+            }, "stream", name);
+            registry.gauge("fishfinder_late_ticks", "Ticks more than a quarter of a period late", new Gauge() {
+                @Override
+                public double get() {
+                    return s.getLateTicks();
+                }
+            }, "stream", name);
+            registry.gauge("fishfinder_missed_ticks", "Ticks skipped because the stream fell a whole period behind", new Gauge() {
+                @Override
+                public double get() {
+                    return s.getMissedTicks();
+                }
+            }, "stream", name);
+        }
+        registry.gauge("fishfinder_skipped_frames", "Frames the sender fell too far behind to send", new Gauge() {
+            @Override
+            public double get() {
+                return getSkippedFrames();
+            }
+        });
+    }
+
+    public void start() {
+        mStartNanos = mClock.nanoTime();
+        resetStatistics();
+        mCursor = mFrames.newCursor();
+        mLocTicksSent = mLocTicks;
+        if (mOwnsScheduler) {
+            if (mHasSender)
+                startSender();
+            mScheduler.start();
+        } else {
+            mSonarStream.setPaused(false);
+            mLocStream.setPaused(false);
+        }
+    }
+
+    public void stop() {
+        if (mOwnsScheduler) {
+            mScheduler.stop();
+            stopSender();
+        } else {
+            mSonarStream.setPaused(true);
+            mLocStream.setPaused(true);
+        }
+    }
+
+    /**
+     * Set a time on the simulator's clock to stop at, before start(). Every tick due by
+     * then fires and none after, so a run on a SimulatedClock is exactly as long as asked.
+     * Only for a simulator with its own scheduler; a Swarm ends its devices together.
+     * @param time Clock.nanoTime() to end at, Long.MAX_VALUE to run until stop()
+     */
+    public void setEndTime(long time) {
+        if (!mOwnsScheduler)
+            throw new IllegalStateException("The scheduler is shared");
+        mScheduler.setEndTime(time);
+    }
+
+    /**
+     * Wait for the simulator to reach its end time, then stop it
+     */
+    public void awaitEnd() throws InterruptedException {
+        if (!mOwnsScheduler)
+            throw new IllegalStateException("The scheduler is shared");
+        mScheduler.awaitEnd();
+        stop();
+    }
+
+    /**
+     * Detach the simulator's streams from a shared scheduler, so it can be discarded
+     */
+    public void dispose() {
+        if (mOwnsScheduler) {
+            mScheduler.stop();
+            stopSender();
+        }
+        mScheduler.removeStream(mSonarStream);
+        mScheduler.removeStream(mLocStream);
+    }
+
+    private void startSender() {
+        if (mSender != null)
+            return;
+        mSending = true;
+        mSender = new Thread(new Runnable() {
+            public void run() {
+                while (mSending) {
+                    send();
+                    // Woken by the scheduler thread when there is something to send
+                    LockSupport.park(this);
+                }
+            }
+        }, mScheduler.getName() + "-sender");
+        mSender.setDaemon(true);
+        mSender.start();
+    }
+
+    private void stopSender() {
+        Thread t = mSender;
+        if (t == null)
+            return;
+        mSending = false;
+        mSender = null;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Scheduler thread. Tell the sending thread there is work to do.
+    private void dispatch() {
+        if (mHasSender) {
+            Thread t = mSender;
+            if (t != null)
+                LockSupport.unpark(t);
+        } else
+            send();
+    }
+
+    // Scheduler thread. This is the only producer of frames.
+    private Frame produce(long deadline, long now, boolean sonar) {
+        CpuTimer cpuTimer = mCpuTimer;
+        long cpu0 = cpuTimer != null ? cpuTimer.currentThreadCpuTime() : 0;
+        Frame f = mFrames.claim();
+        f.deadline = deadline;
+        f.tickNanos = now;
+        f.sonar = sonar;
+        SampleGenerator g = mSampleGenerator;
+        PacketCache cache = mPacketCache;
+        LatencyHistogram encodeTime = mEncodeTime;
+        long t0;
+        if (cache != null && g instanceof FiniteSampleGenerator && ((FiniteSampleGenerator) g).getTrack() == cache.track
+                && cache.kind.equals(((FiniteSampleGenerator) g).getKind())) {
+            FiniteSampleGenerator fg = (FiniteSampleGenerator) g;
+            int row = fg.rowAt(deadline - mStartNanos);
+            fg.getRow(row, f.sample);
+            t0 = encodeTime != null ? System.nanoTime() : 0;
+            f.sonarData = cache.sonar;
+            f.sonarOffset = row * PacketCodec.SONAR_PACKET_SIZE;
+            f.locData = cache.location;
+            f.locOffset = row * PacketCodec.LOCATION_PACKET_SIZE;
+        } else {
+            g.fill(f.sample, deadline - mStartNanos);
+            t0 = encodeTime != null ? System.nanoTime() : 0;
+            PacketCodec.encodeSonar(f.sample, mDry, f.sonarPacket, 0);
+            PacketCodec.encodeLocation(f.sample, f.locPacket, 0);
+            f.sonarData = f.sonarPacket;
+            f.sonarOffset = 0;
+            f.locData = f.locPacket;
+            f.locOffset = 0;
+        }
+        if (encodeTime != null)
+            encodeTime.record(System.nanoTime() - t0);
+        mFrames.publish();
+        StripedCounter frames = mFramesCounter;
+        if (frames != null) {
+            frames.increment();
+            if (cpuTimer != null)
+                mTickCpuCounter.add(cpuTimer.currentThreadCpuTime() - cpu0);
+        }
+        return f;
+    }
+
+    private void onSonarTick(long deadline, long now) {
+        produce(deadline, now, true);
+        dispatch();
+    }
+
+    private void onLocationTick(long deadline, long now) {
+        // Location normally reuses the latest sonar frame, but needs its own if there isn't one
+        if (mSonarStream.getRate() == 0 || mSonarStream.isPaused() || mFrames.latest() == null)
+            produce(deadline, now, false);
+        mLocDeadline = deadline;
+        mLocTickNanos = now;
+        mLocTicks++;
+        dispatch();
+    }
+
+    // Sending thread. Consume new frames, and send a location packet if one is due.
+    private void send() {
+        Listener l = mListener;
+        Frame f;
+        while ((f = mCursor.poll()) != null) {
+            boolean sonar = f.sonar;
+            long deadline = f.deadline, tickNanos = f.tickNanos;
+            byte[] data = f.sonarData;
+            int offset = f.sonarOffset;
+            // A frame being overwritten may pair one buffer with another's offset
+            boolean inBounds = offset + PacketCodec.SONAR_PACKET_SIZE <= data.length;
+            if (inBounds)
+                System.arraycopy(data, offset, mSonarCopy, 0, PacketCodec.SONAR_PACKET_SIZE);
+            mSampleCopy.set(f.sample);
+            if (!inBounds || !mCursor.isAvailable()) {
+                // Overwritten while being copied, so what was copied may be torn
+                mLappedFrames++;
+                continue;
+            }
+            if (!sonar)
+                continue;
+            if (!mSilent)
+                mTransport.send(FishFinder.BTC_SAMPLE, mSonarCopy, 0, PacketCodec.SONAR_PACKET_SIZE);
+            StreamStatistics stats = mSonarStatistics;
+            if (stats != null)
+                stats.record(deadline, tickNanos, mClock.nanoTime());
+            StripedCounter sent = mSonarSentCounter;
+            if (sent != null && !mSilent)
+                sent.increment();
+            if (l != null)
+                l.onSonarTick(mSampleCopy, tickNanos);
+        }
+
+        long locTicks = mLocTicks;
+        if (locTicks != mLocTicksSent) {
+            mLocTicksSent = locTicks;
+            if (copyLatestLocation()) {
+                if (!mSilent)
+                    mTransport.send(FishFinder.BTC_LOCATION, mLocCopy, 0, PacketCodec.LOCATION_PACKET_SIZE);
+                StreamStatistics stats = mLocStatistics;
+                if (stats != null)
+                    stats.record(mLocDeadline, mLocTickNanos, mClock.nanoTime());
+                StripedCounter sent = mLocSentCounter;
+                if (sent != null && !mSilent)
+                    sent.increment();
+                if (l != null)
+                    l.onLocationTick(mSampleCopy, mLocTickNanos);
+            }
+        }
+    }
+
+    // Sending thread. Copy the location packet and sample of the latest frame, retrying if
+    // the producer overwrote it meanwhile. Returns false if there is no frame yet.
+    private boolean copyLatestLocation() {
+        while (true) {
+            long seq = mFrames.published();
+            if (seq < 0)
+                return false;
+            Frame f = mFrames.get(seq);
+            byte[] data = f.locData;
+            int offset = f.locOffset;
+            boolean inBounds = offset + PacketCodec.LOCATION_PACKET_SIZE <= data.length;
+            if (inBounds)
+                System.arraycopy(data, offset, mLocCopy, 0, PacketCodec.LOCATION_PACKET_SIZE);
+            mSampleCopy.set(f.sample);
+            if (inBounds && mFrames.isAvailable(seq))
+                return true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * SplitMix64, a small, fast pseudo-random generator whose state is a single long. It can
+ * be split into independent generators, and reseeded for nothing, so a generator can
+ * give the same numbers for the same simulated time however it is called. Lookup tables
+ * turn its output into normal and exponential variates without any transcendental
+ * functions. Not thread safe.
+ */
+public class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Bits of a random number used to index the tables
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    // Inverse CDFs at the midpoints of TABLE_SIZE equal slices of probability
+    private static final float[] NORMAL = new float[TABLE_SIZE];
+    private static final float[] EXPONENTIAL = new float[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double p = (i + 0.5) / TABLE_SIZE;
+            NORMAL[i] = (float) inverseNormal(p);
+            EXPONENTIAL[i] = (float) -Math.log(1 - p);
+        }
+    }
+
+    private long mState;
+
+    public SplitMix64(long seed) {
+        mState = seed;
+    }
+
+    public void setSeed(long seed) {
+        mState = seed;
+    }
+
+    /**
+     * Scramble the bits of a long; the finaliser of SplitMix64
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        return mix(mState += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return uniform in 0..1
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * @return approximately standard normal, mean 0 and standard deviation 1
+     */
+    public float nextNormal() {
+        return NORMAL[(int) (nextLong() >>> (64 - TABLE_BITS))];
+    }
+
+    /**
+     * @return approximately exponential, with mean 1
+     */
+    public float nextExponential() {
+        return EXPONENTIAL[(int) (nextLong() >>> (64 - TABLE_BITS))];
+    }
+
+    /**
+     * @return a new generator, independent of this one
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(mix(nextLong()));
+    }
+
+    // Acklam's rational approximation, good to about 1e-9
+    private static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        if (p < 0.02425) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - 0.02425)
+            return -inverseNormal(1 - p);
+        double q = p - 0.5, r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,40 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Measurements of the packets sent on one stream: the current rate, the interval
+ * between ticks, and the latency from a tick's deadline until its packet has been
+ * handed to the transport. Recorded by the thread that sends the packets.
+ */
+public class StreamStatistics {
+    // Time constant for the rate, in seconds
+    private static final double RATE_TIME_CONSTANT = 2;
+    // Longest interval or latency told apart, in ns
+    static final long MAX_DURATION = 60000000000L;
+
+    public final RateMeter rate = new RateMeter(RATE_TIME_CONSTANT);
+    public final LatencyHistogram interval = new LatencyHistogram(MAX_DURATION);
+    public final LatencyHistogram latency = new LatencyHistogram(MAX_DURATION);
+
+    private long mLastTick = 0;
+
+    /**
+     * Record a packet having been sent
+     * @param deadline Clock.nanoTime() the tick was due
+     * @param tick Clock.nanoTime() the tick fired
+     * @param sent Clock.nanoTime() the packet was sent
+     */
+    void record(long deadline, long tick, long sent) {
+        if (mLastTick != 0)
+            interval.record(tick - mLastTick);
+        mLastTick = tick;
+        rate.mark(tick);
+        latency.record(sent - deadline);
+    }
+
+    public void reset() {
+        mLastTick = 0;
+        rate.reset();
+        interval.reset();
+        latency.reset();
+    }
+}
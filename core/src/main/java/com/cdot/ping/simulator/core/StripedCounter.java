@@ -0,0 +1,40 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can add to without contending. Each thread adds to one of
+ * several stripes, each on its own cache line, chosen by thread id; reading sums the
+ * stripes. Adding never allocates.
+ */
+public class StripedCounter {
+    // Longs per stripe, so stripes don't share a cache line
+    private static final int PAD = 8;
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray mCells = new AtomicLongArray(STRIPES * PAD);
+
+    // Power of 2 at least the number of processors
+    private static int stripes() {
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors())
+            n <<= 1;
+        return n;
+    }
+
+    public void add(long n) {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        mCells.getAndAdd(stripe * PAD, n);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++)
+            sum += mCells.get(i * PAD);
+        return sum;
+    }
+}
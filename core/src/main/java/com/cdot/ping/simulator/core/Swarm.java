@@ -0,0 +1,156 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A swarm of independent virtual FishFinders, multiplexed onto a small number of shared
+ * scheduler threads. Each device is a Simulator with its own generator, configuration
+ * and rates; devices are spread round-robin over the schedulers, with random phases so
+ * that devices at the same rate don't all tick at the same instant. With a
+ * SimulatedClock, the schedulers move through simulated time together.
+ */
+public class Swarm {
+
+    /**
+     * Tick statistics aggregated over all the streams of one kind in the swarm
+     */
+    public static class Statistics {
+        public long ticks;
+        public long lateTicks;
+        public long missedTicks;
+        public long errors;
+        public long maxLateness; // ns
+        public long totalLateness; // ns
+
+        public double meanLateness() {
+            return ticks == 0 ? 0 : (double) totalLateness / ticks;
+        }
+
+        private void add(TickScheduler.Stream s) {
+            ticks += s.getTicks();
+            lateTicks += s.getLateTicks();
+            missedTicks += s.getMissedTicks();
+            errors += s.getErrors();
+            totalLateness += s.getTotalLateness();
+            if (s.getMaxLateness() > maxLateness)
+                maxLateness = s.getMaxLateness();
+        }
+    }
+
+    private final Clock mClock;
+    private final TickScheduler[] mSchedulers;
+    private final List<Simulator> mDevices = new ArrayList<>();
+    private final Random mPhases = new Random(0);
+    private boolean mRunning = false;
+
+    /**
+     * @param name base name for the scheduler threads
+     * @param threads number of scheduler threads to share the devices between
+     */
+    public Swarm(String name, int threads) {
+        this(name, threads, Clock.SYSTEM);
+    }
+
+    /**
+     * @param name base name for the scheduler threads
+     * @param threads number of scheduler threads to share the devices between
+     * @param clock clock to run the devices by
+     */
+    public Swarm(String name, int threads, Clock clock) {
+        mClock = clock;
+        mSchedulers = new TickScheduler[threads];
+        for (int i = 0; i < threads; i++)
+            mSchedulers[i] = new TickScheduler(name + "-" + i, clock);
+    }
+
+    public Clock getClock() {
+        return mClock;
+    }
+
+    /**
+     * Add a device to the swarm. If the swarm is running, the device starts immediately.
+     * @param generator the device's sample generator, not shared with any other device
+     * @param sonarRate sonar rate in Hz
+     * @param locRate location rate in Hz
+     * @param transport where the device sends its packets; may be shared if it is thread safe
+     * @return the new device
+     */
+    public synchronized Simulator addDevice(SampleGenerator generator, double sonarRate, double locRate, SampleTransport transport) {
+        TickScheduler scheduler = mSchedulers[mDevices.size() % mSchedulers.length];
+        Simulator device = new Simulator(scheduler, generator, sonarRate, locRate, transport);
+        device.getSonarStream().setPhase(mPhases.nextDouble());
+        device.getLocationStream().setPhase(mPhases.nextDouble());
+        mDevices.add(device);
+        if (mRunning)
+            device.start();
+        return device;
+    }
+
+    public synchronized int size() {
+        return mDevices.size();
+    }
+
+    public synchronized Simulator getDevice(int i) {
+        return mDevices.get(i);
+    }
+
+    public synchronized void start() {
+        if (mRunning)
+            return;
+        mRunning = true;
+        // Hold a simulated clock still until every scheduler is running
+        mClock.attach(Thread.currentThread());
+        try {
+            for (Simulator device : mDevices)
+                device.start();
+            for (TickScheduler scheduler : mSchedulers)
+                scheduler.start();
+        } finally {
+            mClock.detach(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Set a time on the swarm's clock for every device to stop at, before start()
+     * @see TickScheduler#setEndTime(long)
+     */
+    public void setEndTime(long time) {
+        for (TickScheduler scheduler : mSchedulers)
+            scheduler.setEndTime(time);
+    }
+
+    /**
+     * Wait for every device to reach the end time, then stop the swarm
+     */
+    public void awaitEnd() throws InterruptedException {
+        for (TickScheduler scheduler : mSchedulers)
+            scheduler.awaitEnd();
+        stop();
+    }
+
+    public synchronized void stop() {
+        if (!mRunning)
+            return;
+        mRunning = false;
+        for (TickScheduler scheduler : mSchedulers)
+            scheduler.stop();
+        for (Simulator device : mDevices)
+            device.stop();
+    }
+
+    public synchronized Statistics getSonarStatistics() {
+        Statistics stats = new Statistics();
+        for (Simulator device : mDevices)
+            stats.add(device.getSonarStream());
+        return stats;
+    }
+
+    public synchronized Statistics getLocationStatistics() {
+        Statistics stats = new Statistics();
+        for (Simulator device : mDevices)
+            stats.add(device.getLocationStream());
+        return stats;
+    }
+}
@@ -0,0 +1,105 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Load generator that runs a swarm of virtual FishFinders streaming into a loopback
+ * transport, and reports aggregate packet rate, tick lateness and memory per device.
+ * Usage:
+ * <pre>
+ * SwarmRunner [-devices n[,n...]] [-threads n] [-source demo|wave|flatline|seabed|bathymetry:grid.bin]
+ *             [-sonar Hz] [-location Hz] [-seconds s] [-simulated]
+ * </pre>
+ * Giving a list of device counts, e.g. -devices 10,100,1000,10000, runs each in turn
+ * to show how the simulator scales. -simulated runs the swarm on a SimulatedClock, as
+ * fast as the threads can go, and reports how many times faster than real time that is,
+ * which is how many real swarms of that size the machine could run.
+ */
+public class SwarmRunner {
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static void run(int devices, int threads, String source, double sonarRate, double locRate,
+                            double seconds, boolean simulated) throws InterruptedException, IOException {
+        Clock clock = simulated ? new SimulatedClock() : Clock.SYSTEM;
+        LoopbackTransport transport = new LoopbackTransport(null);
+        Random rand = new Random(devices);
+        byte[] command = new byte[12];
+        command[0] = FishFinder.ID0;
+        command[1] = FishFinder.ID1;
+        command[4] = FishFinder.COMMAND_CONFIGURE;
+        command[5] = 3;
+
+        long before = usedMemory();
+        Swarm swarm = new Swarm("Swarm", threads, clock);
+        for (int i = 0; i < devices; i++) {
+            // Each device has its own noise
+            SampleGenerator generator = new SamplePipeline(HeadlessSimulator.createGenerator(source),
+                    new NoiseStage(i), new RangeStage());
+            Simulator device = swarm.addDevice(generator, sonarRate, locRate, transport);
+            // Configure each device the way Ping would, so they don't all produce the same data
+            command[6] = (byte) rand.nextInt(100);
+            command[7] = (byte) rand.nextInt(FishFinder.NOISES.length);
+            command[8] = (byte) rand.nextInt(FishFinder.RANGE_DEPTH.length);
+            device.configure(command);
+        }
+        long perDevice = (usedMemory() - before) / devices;
+
+        System.out.println(String.format("%d devices on %d threads, %d bytes per device", devices, threads, perDevice));
+        long start = clock.nanoTime(), wallStart = System.nanoTime();
+        long lastPackets = 0, lastTime = start;
+        swarm.setEndTime(start + (long) (seconds * 1e9));
+        swarm.start();
+        for (int s = 1; s <= seconds; s++) {
+            clock.sleepUntil(start + s * 1000000000L);
+            long now = clock.nanoTime();
+            long packets = transport.getPackets();
+            Swarm.Statistics sonar = swarm.getSonarStatistics();
+            System.out.println(String.format("  %.0f packets/s, sonar mean lateness %.3fms max %.3fms, %d late, %d missed",
+                    (packets - lastPackets) * 1e9 / (now - lastTime), sonar.meanLateness() / 1e6,
+                    sonar.maxLateness / 1e6, sonar.lateTicks, sonar.missedTicks));
+            lastPackets = packets;
+            lastTime = now;
+        }
+        swarm.awaitEnd();
+        double elapsed = (clock.nanoTime() - start) / 1e9;
+        double wallElapsed = (System.nanoTime() - wallStart) / 1e9;
+
+        Swarm.Statistics sonar = swarm.getSonarStatistics();
+        Swarm.Statistics loc = swarm.getLocationStatistics();
+        double target = devices * (sonarRate + locRate);
+        System.out.println(String.format("  Total %.0f packets/s (target %.0f), %d sonar ticks %d late %d missed, %d location ticks %d late %d missed",
+                transport.getPackets() / elapsed, target, sonar.ticks, sonar.lateTicks, sonar.missedTicks,
+                loc.ticks, loc.lateTicks, loc.missedTicks));
+        if (simulated)
+            System.out.println(String.format("  Simulated %.2fs in %.2fs, %.1f times real time",
+                    elapsed, wallElapsed, elapsed / wallElapsed));
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        String source = "wave", devices = "1000";
+        int threads = Runtime.getRuntime().availableProcessors();
+        double sonarRate = 8, locRate = 1, seconds = 10;
+        boolean simulated = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-devices": devices = args[++i]; break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-source": source = args[++i]; break;
+                case "-sonar": sonarRate = Double.parseDouble(args[++i]); break;
+                case "-location": locRate = Double.parseDouble(args[++i]); break;
+                case "-seconds": seconds = Double.parseDouble(args[++i]); break;
+                case "-simulated": simulated = true; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        for (String n : devices.split(","))
+            run(Integer.parseInt(n), threads, source, sonarRate, locRate, seconds, simulated);
+    }
+}
@@ -0,0 +1,30 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Sends payloads over a TCP stream, framed as described in FramedTransport.
+ * Nagle is disabled so each frame goes out as soon as it is written.
+ */
+public class TcpTransport extends FramedTransport {
+    private final SocketChannel mChannel;
+
+    public TcpTransport(InetSocketAddress to) throws IOException {
+        mChannel = SocketChannel.open(to);
+        mChannel.socket().setTcpNoDelay(true);
+    }
+
+    @Override // FramedTransport
+    protected void write(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining())
+            mChannel.write(frame);
+    }
+
+    @Override // SampleTransport
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
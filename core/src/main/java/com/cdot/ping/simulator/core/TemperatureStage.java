@@ -0,0 +1,32 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * Water temperature at the transducer, warming through the day and cooling through the
+ * night. The simulation starts at dawn, the coolest time of day.
+ */
+public class TemperatureStage implements SampleStage {
+    private static final double DAY = 86400e9; // ns
+
+    private final float mMean, mSwing;
+
+    /**
+     * @param mean mean temperature over the day, C
+     * @param swing difference between the warmest and coolest temperature of the day, C
+     */
+    public TemperatureStage(float mean, float swing) {
+        mMean = mean;
+        mSwing = swing;
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+    }
+
+    public boolean isTimeInvariant() {
+        return false;
+    }
+
+    public void apply(Sample into, long timeNanos) {
+        double phase = 2 * Math.PI * (timeNanos % (long) DAY) / DAY;
+        into.temperature = (float) (mMean - mSwing / 2 * Math.cos(phase));
+    }
+}
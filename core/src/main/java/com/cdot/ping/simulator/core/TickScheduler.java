@@ -0,0 +1,417 @@
+package com.cdot.ping.simulator.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Drives any number of periodic streams from a single long-lived thread.
+ * Deadlines are computed at a fixed rate against the scheduler's Clock, so the
+ * time taken to service a tick doesn't accumulate as drift. If a stream
+ * falls more than a whole period behind, the missed deadlines are skipped
+ * (and counted) rather than fired in a burst.
+ * Streams are kept in a heap ordered by deadline, so the cost of a tick is
+ * O(log n) in the number of streams.
+ * With a SimulatedClock, the scheduler runs as fast as the listeners can keep up, and
+ * every tick fires exactly on its deadline. Give it an end time to run for an exact
+ * length of simulated time.
+ */
+public class TickScheduler {
+
+    // A tick is counted as late when it fires more than this fraction of a period behind
+    private static final double LATE_FRACTION = 0.25;
+
+    public interface TickListener {
+        /**
+         * Called on the scheduler thread
+         * @param stream the stream being ticked
+         * @param deadline the Clock.nanoTime() the tick was due
+         * @param now the Clock.nanoTime() the tick actually fired
+         */
+        void onTick(Stream stream, long deadline, long now);
+    }
+
+    public class Stream {
+        private final TickListener mListener;
+        private volatile long mPeriod; // nanoseconds, 0 = no rate set
+        private volatile boolean mPaused = false;
+        private volatile boolean mRemoved = false;
+        // Fraction of a period to bring the first tick forward by, to spread streams out
+        private volatile double mPhase = 0;
+        private volatile boolean mResync = true;
+
+        // Scheduler thread only
+        private long mNextDeadline = Long.MAX_VALUE;
+        private int mHeapIndex = -1;
+
+        // Statistics, written only by the scheduler thread
+        private volatile long mTicks;
+        private volatile long mLateTicks;
+        private volatile long mMissedTicks;
+        private volatile long mLastLateness;
+        private volatile long mMaxLateness;
+        private volatile long mTotalLateness;
+        private volatile long mErrors;
+
+        private Stream(double rate, TickListener listener) {
+            mListener = listener;
+            mPeriod = periodOf(rate);
+        }
+
+        /**
+         * Change the rate of the stream. The next tick is scheduled one new period from now.
+         * @param rate rate in Hz, 0 to stop ticking
+         */
+        public void setRate(double rate) {
+            mPeriod = periodOf(rate);
+            resync();
+        }
+
+        public double getRate() {
+            long period = mPeriod;
+            return period == 0 ? 0 : 1e9 / period;
+        }
+
+        /**
+         * Pause or resume the stream without losing its rate
+         */
+        public void setPaused(boolean paused) {
+            mPaused = paused;
+            resync();
+        }
+
+        public boolean isPaused() {
+            return mPaused;
+        }
+
+        /**
+         * Set the phase of the stream, so that many streams at the same rate don't all fire
+         * at once. Takes effect the next time the stream is resynchronised.
+         * @param phase fraction of a period, 0..1
+         */
+        public void setPhase(double phase) {
+            mPhase = phase;
+        }
+
+        private void resync() {
+            mResync = true;
+            mChanged.add(this);
+            wake();
+        }
+
+        public long getTicks() { return mTicks; }
+        public long getLateTicks() { return mLateTicks; }
+        public long getMissedTicks() { return mMissedTicks; }
+        public long getLastLateness() { return mLastLateness; }
+        public long getMaxLateness() { return mMaxLateness; }
+        public long getTotalLateness() { return mTotalLateness; }
+        public long getErrors() { return mErrors; }
+
+        public void resetStatistics() {
+            mTicks = mLateTicks = mMissedTicks = mLastLateness = mMaxLateness = mTotalLateness = mErrors = 0;
+        }
+    }
+
+    private final String mName;
+    private final Clock mClock;
+    private volatile Stream[] mStreams = new Stream[0];
+    // Streams whose schedule has changed since the scheduler thread last looked
+    private final ConcurrentLinkedQueue<Stream> mChanged = new ConcurrentLinkedQueue<>();
+    private volatile boolean mRunning = false;
+    private Thread mThread = null;
+    // Clock.nanoTime() after which no tick fires
+    private volatile long mEndTime = Long.MAX_VALUE;
+
+    // Binary min-heap of streams ordered by deadline, scheduler thread only
+    private Stream[] mHeap = new Stream[16];
+    private int mHeapSize = 0;
+
+    public TickScheduler(String name) {
+        this(name, Clock.SYSTEM);
+    }
+
+    /**
+     * @param name name of the scheduler thread
+     * @param clock clock the deadlines are kept by
+     */
+    public TickScheduler(String name, Clock clock) {
+        mName = name;
+        mClock = clock;
+    }
+
+    private static long periodOf(double rate) {
+        return rate > 0 ? (long) (1e9 / rate) : 0;
+    }
+
+    /**
+     * Add a stream. It will start ticking as soon as the scheduler is running.
+     * @param rate rate in Hz, 0 to create the stream stopped
+     * @param listener called on each tick
+     * @return the new stream
+     */
+    public synchronized Stream addStream(double rate, TickListener listener) {
+        Stream s = new Stream(rate, listener);
+        Stream[] streams = new Stream[mStreams.length + 1];
+        System.arraycopy(mStreams, 0, streams, 0, mStreams.length);
+        streams[mStreams.length] = s;
+        mStreams = streams;
+        s.resync();
+        return s;
+    }
+
+    /**
+     * Remove a stream. It will not tick again once any tick in progress has completed.
+     * Does nothing if the stream has already been removed.
+     */
+    public synchronized void removeStream(Stream s) {
+        boolean found = false;
+        for (Stream t : mStreams)
+            if (t == s) {
+                found = true;
+                break;
+            }
+        if (!found)
+            return;
+        Stream[] streams = new Stream[mStreams.length - 1];
+        int j = 0;
+        for (Stream t : mStreams)
+            if (t != s)
+                streams[j++] = t;
+        mStreams = streams;
+        s.mRemoved = true;
+        s.resync();
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public Clock getClock() {
+        return mClock;
+    }
+
+    public int getStreamCount() {
+        return mStreams.length;
+    }
+
+    public synchronized boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Set a time to stop ticking at. Ticks due at or before it fire, later ones don't, and
+     * the scheduler thread finishes when the clock reaches it. Set it before start(), or
+     * a SimulatedClock may already have run past it.
+     * @param time Clock.nanoTime() to end at, Long.MAX_VALUE to run until stop()
+     */
+    public void setEndTime(long time) {
+        mEndTime = time;
+        wake();
+    }
+
+    public long getEndTime() {
+        return mEndTime;
+    }
+
+    public synchronized void start() {
+        if (mRunning)
+            return;
+        mRunning = true;
+        mHeapSize = 0;
+        mChanged.clear();
+        for (Stream s : mStreams) {
+            s.mHeapIndex = -1;
+            s.mResync = true;
+            mChanged.add(s);
+        }
+        mThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    loop();
+                } finally {
+                    mClock.detach(Thread.currentThread());
+                }
+            }
+        }, mName);
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MAX_PRIORITY);
+        mClock.attach(mThread);
+        mThread.start();
+    }
+
+    /**
+     * Stop the scheduler thread, waiting for any tick in progress to complete
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            if (!mRunning)
+                return;
+            mRunning = false;
+            t = mThread;
+            mThread = null;
+        }
+        mClock.unpark(t);
+        if (t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait for the scheduler to reach its end time, then stop it. Never returns if there
+     * is no end time.
+     */
+    public void awaitEnd() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = mThread;
+        }
+        if (t != null && t != Thread.currentThread())
+            t.join();
+        stop();
+    }
+
+    private void wake() {
+        Thread t = mThread;
+        if (t != null)
+            mClock.unpark(t);
+    }
+
+    private void loop() {
+        while (mRunning) {
+            long now = mClock.nanoTime();
+            Stream s;
+            while ((s = mChanged.poll()) != null) {
+                if (!s.mResync)
+                    continue; // already dealt with
+                s.mResync = false;
+                if (s.mHeapIndex >= 0)
+                    heapRemove(s);
+                long period = s.mPeriod;
+                if (period > 0 && !s.mPaused && !s.mRemoved) {
+                    s.mNextDeadline = now + period - (long) (period * s.mPhase);
+                    heapAdd(s);
+                }
+            }
+
+            long deadline = mHeapSize == 0 ? Long.MAX_VALUE : mHeap[0].mNextDeadline;
+            long end = mEndTime;
+            if (deadline > end) {
+                // Nothing more is due before the end; finish when it comes
+                if (now >= end)
+                    break;
+                mClock.parkUntil(this, end);
+                continue;
+            }
+
+            if (mHeapSize == 0) {
+                // Nothing to do; wait for a rate change or a new stream
+                mClock.parkUntil(this, Long.MAX_VALUE);
+                continue;
+            }
+
+            Stream next = mHeap[0];
+            if (deadline > now) {
+                // Re-evaluate after waking, as a rate may have changed in the meantime
+                mClock.parkUntil(this, deadline);
+                continue;
+            }
+
+            fire(next, deadline, now);
+            siftDown(0);
+        }
+    }
+
+    private void fire(Stream s, long deadline, long now) {
+        long period = s.mPeriod;
+        if (period == 0) {
+            // Rate changed since the deadline was computed; the change is still queued
+            s.mNextDeadline = Long.MAX_VALUE;
+            return;
+        }
+        long lateness = now - deadline;
+        if (lateness >= period) {
+            // Skip whole periods we have fallen behind by, rather than trying to catch up
+            long missed = lateness / period;
+            s.mMissedTicks += missed;
+            deadline += missed * period;
+            lateness -= missed * period;
+        }
+        if (lateness > period * LATE_FRACTION)
+            s.mLateTicks++;
+        s.mLastLateness = lateness;
+        s.mTotalLateness += lateness;
+        if (lateness > s.mMaxLateness)
+            s.mMaxLateness = lateness;
+        s.mTicks++;
+
+        // Next deadline is computed from this deadline, not from now, so there is no drift
+        s.mNextDeadline = deadline + period;
+
+        try {
+            s.mListener.onTick(s, deadline, now);
+        } catch (RuntimeException re) {
+            s.mErrors++;
+        }
+    }
+
+    private void heapAdd(Stream s) {
+        if (mHeapSize == mHeap.length) {
+            Stream[] heap = new Stream[mHeap.length * 2];
+            System.arraycopy(mHeap, 0, heap, 0, mHeapSize);
+            mHeap = heap;
+        }
+        s.mHeapIndex = mHeapSize;
+        mHeap[mHeapSize++] = s;
+        siftUp(s.mHeapIndex);
+    }
+
+    private void heapRemove(Stream s) {
+        int i = s.mHeapIndex;
+        s.mHeapIndex = -1;
+        Stream last = mHeap[--mHeapSize];
+        mHeap[mHeapSize] = null;
+        if (last != s) {
+            mHeap[i] = last;
+            last.mHeapIndex = i;
+            siftDown(i);
+            siftUp(last.mHeapIndex);
+        }
+    }
+
+    private void siftUp(int i) {
+        Stream s = mHeap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Stream p = mHeap[parent];
+            if (p.mNextDeadline <= s.mNextDeadline)
+                break;
+            mHeap[i] = p;
+            p.mHeapIndex = i;
+            i = parent;
+        }
+        mHeap[i] = s;
+        s.mHeapIndex = i;
+    }
+
+    private void siftDown(int i) {
+        Stream s = mHeap[i];
+        int half = mHeapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            Stream c = mHeap[child];
+            int right = child + 1;
+            if (right < mHeapSize && mHeap[right].mNextDeadline < c.mNextDeadline)
+                c = mHeap[child = right];
+            if (s.mNextDeadline <= c.mNextDeadline)
+                break;
+            mHeap[i] = c;
+            c.mHeapIndex = i;
+            i = child;
+        }
+        mHeap[i] = s;
+        s.mHeapIndex = i;
+    }
+}
@@ -0,0 +1,168 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A recorded track, stored as primitive columns rather than an object per sample.
+ * The binary form is
+ * <pre>
+ * int    MAGIC
+ * int    number of rows, n
+ * double latitude[n], longitude[n]
+ * long   time[n]
+ * float  depth[n], strength[n], fishDepth[n], fishStrength[n], battery[n], temperature[n]
+ * </pre>
+ * all big-endian, so each column can be bulk loaded.
+ */
+public class Track {
+    public static final int MAGIC = 0x5054524B; // "PTRK"
+
+    public final double[] latitude; // degrees
+    public final double[] longitude; // degrees
+    public final long[] time; // ms
+    public final float[] depth; // m
+    public final float[] strength; // %
+    public final float[] fishDepth; // m
+    public final float[] fishStrength; // %
+    public final float[] battery; // %
+    public final float[] temperature; // C
+
+    public Track(int rows) {
+        latitude = new double[rows];
+        longitude = new double[rows];
+        time = new long[rows];
+        depth = new float[rows];
+        strength = new float[rows];
+        fishDepth = new float[rows];
+        fishStrength = new float[rows];
+        battery = new float[rows];
+        temperature = new float[rows];
+    }
+
+    public int size() {
+        return time.length;
+    }
+
+    /**
+     * Copy a row into a sample
+     */
+    public void get(int row, Sample into) {
+        into.latitude = latitude[row];
+        into.longitude = longitude[row];
+        into.time = time[row];
+        into.depth = depth[row];
+        into.strength = strength[row];
+        into.fishDepth = fishDepth[row];
+        into.fishStrength = fishStrength[row];
+        into.battery = battery[row];
+        into.temperature = temperature[row];
+    }
+
+    /**
+     * Linearly interpolate between two rows into a sample
+     * @param a first row
+     * @param b second row
+     * @param f fraction of the way from a to b, 0..1
+     * @param into sample to fill
+     */
+    public void interpolate(int a, int b, double f, Sample into) {
+        into.latitude = latitude[a] + (latitude[b] - latitude[a]) * f;
+        into.longitude = longitude[a] + (longitude[b] - longitude[a]) * f;
+        into.time = time[a] + (long) ((time[b] - time[a]) * f);
+        into.depth = (float) (depth[a] + (depth[b] - depth[a]) * f);
+        into.strength = (float) (strength[a] + (strength[b] - strength[a]) * f);
+        into.fishDepth = (float) (fishDepth[a] + (fishDepth[b] - fishDepth[a]) * f);
+        into.fishStrength = (float) (fishStrength[a] + (fishStrength[b] - fishStrength[a]) * f);
+        into.battery = (float) (battery[a] + (battery[b] - battery[a]) * f);
+        into.temperature = (float) (temperature[a] + (temperature[b] - temperature[a]) * f);
+    }
+
+    /**
+     * Find the row at or before a time, by binary search
+     * @param t time in ms, between time[0] and time[size() - 1]
+     * @return the index of the last row with time &lt;= t
+     */
+    public int rowAt(double t) {
+        int lo = 0, hi = time.length - 1;
+        if (t >= time[hi])
+            return hi;
+        // Invariant: time[lo] <= t < time[hi]
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (time[mid] <= t)
+                lo = mid;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Read a track in binary form
+     */
+    public static Track read(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = is.read(buf)) > 0)
+            bytes.write(buf, 0, n);
+        ByteBuffer bb = ByteBuffer.wrap(bytes.toByteArray());
+
+        if (bb.remaining() < 8 || bb.getInt() != MAGIC)
+            throw new IOException("Not a track");
+        int rows = bb.getInt();
+        if (rows < 0 || bb.remaining() != (long) rows * (3 * Long.BYTES + 6 * Float.BYTES))
+            throw new IOException("Track is truncated");
+        Track t = new Track(rows);
+        bb.asDoubleBuffer().get(t.latitude);
+        bb.position(bb.position() + rows * Double.BYTES);
+        bb.asDoubleBuffer().get(t.longitude);
+        bb.position(bb.position() + rows * Double.BYTES);
+        bb.asLongBuffer().get(t.time);
+        bb.position(bb.position() + rows * Long.BYTES);
+        for (float[] col : new float[][]{t.depth, t.strength, t.fishDepth, t.fishStrength, t.battery, t.temperature}) {
+            bb.asFloatBuffer().get(col);
+            bb.position(bb.position() + rows * Float.BYTES);
+        }
+        return t;
+    }
+
+    /**
+     * Load a track from a resource alongside this class
+     */
+    public static Track load(String resource) {
+        InputStream is = Track.class.getResourceAsStream(resource);
+        if (is == null)
+            throw new IllegalStateException("Missing track " + resource);
+        try {
+            try {
+                return read(is);
+            } finally {
+                is.close();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Can't load track " + resource, ioe);
+        }
+    }
+
+    /**
+     * Write the track in binary form
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(MAGIC);
+        dos.writeInt(size());
+        for (double d : latitude) dos.writeDouble(d);
+        for (double d : longitude) dos.writeDouble(d);
+        for (long l : time) dos.writeLong(l);
+        for (float[] col : new float[][]{depth, strength, fishDepth, fishStrength, battery, temperature})
+            for (float f : col)
+                dos.writeFloat(f);
+        dos.flush();
+    }
+}
@@ -0,0 +1,74 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a CSV sonar log into the binary Track format. Each line is
+ * <pre>
+ * lat,lon,time,depth,strength,fishdepth,fishstrength
+ * </pre>
+ * with time in seconds, depths in metres (negative below the surface), strength
+ * 0..255 and fish strength as a percentage. Lines starting with # are ignored.
+ * Battery and temperature aren't logged, so they are synthesised: the battery drains
+ * slowly from 100%, and the water gets colder with depth. Usage:
+ * <pre>
+ * TrackConverter in.csv out.bin
+ * </pre>
+ */
+public class TrackConverter {
+
+    public static Track convert(BufferedReader in) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#"))
+                continue;
+            String[] fields = line.split(",");
+            if (fields.length != 7)
+                throw new IOException("Expected 7 fields: " + line);
+            double[] row = new double[7];
+            for (int i = 0; i < 7; i++)
+                row[i] = Double.parseDouble(fields[i].trim());
+            rows.add(row);
+        }
+
+        Track t = new Track(rows.size());
+        float bat = 100;
+        for (int i = 0; i < rows.size(); i++) {
+            double[] row = rows.get(i);
+            double dep = row[3];
+            t.latitude[i] = row[0];
+            t.longitude[i] = row[1];
+            t.time[i] = (long) (row[2] * 1000);
+            t.depth[i] = (float) -dep;
+            t.strength[i] = 100f * (int) row[4] / 255f;
+            t.fishDepth[i] = (float) -row[5];
+            t.fishStrength[i] = (int) row[6];
+            t.battery[i] = bat;
+            t.temperature[i] = (float) (10f + dep * 0.1f);
+            bat -= 0.001;
+            if (bat <= 0) bat = 100;
+        }
+        return t;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: TrackConverter in.csv out.bin");
+        Track t;
+        try (BufferedReader in = new BufferedReader(new FileReader(args[0]))) {
+            t = convert(in);
+        }
+        try (OutputStream out = new FileOutputStream(args[1])) {
+            t.write(out);
+        }
+        System.out.println(t.size() + " rows written to " + args[1]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+/**
+ * Receives frames sent by UdpTransport or TcpTransport on this host, and reports the
+ * packet rate, sonar checksum failures and send-to-receive latency once a second. Usage:
+ * <pre>
+ * TransportReceiver -udp port | -tcp port
+ * </pre>
+ */
+public class TransportReceiver {
+    private long mSonar, mLocation, mBadChecksums, mUnknown;
+    private long mLatencyTotal, mLatencyMax;
+    private long mLastReport = System.nanoTime();
+
+    private void onFrame(ByteBuffer frame) {
+        long now = System.nanoTime();
+        byte channel = frame.get();
+        int len = frame.get() & 0xFF;
+        long sent = frame.getLong();
+        UUID characteristic = PacketCodec.characteristicOf(channel);
+        if (FishFinder.BTC_SAMPLE.equals(characteristic)) {
+            mSonar++;
+            int checksum = 0;
+            int start = frame.position();
+            for (int i = 0; i < len - 1; i++)
+                checksum += frame.get(start + i);
+            if ((byte) checksum != frame.get(start + len - 1))
+                mBadChecksums++;
+        } else if (FishFinder.BTC_LOCATION.equals(characteristic))
+            mLocation++;
+        else
+            mUnknown++;
+        long latency = now - sent;
+        mLatencyTotal += latency;
+        if (latency > mLatencyMax)
+            mLatencyMax = latency;
+
+        if (now - mLastReport >= 1000000000L) {
+            long packets = mSonar + mLocation + mUnknown;
+            System.out.println(String.format("%.1f packets/s (sonar %d, location %d, unknown %d), %d bad checksums, latency mean %.1fus max %.1fus",
+                    packets * 1e9 / (now - mLastReport), mSonar, mLocation, mUnknown, mBadChecksums,
+                    packets > 0 ? mLatencyTotal / 1e3 / packets : 0, mLatencyMax / 1e3));
+            mSonar = mLocation = mBadChecksums = mUnknown = mLatencyTotal = mLatencyMax = 0;
+            mLastReport = now;
+        }
+    }
+
+    private void receiveUdp(int port) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress(port));
+        ByteBuffer buf = ByteBuffer.allocateDirect(FramedTransport.MAX_FRAME_SIZE);
+        while (true) {
+            buf.clear();
+            channel.receive(buf);
+            buf.flip();
+            onFrame(buf);
+        }
+    }
+
+    private static void fill(SocketChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            if (channel.read(buf) < 0)
+                throw new EOFException();
+    }
+
+    private void receiveTcp(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(port));
+        ByteBuffer buf = ByteBuffer.allocateDirect(FramedTransport.MAX_FRAME_SIZE);
+        while (true) {
+            SocketChannel channel = server.accept();
+            System.out.println("Connection from " + channel.socket().getRemoteSocketAddress());
+            try {
+                while (true) {
+                    buf.clear();
+                    buf.limit(FramedTransport.HEADER_SIZE);
+                    fill(channel, buf);
+                    int len = buf.get(1) & 0xFF;
+                    if (FramedTransport.HEADER_SIZE + len > FramedTransport.MAX_FRAME_SIZE)
+                        throw new IOException("Bad frame length " + len);
+                    buf.limit(FramedTransport.HEADER_SIZE + len);
+                    fill(channel, buf);
+                    buf.flip();
+                    onFrame(buf);
+                }
+            } catch (EOFException eof) {
+                System.out.println("Connection closed");
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: TransportReceiver -udp port | -tcp port");
+        int port = Integer.parseInt(args[1]);
+        TransportReceiver r = new TransportReceiver();
+        switch (args[0]) {
+            case "-udp": r.receiveUdp(port); break;
+            case "-tcp": r.receiveTcp(port); break;
+            default: throw new IllegalArgumentException("Unknown option " + args[0]);
+        }
+    }
+}
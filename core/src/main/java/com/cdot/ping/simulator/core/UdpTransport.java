@@ -0,0 +1,28 @@
+package com.cdot.ping.simulator.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends each payload as a single datagram, framed as described in FramedTransport
+ */
+public class UdpTransport extends FramedTransport {
+    private final DatagramChannel mChannel;
+
+    public UdpTransport(InetSocketAddress to) throws IOException {
+        mChannel = DatagramChannel.open();
+        mChannel.connect(to);
+    }
+
+    @Override // FramedTransport
+    protected void write(ByteBuffer frame) throws IOException {
+        mChannel.write(frame);
+    }
+
+    @Override // SampleTransport
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
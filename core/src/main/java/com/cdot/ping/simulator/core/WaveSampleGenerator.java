@@ -0,0 +1,32 @@
+package com.cdot.ping.simulator.core;
+
+/**
+ * A boat circling once every 30 seconds over a bottom that rises and falls through the
+ * configured range.
+ */
+public class WaveSampleGenerator extends AbstractSampleGenerator {
+    float maxDepth = 36.0f;
+
+    public void fill(Sample into, long timeNanos) {
+        // We want one complete cycle - 2 pi radians - to correspond to 30 seconds
+        // t in the range 0..30
+        float t = (float) ((timeNanos / 1e9) % 30);
+        // theta in the range 0..2pi
+        double theta = t * (2 * Math.PI) / 30.0;
+        // Describing an ellipse of 1 minute (1 nm) radius
+        into.latitude = Math.sin(theta) / 60;
+        into.longitude = Math.cos(theta) / 60;
+        into.time = timeNanos / 1000000L;
+        into.depth = (float)(maxDepth * (Math.sin(theta) + 1) / 2);
+        into.strength = 50;
+        into.fishDepth = (float)(maxDepth * (Math.cos(3 * theta) + 1) / 4);
+        into.fishStrength = 25;
+        into.battery = 100 * t / 30;
+        into.temperature = (float)(22 + 10 * Math.sin(theta * 5));
+    }
+
+    public void configure(int sensitivity, int noise, int range) {
+        maxDepth = FishFinder.rangeDepth(range);
+    }
+}
+
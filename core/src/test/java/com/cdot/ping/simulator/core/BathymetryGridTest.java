@@ -0,0 +1,73 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BathymetryGridTest {
+    private static final int COLUMNS = 23, ROWS = 17;
+    private static final int MISSING_X = 5, MISSING_Y = 5;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    // Depth at a grid point of the test grid
+    private static double depth(int x, int y) {
+        return 10 + x + 2 * y;
+    }
+
+    // Convert a grid of depths with one missing point, in tiles smaller than the grid
+    private BathymetryGrid createGrid() throws IOException {
+        File asc = mFolder.newFile("grid.asc");
+        try (Writer w = new FileWriter(asc)) {
+            w.write("ncols " + COLUMNS + "\nnrows " + ROWS + "\nxllcenter 0\nyllcenter 0\ncellsize 1\nnodata_value -9999\n");
+            for (int y = ROWS - 1; y >= 0; y--) {
+                for (int x = 0; x < COLUMNS; x++)
+                    w.write((x == MISSING_X && y == MISSING_Y ? "-9999" : Double.toString(depth(x, y))) + " ");
+                w.write("\n");
+            }
+        }
+        File bin = mFolder.newFile("grid.bin");
+        new BathymetryConverter(true, false, 4).convertAsc(asc, bin);
+        return new BathymetryGrid(bin);
+    }
+
+    @Test
+    public void missingPointDoesNotSpread() throws IOException {
+        try (BathymetryGrid grid = createGrid()) {
+            BathymetryGrid.Sampler sampler = grid.newSampler();
+            for (int y = 0; y < ROWS; y++)
+                for (int x = 0; x < COLUMNS; x++) {
+                    double d = sampler.depthAt(x, y);
+                    if (x == MISSING_X && y == MISSING_Y)
+                        assertTrue(Double.isNaN(d));
+                    else
+                        assertEquals("(" + x + "," + y + ")", depth(x, y), d, 1e-6);
+                }
+            // Near the missing point there is no depth; nearer a valid one, there is
+            assertTrue(Double.isNaN(sampler.depthAt(MISSING_X + 0.2, MISSING_Y + 0.1)));
+            assertEquals(depth(MISSING_X + 1, MISSING_Y), sampler.depthAt(MISSING_X + 0.8, MISSING_Y + 0.1), 1e-6);
+        }
+    }
+
+    @Test
+    public void interpolatesBetweenValidPoints() throws IOException {
+        try (BathymetryGrid grid = createGrid()) {
+            BathymetryGrid.Sampler sampler = grid.newSampler();
+            // The depths are linear, so interpolation is exact, including across tiles
+            assertEquals(10 + 12.25 + 2 * 9.5, sampler.depthAt(12.25, 9.5), 1e-6);
+            assertEquals(10 + 3.5 + 2 * 4.5, sampler.depthAt(3.5, 4.5), 1e-6);
+            assertEquals(depth(COLUMNS - 1, ROWS - 1), sampler.depthAt(COLUMNS - 1, ROWS - 1), 1e-6);
+            assertTrue(Double.isNaN(sampler.depthAt(-0.5, 3)));
+            assertTrue(Double.isNaN(sampler.depthAt(3, ROWS)));
+        }
+    }
+}
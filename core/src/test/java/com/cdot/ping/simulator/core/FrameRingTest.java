@@ -0,0 +1,74 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrameRingTest {
+
+    private static void produce(FrameRing ring, int frames) {
+        for (int i = 0; i < frames; i++) {
+            ring.claim();
+            ring.publish();
+        }
+    }
+
+    @Test
+    public void cursorFollowsEveryFrame() {
+        FrameRing ring = new FrameRing(4);
+        FrameRing.Cursor cursor = ring.newCursor();
+        assertNull(cursor.poll());
+        produce(ring, 2);
+        assertEquals(0, cursor.poll().sequence);
+        assertTrue(cursor.isAvailable());
+        assertEquals(1, cursor.poll().sequence);
+        assertTrue(cursor.isAvailable());
+        assertNull(cursor.poll());
+        assertEquals(0, cursor.getSkipped());
+    }
+
+    @Test
+    public void frameLappedWhileBeingRead() {
+        FrameRing ring = new FrameRing(4);
+        FrameRing.Cursor cursor = ring.newCursor();
+        produce(ring, 1);
+        Frame f = cursor.poll();
+        assertEquals(0, f.sequence);
+        assertTrue(cursor.isAvailable());
+        assertTrue(ring.isAvailable(0));
+
+        // The producer fills the ring up to the frame being read, then claims it again
+        produce(ring, 3);
+        assertFalse(ring.isAvailable(0));
+        assertFalse(cursor.isAvailable());
+        assertSame(f, ring.claim());
+        assertEquals(4, f.sequence);
+
+        // The cursor skips what it missed, and the frames left are readable
+        assertEquals(1, cursor.poll().sequence);
+        assertTrue(cursor.isAvailable());
+        ring.publish();
+        produce(ring, 3);
+        assertEquals(5, cursor.poll().sequence);
+        assertEquals(3, cursor.getSkipped());
+        assertTrue(cursor.isAvailable());
+    }
+
+    @Test
+    public void latestFrame() {
+        FrameRing ring = new FrameRing(4);
+        assertNull(ring.latest());
+        assertEquals(-1, ring.published());
+        produce(ring, 6);
+        assertEquals(5, ring.published());
+        assertSame(ring.get(5), ring.latest());
+        assertSame(ring.get(1), ring.get(5));
+        assertTrue(ring.isAvailable(5));
+        assertFalse(ring.isAvailable(6));
+        assertFalse(ring.isAvailable(2));
+    }
+}
@@ -0,0 +1,54 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class MetricsRegistryTest {
+
+    private static final Gauge ONE = new Gauge() {
+        @Override
+        public double get() {
+            return 1;
+        }
+    };
+
+    private static String prometheus(MetricsRegistry registry) {
+        StringBuilder out = new StringBuilder();
+        registry.writePrometheus(out);
+        return out.toString();
+    }
+
+    @Test
+    public void removeDropsOnlyMatchingLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("sent_total", "Sent", "device", "a").add(2);
+        registry.counter("sent_total", "Sent", "device", "b").add(3);
+        registry.gauge("rate_hz", "Rate", ONE, "device", "a");
+        registry.gauge("up", "Up", ONE);
+
+        registry.remove("device", "a");
+        assertEquals("# HELP sent_total Sent\n"
+                + "# TYPE sent_total counter\n"
+                + "sent_total{device=\"b\"} 3\n"
+                + "# HELP up Up\n"
+                + "# TYPE up gauge\n"
+                + "up 1\n", prometheus(registry));
+
+        // Removing again does nothing
+        registry.remove("device", "a");
+        assertEquals(6, prometheus(registry).split("\n").length);
+    }
+
+    @Test
+    public void counterIsNewAfterRemove() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StripedCounter c = registry.counter("sent_total", "Sent", "device", "a");
+        c.add(5);
+        registry.remove("device", "a");
+        StripedCounter d = registry.counter("sent_total", "Sent", "device", "a");
+        assertNotSame(c, d);
+        assertEquals(0, d.get());
+    }
+}
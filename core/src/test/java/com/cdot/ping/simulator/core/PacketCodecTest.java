@@ -0,0 +1,71 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The packets Ping reads are a fixed wire format, so these pin the exact bytes, as the
+ * simulator encoded them before PacketCodec existed.
+ */
+public class PacketCodecTest {
+    private static final Sample SAMPLE = new Sample(55.9533, -3.1883, 0, 12.34f, 80, 5.5f, 60, 75, 14.2f);
+    // Deepest point of the demo track, at full strength and battery
+    private static final Sample DEEP = new Sample(0, 0, 0, 36.03f, 100, 0, 0, 100, 0);
+
+    private static final byte[] SONAR_WET = {
+            83, 70, 0, 0, 0, 9, 40, 48, -52, 18, 4, 73, 57, 55, 0, 0, 0, -107
+    };
+    private static final byte[] SONAR_DRY = {
+            83, 70, 0, 0, 8, 9, 40, 48, -52, 18, 4, 73, 57, 55, 0, 0, 0, -99
+    };
+    private static final byte[] SONAR_DEEP = {
+            83, 70, 0, 0, 0, 9, 118, 20, -1, 0, 0, 96, 32, 0, 0, 0, 0, -85
+    };
+    private static final byte[] LOCATION = {
+            64, 75, -6, 5, -68, 1, -93, 110, -64, 9, -127, -93, 110, 46, -79, -60
+    };
+
+    private static byte[] sonar(Sample sample, boolean dry) {
+        byte[] buf = new byte[PacketCodec.SONAR_PACKET_SIZE];
+        PacketCodec.encodeSonar(sample, dry, buf, 0);
+        return buf;
+    }
+
+    @Test
+    public void sonarWet() {
+        assertArrayEquals(SONAR_WET, sonar(SAMPLE, false));
+        assertArrayEquals(SONAR_DEEP, sonar(DEEP, false));
+    }
+
+    @Test
+    public void sonarDry() {
+        assertArrayEquals(SONAR_DRY, sonar(SAMPLE, true));
+    }
+
+    @Test
+    public void location() {
+        byte[] buf = new byte[PacketCodec.LOCATION_PACKET_SIZE];
+        PacketCodec.encodeLocation(SAMPLE, buf, 0);
+        assertArrayEquals(LOCATION, buf);
+    }
+
+    @Test
+    public void encodesAtAnOffset() {
+        byte[] buf = new byte[3 + PacketCodec.SONAR_PACKET_SIZE + PacketCodec.LOCATION_PACKET_SIZE];
+        PacketCodec.encodeSonar(SAMPLE, false, buf, 3);
+        PacketCodec.encodeLocation(SAMPLE, buf, 3 + PacketCodec.SONAR_PACKET_SIZE);
+        assertEquals(0, buf[0]);
+        assertArrayEquals(SONAR_WET, Arrays.copyOfRange(buf, 3, 3 + PacketCodec.SONAR_PACKET_SIZE));
+        assertArrayEquals(LOCATION, Arrays.copyOfRange(buf, 3 + PacketCodec.SONAR_PACKET_SIZE, buf.length));
+    }
+
+    @Test
+    public void channels() {
+        assertEquals(FishFinder.BTC_SAMPLE, PacketCodec.characteristicOf(PacketCodec.channelOf(FishFinder.BTC_SAMPLE)));
+        assertEquals(FishFinder.BTC_LOCATION, PacketCodec.characteristicOf(PacketCodec.channelOf(FishFinder.BTC_LOCATION)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PacketStreamWriterTest {
+    private static final int SONAR_FRAME_SIZE = FramedTransport.HEADER_SIZE + PacketCodec.SONAR_PACKET_SIZE;
+    private static final int LOCATION_FRAME_SIZE = FramedTransport.HEADER_SIZE + PacketCodec.LOCATION_PACKET_SIZE;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    // 10.5s survey in 1s partitions, so the last is short, with noise and fish to
+    // exercise the partitions' seeds
+    private static PacketStreamWriter newWriter() {
+        return new PacketStreamWriter("wave", 5, 100, 1, 10.5, 1, 50, 2, FishFinder.RANGE_DEPTH.length - 1,
+                false, 42);
+    }
+
+    @Test
+    public void sameFileWhateverTheThreads() throws IOException {
+        File one = mFolder.newFile("one.bin"), four = mFolder.newFile("four.bin");
+        // Sonar ticks at 0, 10ms, ... 10.49s; location at 0, 1s, ... 10s
+        long expected = 1050L * SONAR_FRAME_SIZE + 11L * LOCATION_FRAME_SIZE;
+        assertEquals(expected, newWriter().write(one, 1));
+        assertEquals(expected, newWriter().write(four, 4));
+        assertEquals(expected, one.length());
+        assertArrayEquals(Files.readAllBytes(one.toPath()), Files.readAllBytes(four.toPath()));
+    }
+
+    @Test
+    public void framesAreInTimeOrder() throws IOException {
+        File file = mFolder.newFile("survey.bin");
+        newWriter().write(file, 4);
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        byte sonar = PacketCodec.channelOf(FishFinder.BTC_SAMPLE);
+        byte location = PacketCodec.channelOf(FishFinder.BTC_LOCATION);
+        long last = -1;
+        int sonarFrames = 0, locationFrames = 0;
+        while (buf.hasRemaining()) {
+            byte channel = buf.get();
+            int length = buf.get();
+            long time = buf.getLong();
+            if (channel == sonar) {
+                assertEquals(PacketCodec.SONAR_PACKET_SIZE, length);
+                assertEquals(sonarFrames * 10000000L, time);
+                sonarFrames++;
+            } else {
+                assertEquals(location, channel);
+                assertEquals(PacketCodec.LOCATION_PACKET_SIZE, length);
+                assertEquals(locationFrames * 1000000000L, time);
+                locationFrames++;
+            }
+            assertTrue(time >= last);
+            last = time;
+            buf.position(buf.position() + length);
+        }
+        assertEquals(1050, sonarFrames);
+        assertEquals(11, locationFrames);
+    }
+}
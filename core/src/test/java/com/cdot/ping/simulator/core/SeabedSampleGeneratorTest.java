@@ -0,0 +1,40 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SeabedSampleGeneratorTest {
+
+    @Test
+    public void clipsToRange() {
+        SeabedSampleGenerator unclipped = new SeabedSampleGenerator(1);
+        SeabedSampleGenerator clipped = new SeabedSampleGenerator(1);
+        clipped.configure(50, 0, 0);
+        float range = FishFinder.rangeDepth(0);
+        Sample a = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0), b = new Sample(0, 0, 0, 0, 0, 0, 0, 0, 0);
+        int deeper = 0;
+        for (long t = 0; t < 600; t++) {
+            unclipped.fill(a, t * 1000000000L);
+            clipped.fill(b, t * 1000000000L);
+            assertEquals(Math.min(a.depth, range), b.depth, 0);
+            assertTrue(b.fishDepth <= range);
+            if (a.depth > range)
+                deeper++;
+        }
+        // The seabed does go deeper than the shortest range
+        assertTrue(deeper > 0);
+    }
+
+    @Test
+    public void sameSeedSameSeabed() {
+        SeabedSampleGenerator a = new SeabedSampleGenerator(7), b = new SeabedSampleGenerator(7);
+        // Out of order, so different tiles are cached
+        for (long t = 0; t < 100; t++) {
+            long time = ((t * 37) % 100) * 3000000000L;
+            assertEquals(a.sampleAt(time).depth, b.sampleAt(time).depth, 0);
+            assertEquals(a.depthAt(t * 10, -t * 10), b.depthAt(t * 10, -t * 10), 0);
+        }
+    }
+}
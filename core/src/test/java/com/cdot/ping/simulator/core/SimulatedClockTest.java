@@ -0,0 +1,168 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedClockTest {
+
+    // A thread that sleeps on the clock until a deadline, then records the time it woke at
+    private static class Sleeper extends Thread {
+        final SimulatedClock clock;
+        final long deadline;
+        volatile long wokeAt = -1;
+
+        Sleeper(SimulatedClock clock, long deadline) {
+            this.clock = clock;
+            this.deadline = deadline;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                clock.sleepUntil(deadline);
+                wokeAt = clock.nanoTime();
+            } catch (InterruptedException ignored) {
+            } finally {
+                clock.detach(this);
+            }
+        }
+    }
+
+    // Wait for a thread to block, waiting on the clock
+    private static void awaitWaiting(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING) {
+            assertTrue(t.isAlive());
+            Thread.sleep(1);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void attachedThreadHoldsTimeBack() throws InterruptedException {
+        SimulatedClock clock = new SimulatedClock(0);
+        // Attached, but busy, so the clock must not move
+        clock.attach(Thread.currentThread());
+        Sleeper s = new Sleeper(clock, 1000);
+        s.start();
+        awaitWaiting(s);
+        Thread.sleep(50);
+        assertEquals(0, clock.nanoTime());
+        assertEquals(-1, s.wokeAt);
+
+        // Once it waits too, time goes to the earliest deadline
+        clock.parkUntil(this, 400);
+        assertEquals(400, clock.nanoTime());
+        assertEquals(-1, s.wokeAt);
+
+        clock.detach(Thread.currentThread());
+        s.join();
+        assertEquals(1000, s.wokeAt);
+        assertEquals(1000, clock.nanoTime());
+    }
+
+    @Test(timeout = 10000)
+    public void visitorsDontHoldTimeBack() throws InterruptedException {
+        SimulatedClock clock = new SimulatedClock(0);
+        Sleeper visitor = new Sleeper(clock, 300);
+        visitor.start();
+        // Nothing attached, so the visitor only waits for itself
+        visitor.join();
+        assertEquals(300, visitor.wokeAt);
+
+        // This thread isn't waiting, but isn't attached either, so an attached thread
+        // goes through its deadlines without waiting for it
+        Sleeper attached = new Sleeper(clock, 2000);
+        clock.attach(attached);
+        attached.start();
+        attached.join();
+        assertEquals(2000, attached.wokeAt);
+
+        // A visitor with an earlier deadline than an attached thread wakes first, and
+        // doesn't stop time moving on once it has
+        clock.attach(Thread.currentThread());
+        attached = new Sleeper(clock, 5000);
+        clock.attach(attached);
+        attached.start();
+        awaitWaiting(attached);
+        visitor = new Sleeper(clock, 3000);
+        visitor.start();
+        awaitWaiting(visitor);
+        clock.parkUntil(this, 4000);
+        assertEquals(4000, clock.nanoTime());
+        visitor.join();
+        assertTrue(visitor.wokeAt >= 3000 && visitor.wokeAt <= 4000);
+        assertEquals(-1, attached.wokeAt);
+        clock.detach(Thread.currentThread());
+        attached.join();
+        assertEquals(5000, attached.wokeAt);
+    }
+
+    @Test(timeout = 10000)
+    public void unparkBeforePark() {
+        SimulatedClock clock = new SimulatedClock(0);
+        clock.attach(Thread.currentThread());
+        clock.unpark(Thread.currentThread());
+        // Returns at once, without moving time on
+        clock.parkUntil(this, 1000);
+        assertEquals(0, clock.nanoTime());
+        // The unpark is used up, so the next wait does move time on
+        clock.parkUntil(this, 1000);
+        assertEquals(1000, clock.nanoTime());
+        clock.detach(Thread.currentThread());
+    }
+
+    @Test(timeout = 10000)
+    public void unparkWakesWaiter() throws InterruptedException {
+        SimulatedClock clock = new SimulatedClock(0);
+        clock.attach(Thread.currentThread());
+        Sleeper s = new Sleeper(clock, Long.MAX_VALUE) {
+            @Override
+            public void run() {
+                clock.parkUntil(this, deadline);
+                wokeAt = clock.nanoTime();
+                clock.detach(this);
+            }
+        };
+        clock.attach(s);
+        s.start();
+        awaitWaiting(s);
+        clock.unpark(s);
+        s.join();
+        assertEquals(0, s.wokeAt);
+        clock.detach(Thread.currentThread());
+    }
+
+    @Test(timeout = 10000)
+    public void detachWhileOthersWait() throws InterruptedException {
+        SimulatedClock clock = new SimulatedClock(0);
+        Sleeper a = new Sleeper(clock, 100), b = new Sleeper(clock, 200);
+        clock.attach(a);
+        clock.attach(b);
+        // Attached, but never started, so holds time back until detached
+        Thread idle = new Thread();
+        clock.attach(idle);
+        a.start();
+        b.start();
+        awaitWaiting(a);
+        awaitWaiting(b);
+        Thread.sleep(50);
+        assertEquals(0, clock.nanoTime());
+
+        clock.detach(idle);
+        a.join();
+        b.join();
+        assertEquals(100, a.wokeAt);
+        assertEquals(200, b.wokeAt);
+    }
+
+    @Test
+    public void wallClockFollowsSimulatedTime() {
+        SimulatedClock clock = new SimulatedClock(1000);
+        assertEquals(1000, clock.currentTimeMillis());
+        clock.parkUntil(this, 2500000000L);
+        assertEquals(2500000000L, clock.nanoTime());
+        assertEquals(3500, clock.currentTimeMillis());
+    }
+}
@@ -0,0 +1,91 @@
+package com.cdot.ping.simulator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TickSchedulerTest {
+
+    private static final TickScheduler.TickListener NOTHING = new TickScheduler.TickListener() {
+        @Override
+        public void onTick(TickScheduler.Stream stream, long deadline, long now) {
+        }
+    };
+
+    @Test
+    public void simulatedRunFiresExactlyRateTimesSeconds() throws InterruptedException {
+        // Run it many times, as an overshoot depends on how the threads happen to race
+        for (int run = 0; run < 50; run++) {
+            SimulatedClock clock = new SimulatedClock(0);
+            TickScheduler scheduler = new TickScheduler("test", clock);
+            TickScheduler.Stream sonar = scheduler.addStream(8, NOTHING);
+            TickScheduler.Stream loc = scheduler.addStream(1, NOTHING);
+            long end = clock.nanoTime() + 100 * 1000000000L;
+            scheduler.setEndTime(end);
+            scheduler.start();
+            scheduler.awaitEnd();
+            assertEquals(800, sonar.getTicks());
+            assertEquals(100, loc.getTicks());
+            assertEquals(0, sonar.getMissedTicks());
+            assertEquals(end, clock.nanoTime());
+            assertEquals(false, scheduler.isRunning());
+        }
+    }
+
+    @Test
+    public void simulatorStopsAtEndTime() throws InterruptedException {
+        for (int run = 0; run < 20; run++) {
+            SimulatedClock clock = new SimulatedClock(0);
+            LoopbackTransport transport = new LoopbackTransport(null);
+            Simulator sim = new Simulator("test", clock, new WaveSampleGenerator(), 8, 1, transport);
+            long end = clock.nanoTime() + 100 * 1000000000L;
+            sim.setEndTime(end);
+            sim.start();
+            sim.awaitEnd();
+            assertEquals(800, sim.getSonarStream().getTicks());
+            assertEquals(100, sim.getLocationStream().getTicks());
+            assertEquals(900, transport.getPackets());
+            assertEquals(end, clock.nanoTime());
+        }
+    }
+
+    @Test
+    public void swarmStopsAtEndTime() throws InterruptedException {
+        for (int run = 0; run < 20; run++) {
+            SimulatedClock clock = new SimulatedClock(0);
+            LoopbackTransport transport = new LoopbackTransport(null);
+            Swarm swarm = new Swarm("test", 3, clock);
+            for (int i = 0; i < 10; i++)
+                swarm.addDevice(new WaveSampleGenerator(), 8, 1, transport);
+            long end = clock.nanoTime() + 20 * 1000000000L;
+            swarm.setEndTime(end);
+            swarm.start();
+            swarm.awaitEnd();
+            assertEquals(10 * 20 * 8, swarm.getSonarStatistics().ticks);
+            assertEquals(10 * 20, swarm.getLocationStatistics().ticks);
+            assertEquals(10 * 20 * 9, transport.getPackets());
+            assertEquals(end, clock.nanoTime());
+        }
+    }
+
+    @Test
+    public void removeStreamTwice() {
+        TickScheduler scheduler = new TickScheduler("test");
+        TickScheduler.Stream a = scheduler.addStream(8, NOTHING);
+        TickScheduler.Stream b = scheduler.addStream(1, NOTHING);
+        scheduler.removeStream(a);
+        assertEquals(1, scheduler.getStreamCount());
+        scheduler.removeStream(a);
+        assertEquals(1, scheduler.getStreamCount());
+        scheduler.removeStream(b);
+        scheduler.removeStream(b);
+        assertEquals(0, scheduler.getStreamCount());
+
+        // A stream from another scheduler isn't there to remove
+        TickScheduler other = new TickScheduler("other");
+        scheduler.addStream(8, NOTHING);
+        scheduler.removeStream(other.addStream(8, NOTHING));
+        assertEquals(1, scheduler.getStreamCount());
+        assertEquals(1, other.getStreamCount());
+    }
+}